@@ -0,0 +1,104 @@
+package me.snowdrop.stream.binder.artemis;
+
+import java.util.concurrent.TimeUnit;
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Session;
+
+import me.snowdrop.stream.binder.artemis.application.StreamApplication;
+import me.snowdrop.stream.binder.artemis.common.ConnectionFactoryUtils;
+import me.snowdrop.stream.binder.artemis.listener.AdaptiveConsumerWindow;
+import me.snowdrop.stream.binder.artemis.listener.AdaptiveConsumerWindowConnectionFactory;
+import me.snowdrop.stream.binder.artemis.listeners.StringStreamListener;
+import me.snowdrop.stream.binder.artemis.metrics.ConsumerMetrics;
+import me.snowdrop.stream.binder.artemis.sources.StringStreamSource;
+import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
+import org.apache.activemq.artemis.core.client.impl.ClientSessionInternal;
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.apache.activemq.artemis.jms.client.ActiveMQSession;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = StreamApplication.class,
+        properties = {
+                "spring.cloud.stream.bindings.output.destination=adaptive-consumer-window-destination",
+                "spring.cloud.stream.bindings.input.destination=adaptive-consumer-window-destination",
+                "spring.cloud.stream.bindings.input.group=adaptive-consumer-window-group",
+                "spring.cloud.stream.bindings.input.consumer.concurrency=1",
+                "spring.cloud.stream.artemis.bindings.input.consumer.max-concurrency=2",
+                "spring.cloud.stream.artemis.bindings.input.consumer.adaptive-consumer-window=true"
+        }
+)
+@Import({ StringStreamSource.class, StringStreamListener.class })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+public class AdaptiveConsumerWindowIT {
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private StringStreamSource source;
+
+    @Autowired
+    private StringStreamListener listener;
+
+    @Test
+    public void shouldReceiveMessagesWithAdaptiveConsumerWindow() {
+        for (int i = 0; i < 10; i++) {
+            source.send("test message " + i);
+        }
+
+        await().atMost(30, SECONDS)
+                .until(() -> listener.getPayloads().size() == 10);
+
+        assertThat(listener.getPayloads())
+                .contains("test message 0", "test message 9");
+    }
+
+    @Test
+    public void shouldCreateSessionsWithAdaptedWindow() throws JMSException {
+        ActiveMQConnectionFactory bindingConnectionFactory =
+                ConnectionFactoryUtils.copyConnectionFactory(connectionFactory);
+        AdaptiveConsumerWindow window = new AdaptiveConsumerWindow(1024 * 1024, ConsumerMetrics.NOOP);
+        Connection connection =
+                new AdaptiveConsumerWindowConnectionFactory(bindingConnectionFactory, window).createConnection();
+        try {
+            Session initialSession = connection.createSession(true, Session.SESSION_TRANSACTED);
+            // 10 messages per second, 100 bytes each
+            window.recordProcessing(TimeUnit.MILLISECONDS.toNanos(100), 1, 100);
+            Session adaptedSession = connection.createSession(true, Session.SESSION_TRANSACTED);
+
+            assertThat(getSessionFactory(initialSession).getServerLocator().getConsumerWindowSize())
+                    .isEqualTo(1024 * 1024);
+            assertThat(getSessionFactory(adaptedSession).getServerLocator().getConsumerWindowSize())
+                    .isEqualTo(1024);
+            assertThat(getSessionFactory(initialSession).isClosed()).isFalse();
+
+            initialSession.close();
+            connection.createSession(true, Session.SESSION_TRANSACTED);
+
+            assertThat(getSessionFactory(initialSession).isClosed()).isTrue();
+            assertThat(getSessionFactory(adaptedSession).isClosed()).isFalse();
+        } finally {
+            connection.close();
+            bindingConnectionFactory.close();
+        }
+    }
+
+    private ClientSessionFactory getSessionFactory(Session session) {
+        return ((ClientSessionInternal) ((ActiveMQSession) session).getCoreSession()).getSessionFactory();
+    }
+
+}
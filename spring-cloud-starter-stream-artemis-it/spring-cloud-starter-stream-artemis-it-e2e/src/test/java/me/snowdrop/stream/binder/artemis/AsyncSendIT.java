@@ -0,0 +1,69 @@
+package me.snowdrop.stream.binder.artemis;
+
+import me.snowdrop.stream.binder.artemis.application.StreamApplication;
+import me.snowdrop.stream.binder.artemis.listeners.StringStreamListener;
+import me.snowdrop.stream.binder.artemis.sources.StringStreamSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = StreamApplication.class,
+        properties = {
+                "spring.cloud.stream.bindings.output.destination=async-send-destination",
+                "spring.cloud.stream.bindings.input.destination=async-send-destination",
+                "spring.cloud.stream.bindings.input.group=async-send-group",
+                "spring.cloud.stream.artemis.bindings.output.producer.async-send=true",
+                "spring.cloud.stream.artemis.bindings.output.producer.confirm-ack-channel=asyncSendConfirmations"
+        }
+)
+@Import({ StringStreamSource.class, StringStreamListener.class, AsyncSendIT.ConfirmationsConfiguration.class })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+public class AsyncSendIT {
+
+    @Autowired
+    private StringStreamSource source;
+
+    @Autowired
+    private StringStreamListener listener;
+
+    @Autowired
+    private QueueChannel asyncSendConfirmations;
+
+    @Test
+    public void shouldConfirmAsynchronouslySentMessages() {
+        source.send("test message 1");
+        source.send("test message 2");
+
+        await().atMost(30, SECONDS)
+                .until(() -> listener.getPayloads().size() == 2 && asyncSendConfirmations.getQueueSize() == 2);
+
+        assertThat(listener.getPayloads()).containsExactly("test message 1", "test message 2");
+    }
+
+    @Configuration
+    static class ConfirmationsConfiguration {
+
+        @Bean
+        public QueueChannel asyncSendConfirmations() {
+            return new QueueChannel();
+        }
+
+    }
+
+}
@@ -0,0 +1,68 @@
+package me.snowdrop.stream.binder.artemis;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import me.snowdrop.stream.binder.artemis.application.StreamApplication;
+import me.snowdrop.stream.binder.artemis.listeners.BatchStreamListener;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.MimeTypeUtils;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = StreamApplication.class,
+        properties = {
+                "spring.cloud.function.definition=batchInput",
+                "spring.cloud.stream.bindings.batchInput-in-0.destination=batch-destination",
+                "spring.cloud.stream.bindings.batchInput-in-0.group=batch-group",
+                "spring.cloud.stream.bindings.batchInput-in-0.consumer.batch-mode=true",
+                "spring.cloud.stream.artemis.bindings.batchInput-in-0.consumer.batch-size=3",
+                "spring.cloud.stream.artemis.bindings.batchInput-in-0.consumer.batch-timeout=5000"
+        }
+)
+@Import(BatchStreamListener.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+public class BatchModeIT {
+
+    @Autowired
+    private StreamBridge streamBridge;
+
+    @Autowired
+    private BatchStreamListener listener;
+
+    @Test
+    public void shouldReceiveBatches() {
+        for (int i = 0; i < 5; i++) {
+            streamBridge.send("batch-destination", "message " + i, MimeTypeUtils.TEXT_PLAIN);
+        }
+
+        await().atMost(30, SECONDS)
+                .until(() -> getReceivedMessages().size() == 5);
+
+        assertThat(getReceivedMessages())
+                .containsExactly("message 0", "message 1", "message 2", "message 3", "message 4");
+        assertThat(listener.getBatches().get(0)).hasSize(3);
+    }
+
+    private List<String> getReceivedMessages() {
+        return listener.getBatches()
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,53 @@
+package me.snowdrop.stream.binder.artemis;
+
+import me.snowdrop.stream.binder.artemis.application.StreamApplication;
+import me.snowdrop.stream.binder.artemis.listeners.StringStreamListener;
+import me.snowdrop.stream.binder.artemis.sources.StringStreamSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = StreamApplication.class,
+        properties = {
+                "spring.cloud.stream.bindings.output.destination=compression-destination",
+                "spring.cloud.stream.bindings.input.destination=compression-destination",
+                "spring.cloud.stream.bindings.input.group=compression-group",
+                "spring.cloud.stream.artemis.bindings.output.producer.compression=deflate",
+                "spring.cloud.stream.artemis.bindings.output.producer.compression-threshold=0"
+        }
+)
+@Import({ StringStreamSource.class, StringStreamListener.class })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+public class CompressionIT {
+
+    @Autowired
+    private StringStreamSource source;
+
+    @Autowired
+    private StringStreamListener listener;
+
+    @Test
+    public void shouldReceiveCompressedMessages() {
+        source.send("test message 1");
+        source.send("test message 2");
+
+        await().atMost(30, SECONDS)
+                .until(() -> listener.getPayloads().size() == 2);
+
+        assertThat(listener.getPayloads()).containsExactly("test message 1", "test message 2");
+    }
+
+}
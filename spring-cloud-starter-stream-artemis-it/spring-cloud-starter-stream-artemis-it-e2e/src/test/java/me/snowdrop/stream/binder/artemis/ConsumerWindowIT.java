@@ -0,0 +1,53 @@
+package me.snowdrop.stream.binder.artemis;
+
+import me.snowdrop.stream.binder.artemis.application.StreamApplication;
+import me.snowdrop.stream.binder.artemis.listeners.StringStreamListener;
+import me.snowdrop.stream.binder.artemis.sources.StringStreamSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = StreamApplication.class,
+        properties = {
+                "spring.cloud.stream.bindings.output.destination=consumer-window-destination",
+                "spring.cloud.stream.bindings.input.destination=consumer-window-destination",
+                "spring.cloud.stream.bindings.input.group=consumer-window-group",
+                "spring.cloud.stream.bindings.input.consumer.concurrency=1",
+                "spring.cloud.stream.artemis.bindings.input.consumer.max-concurrency=2",
+                "spring.cloud.stream.artemis.bindings.input.consumer.consumer-window-size=0"
+        }
+)
+@Import({ StringStreamSource.class, StringStreamListener.class })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+public class ConsumerWindowIT {
+
+    @Autowired
+    private StringStreamSource source;
+
+    @Autowired
+    private StringStreamListener listener;
+
+    @Test
+    public void shouldReceiveMessagesWithConsumerWindow() {
+        for (int i = 0; i < 10; i++) {
+            source.send("test message " + i);
+        }
+
+        await().atMost(30, SECONDS)
+                .until(() -> listener.getPayloads().size() == 10);
+
+        assertThat(listener.getPayloads())
+                .contains("test message 0", "test message 9");
+    }
+
+}
@@ -0,0 +1,59 @@
+package me.snowdrop.stream.binder.artemis;
+
+import me.snowdrop.stream.binder.artemis.application.StreamApplication;
+import me.snowdrop.stream.binder.artemis.listeners.FailingStreamListener;
+import me.snowdrop.stream.binder.artemis.sources.StringStreamSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.equalTo;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = StreamApplication.class,
+        properties = {
+                // Keep values the same as in FailingStreamListener
+                "spring.cloud.stream.bindings.output.destination=failing-destination",
+                "spring.cloud.stream.bindings.input.destination=failing-destination",
+                "spring.cloud.stream.bindings.input.group=failing-group",
+                "spring.cloud.stream.bindings.input.consumer.concurrency=2",
+                "spring.cloud.stream.artemis.bindings.input.consumer.container-type=event-driven",
+                "spring.cloud.stream.artemis.bindings.input.consumer.dispatch-pool-size=2",
+                // Rollback has to work on the dispatch thread too
+                "spring.cloud.stream.artemis.bindings.input.consumer.retry-strategy=redelivery",
+                "spring.cloud.stream.artemis.bindings.input.consumer.modify-address-settings=true",
+                "spring.cloud.stream.artemis.bindings.input.consumer.broker-redelivery-delay=100"
+        }
+)
+@Import({ StringStreamSource.class, FailingStreamListener.class })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+public class EventDrivenConsumerIT {
+
+    @Autowired
+    private StringStreamSource source;
+
+    @Autowired
+    private FailingStreamListener listener;
+
+    @Test
+    public void shouldRedeliverFailingDeliveries() {
+        source.send("test message");
+
+        await().atMost(60, SECONDS)
+                .until(listener::getErrorsCounter, is(equalTo(1)));
+
+        assertThat(listener.getReceivedMessages())
+                .hasSize(3)
+                .containsOnly("test message");
+    }
+
+}
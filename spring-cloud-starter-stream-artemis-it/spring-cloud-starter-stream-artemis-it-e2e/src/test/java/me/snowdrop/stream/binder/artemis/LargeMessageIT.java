@@ -0,0 +1,84 @@
+package me.snowdrop.stream.binder.artemis;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import me.snowdrop.stream.binder.artemis.application.StreamApplication;
+import me.snowdrop.stream.binder.artemis.listeners.FileStreamListener;
+import me.snowdrop.stream.binder.artemis.sources.FileStreamSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = StreamApplication.class,
+        properties = {
+                "spring.cloud.stream.bindings.output.destination=large-message-destination",
+                "spring.cloud.stream.bindings.output.producer.use-native-encoding=true",
+                "spring.cloud.stream.bindings.input.destination=large-message-destination",
+                "spring.cloud.stream.bindings.input.group=large-message-group",
+                "spring.cloud.stream.artemis.bindings.input.consumer.large-message-directory=target/large-messages"
+        }
+)
+@Import({ FileStreamSource.class, FileStreamListener.class })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+public class LargeMessageIT {
+
+    // Larger than the default min large message size of 100KiB
+    private static final int FILE_SIZE = 1024 * 1024;
+
+    @Autowired
+    private FileStreamSource source;
+
+    @Autowired
+    private FileStreamListener listener;
+
+    @Test
+    public void shouldStreamFileToFile() throws IOException {
+        Path file = createFile();
+        try {
+            source.send(file);
+
+            await().atMost(30, SECONDS)
+                    .until(() -> listener.getFiles().size() == 1);
+
+            Path received = listener.getFiles().get(0);
+            assertThat(received.getParent()).isEqualTo(Paths.get("target/large-messages"));
+            assertThat(listener.getContents().get(0)).isEqualTo(Files.readAllBytes(file));
+            await().atMost(30, SECONDS)
+                    .until(() -> Files.notExists(received));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private Path createFile() throws IOException {
+        byte[] chunk = new byte[1024];
+        Random random = new Random();
+        Path file = Files.createTempFile("large-message", ".bin");
+        try (OutputStream output = Files.newOutputStream(file)) {
+            for (int i = 0; i < FILE_SIZE / chunk.length; i++) {
+                random.nextBytes(chunk);
+                output.write(chunk);
+            }
+        }
+        return file;
+    }
+
+}
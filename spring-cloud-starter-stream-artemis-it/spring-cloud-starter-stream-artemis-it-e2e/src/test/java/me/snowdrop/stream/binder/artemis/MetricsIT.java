@@ -0,0 +1,79 @@
+package me.snowdrop.stream.binder.artemis;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.snowdrop.stream.binder.artemis.application.StreamApplication;
+import me.snowdrop.stream.binder.artemis.listeners.StringStreamListener;
+import me.snowdrop.stream.binder.artemis.sources.StringStreamSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = StreamApplication.class,
+        properties = {
+                "spring.cloud.stream.bindings.output.destination=metrics-destination",
+                "spring.cloud.stream.bindings.input.destination=metrics-destination",
+                "spring.cloud.stream.bindings.input.group=metrics-group"
+        }
+)
+@Import({ StringStreamSource.class, StringStreamListener.class, MetricsIT.MeterRegistryConfiguration.class })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+public class MetricsIT {
+
+    @Autowired
+    private StringStreamSource source;
+
+    @Autowired
+    private StringStreamListener listener;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void shouldRecordBindingMetrics() {
+        source.send("test message 1");
+        source.send("test message 2");
+
+        await().atMost(30, SECONDS)
+                .until(() -> listener.getPayloads().size() == 2);
+
+        assertThat(meterRegistry.get("artemis.binder.producer.send")
+                .tag("destination", "metrics-destination")
+                .timer()
+                .count()).isEqualTo(2);
+        assertThat(meterRegistry.get("artemis.binder.consumer.messages")
+                .tag("destination", "metrics-destination")
+                .tag("group", "metrics-group")
+                .counter()
+                .count()).isEqualTo(2);
+        assertThat(meterRegistry.get("artemis.binder.provisioning")
+                .tag("destination", "metrics-destination")
+                .timers()).hasSize(2);
+    }
+
+    @Configuration
+    static class MeterRegistryConfiguration {
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+    }
+
+}
@@ -54,6 +54,14 @@ import static org.assertj.core.api.Assertions.assertThat;
                 "spring.cloud.stream.artemis.bindings.input.consumer.brokerRedeliveryDelayMultiplier=3.0",
                 "spring.cloud.stream.artemis.bindings.input.consumer.brokerMaxDeliveryAttempts=4",
                 "spring.cloud.stream.artemis.bindings.input.consumer.brokerSendToDlaOnNoRoute=true",
+                "spring.cloud.stream.artemis.bindings.input.consumer.brokerMaxSizeBytes=1048576",
+                "spring.cloud.stream.artemis.bindings.input.consumer.brokerPageSizeBytes=524288",
+                "spring.cloud.stream.artemis.bindings.input.consumer.brokerPageCacheMaxSize=5",
+                "spring.cloud.stream.artemis.bindings.input.consumer.brokerAddressFullMessagePolicy=BLOCK",
+                "spring.cloud.stream.artemis.bindings.input.consumer.brokerRedistributionDelay=6",
+                "spring.cloud.stream.artemis.bindings.input.consumer.brokerSlowConsumerThreshold=7",
+                "spring.cloud.stream.artemis.bindings.input.consumer.brokerSlowConsumerCheckPeriod=8",
+                "spring.cloud.stream.artemis.bindings.input.consumer.brokerSlowConsumerPolicy=NOTIFY",
         }
 )
 @Import({ IntegerStreamListener.class })
@@ -83,6 +91,14 @@ public class ModifiedAddressSettingsIT {
             assertThat(addressSettings.getRedeliveryMultiplier()).isEqualTo(3.0);
             assertThat(addressSettings.getMaxDeliveryAttempts()).isEqualTo(4);
             assertThat(addressSettings.isSendToDLAOnNoRoute()).isTrue();
+            assertThat(addressSettings.getMaxSizeBytes()).isEqualTo(1048576);
+            assertThat(addressSettings.getPageSizeBytes()).isEqualTo(524288);
+            assertThat(addressSettings.getPageCacheMaxSize()).isEqualTo(5);
+            assertThat(addressSettings.getAddressFullMessagePolicy()).isEqualTo("BLOCK");
+            assertThat(addressSettings.getRedistributionDelay()).isEqualTo(6);
+            assertThat(addressSettings.getSlowConsumerThreshold()).isEqualTo(7);
+            assertThat(addressSettings.getSlowConsumerCheckPeriod()).isEqualTo(8);
+            assertThat(addressSettings.getSlowConsumerPolicy()).isEqualTo("NOTIFY");
         }
     }
 
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.jms.ConnectionFactory;
+
+import me.snowdrop.stream.binder.artemis.application.StreamApplication;
+import me.snowdrop.stream.binder.artemis.listeners.StringStreamListener;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
+import org.apache.activemq.artemis.api.core.client.ServerLocator;
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.binding.BindingService;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.jms.connection.SingleConnectionFactory;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.activemq.artemis.api.core.SimpleString.toSimpleString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = StreamApplication.class,
+        properties = "spring.cloud.stream.bindings.input.destination=non-durable-anonymous-destination"
+)
+@Import(StringStreamListener.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class NonDurableAnonymousGroupIT {
+
+    private static final SimpleString ADDRESS = toSimpleString("non-durable-anonymous-destination");
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private BindingService bindingService;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    public void shouldDeleteQueueAfterUnbinding() throws Exception {
+        try (ClientSessionFactory sessionFactory = getServerLocator(connectionFactory).createSessionFactory();
+             ClientSession session = sessionFactory.createSession()) {
+            List<SimpleString> queueNames = session.addressQuery(ADDRESS).getQueueNames();
+            assertThat(queueNames).hasSize(1);
+            assertThat(queueNames.get(0).toString())
+                    .startsWith("nonDurable.non-durable-anonymous-destination-anonymous-");
+            assertThat(session.queueQuery(queueNames.get(0)).isDurable()).isFalse();
+
+            bindingService.unbindConsumers("input");
+
+            await().atMost(30, SECONDS)
+                    .until(() -> session.addressQuery(ADDRESS).getQueueNames().isEmpty());
+        }
+    }
+
+    @Test
+    public void shouldDestroyErrorInfrastructureAfterUnbinding() {
+        assertThat(getErrorChannelNames()).hasSize(1);
+
+        bindingService.unbindConsumers("input");
+
+        assertThat(getErrorChannelNames()).isEmpty();
+    }
+
+    private List<String> getErrorChannelNames() {
+        return Arrays.stream(context.getBeanNamesForType(SubscribableChannel.class))
+                .filter(name -> name.startsWith("non-durable-anonymous-destination-anonymous-"))
+                .filter(name -> name.endsWith(".errors"))
+                .collect(Collectors.toList());
+    }
+
+    private ServerLocator getServerLocator(ConnectionFactory connectionFactory) {
+        if (connectionFactory instanceof ActiveMQConnectionFactory) {
+            return ((ActiveMQConnectionFactory) connectionFactory).getServerLocator();
+        }
+        if (connectionFactory instanceof SingleConnectionFactory) {
+            return getServerLocator(((SingleConnectionFactory) connectionFactory).getTargetConnectionFactory());
+        }
+        throw new RuntimeException("Unsupported connection factory " + connectionFactory.getClass().getName());
+    }
+}
@@ -0,0 +1,83 @@
+package me.snowdrop.stream.binder.artemis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import me.snowdrop.stream.binder.artemis.application.StreamApplication;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.binder.PollableMessageSource;
+import org.springframework.cloud.stream.binder.RequeueCurrentMessageException;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.MimeTypeUtils;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = StreamApplication.class,
+        properties = {
+                "spring.cloud.stream.pollable-source=polled",
+                "spring.cloud.stream.bindings.polled-in-0.destination=polled-destination",
+                "spring.cloud.stream.bindings.polled-in-0.group=polled-group",
+                // Requeue without retrying the handler first
+                "spring.cloud.stream.bindings.polled-in-0.consumer.max-attempts=1"
+        }
+)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class PollableSourceIT {
+
+    private static final ParameterizedTypeReference<String> STRING_TYPE = new ParameterizedTypeReference<String>() {
+    };
+
+    @Autowired
+    private StreamBridge streamBridge;
+
+    @Autowired
+    private PollableMessageSource source;
+
+    @Test
+    public void shouldPollMessages() {
+        for (int i = 0; i < 3; i++) {
+            streamBridge.send("polled-destination", "message " + i, MimeTypeUtils.TEXT_PLAIN);
+        }
+
+        List<String> receivedMessages = new ArrayList<>();
+        await().atMost(30, SECONDS)
+                .until(() -> {
+                    source.poll(message -> receivedMessages.add((String) message.getPayload()), STRING_TYPE);
+                    return receivedMessages.size() == 3;
+                });
+
+        assertThat(receivedMessages).containsExactly("message 0", "message 1", "message 2");
+        assertThat(source.poll(message -> receivedMessages.add((String) message.getPayload()))).isFalse();
+    }
+
+    @Test
+    public void shouldRedeliverRequeuedMessage() {
+        streamBridge.send("polled-destination", "test message", MimeTypeUtils.TEXT_PLAIN);
+
+        List<String> receivedMessages = new ArrayList<>();
+        await().atMost(30, SECONDS)
+                .until(() -> source.poll(message -> {
+                    receivedMessages.add((String) message.getPayload());
+                    throw new RequeueCurrentMessageException();
+                }, STRING_TYPE));
+
+        await().atMost(30, SECONDS)
+                .until(() -> source.poll(message -> receivedMessages.add((String) message.getPayload()), STRING_TYPE));
+
+        assertThat(receivedMessages).containsExactly("test message", "test message");
+    }
+
+}
@@ -0,0 +1,60 @@
+package me.snowdrop.stream.binder.artemis;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import me.snowdrop.stream.binder.artemis.application.StreamApplication;
+import me.snowdrop.stream.binder.artemis.listeners.StringStreamListener;
+import me.snowdrop.stream.binder.artemis.sources.StringStreamSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = StreamApplication.class,
+        properties = {
+                "spring.cloud.stream.bindings.output.destination=producer-batch-destination",
+                "spring.cloud.stream.bindings.input.destination=producer-batch-destination",
+                "spring.cloud.stream.bindings.input.group=producer-batch-group",
+                "spring.cloud.stream.artemis.bindings.output.producer.transaction-batch-size=10",
+                "spring.cloud.stream.artemis.bindings.output.producer.transaction-batch-timeout=200",
+                "spring.cloud.stream.artemis.bindings.output.producer.adaptive-transaction-batch=true"
+        }
+)
+@Import({ StringStreamSource.class, StringStreamListener.class })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+public class ProducerTransactionBatchIT {
+
+    @Autowired
+    private StringStreamSource source;
+
+    @Autowired
+    private StringStreamListener listener;
+
+    @Test
+    public void shouldReceiveMessagesSentInTransactionBatches() {
+        List<String> messages = IntStream.range(0, 25)
+                .mapToObj(i -> "test message " + i)
+                .collect(Collectors.toList());
+        messages.forEach(source::send);
+
+        await().atMost(30, SECONDS)
+                .until(() -> listener.getPayloads().size() == messages.size());
+
+        assertThat(listener.getPayloads()).containsExactlyElementsOf(messages);
+    }
+
+}
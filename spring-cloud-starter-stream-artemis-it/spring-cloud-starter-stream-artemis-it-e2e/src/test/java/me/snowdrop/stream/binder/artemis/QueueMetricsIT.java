@@ -0,0 +1,83 @@
+package me.snowdrop.stream.binder.artemis;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.snowdrop.stream.binder.artemis.application.StreamApplication;
+import me.snowdrop.stream.binder.artemis.listeners.StringStreamListener;
+import me.snowdrop.stream.binder.artemis.sources.StringStreamSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = StreamApplication.class,
+        properties = {
+                "spring.cloud.stream.bindings.output.destination=queue-metrics-destination",
+                "spring.cloud.stream.bindings.input.destination=queue-metrics-destination",
+                "spring.cloud.stream.bindings.input.group=queue-metrics-group",
+                "spring.cloud.stream.artemis.binder.queue-metrics-enabled=true",
+                "spring.cloud.stream.artemis.binder.queue-metrics-interval=100"
+        }
+)
+@Import({ StringStreamSource.class, StringStreamListener.class, QueueMetricsIT.MeterRegistryConfiguration.class })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+public class QueueMetricsIT {
+
+    @Autowired
+    private StringStreamSource source;
+
+    @Autowired
+    private StringStreamListener listener;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void shouldExposeQueueStatistics() {
+        source.send("test message 1");
+        source.send("test message 2");
+
+        await().atMost(30, SECONDS)
+                .until(() -> listener.getPayloads().size() == 2);
+
+        await().atMost(30, SECONDS)
+                .until(() -> getGauge("artemis.binder.consumer.queue.consumers") == 1);
+        await().atMost(30, SECONDS)
+                .until(() -> getGauge("artemis.binder.consumer.queue.messages") == 0);
+        assertThat(getGauge("artemis.binder.consumer.queue.delivering")).isEqualTo(0);
+        assertThat(getGauge("artemis.binder.consumer.queue.added.rate")).isNotNaN();
+    }
+
+    private double getGauge(String name) {
+        return meterRegistry.get(name)
+                .tag("destination", "queue-metrics-destination")
+                .tag("group", "queue-metrics-group")
+                .gauge()
+                .value();
+    }
+
+    @Configuration
+    static class MeterRegistryConfiguration {
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis;
+
+import javax.jms.ConnectionFactory;
+
+import me.snowdrop.stream.binder.artemis.application.StreamApplication;
+import me.snowdrop.stream.binder.artemis.listeners.StringStreamListener;
+import me.snowdrop.stream.binder.artemis.sources.StringStreamSource;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
+import org.apache.activemq.artemis.api.core.client.ServerLocator;
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jms.connection.SingleConnectionFactory;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.activemq.artemis.api.core.SimpleString.toSimpleString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = StreamApplication.class,
+        properties = {
+                "spring.cloud.stream.bindings.output.destination=queue-settings-destination",
+                "spring.cloud.stream.bindings.input.destination=queue-settings-destination",
+                "spring.cloud.stream.bindings.input.group=test-group",
+                "spring.cloud.stream.artemis.bindings.input.consumer.queueMaxConsumers=5",
+                "spring.cloud.stream.artemis.bindings.input.consumer.queueExclusive=true",
+                "spring.cloud.stream.artemis.bindings.input.consumer.queueConsumersBeforeDispatch=1",
+                "spring.cloud.stream.artemis.bindings.input.consumer.queueDelayBeforeDispatch=1000",
+                "spring.cloud.stream.artemis.bindings.input.consumer.queueFilter=JMSPriority >= 0",
+                "spring.cloud.stream.artemis.bindings.input.consumer.queueDurable=false"
+        }
+)
+@Import({ StringStreamSource.class, StringStreamListener.class })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+public class QueueSettingsIT {
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private StringStreamSource source;
+
+    @Autowired
+    private StringStreamListener listener;
+
+    @Test
+    public void shouldCreateQueueWithSettings() throws Exception {
+        try (ClientSessionFactory sessionFactory = getServerLocator(connectionFactory).createSessionFactory();
+             ClientSession session = sessionFactory.createSession()) {
+            ClientSession.QueueQuery queueQuery =
+                    session.queueQuery(toSimpleString("queue-settings-destination-test-group"));
+
+            assertThat(queueQuery.isExists()).isTrue();
+            assertThat(queueQuery.isDurable()).isFalse();
+            assertThat(queueQuery.getMaxConsumers()).isEqualTo(5);
+            assertThat(queueQuery.isExclusive()).isTrue();
+            assertThat(queueQuery.getConsumersBeforeDispatch()).isEqualTo(1);
+            assertThat(queueQuery.getDelayBeforeDispatch()).isEqualTo(1000);
+            assertThat(queueQuery.getFilterString().toString()).isEqualTo("AMQPriority >= 0");
+        }
+    }
+
+    @Test
+    public void shouldReceiveMessagesMatchingFilter() {
+        source.send("test message");
+
+        await().atMost(30, SECONDS)
+                .until(() -> listener.getPayloads().size() == 1);
+
+        assertThat(listener.getPayloads()).containsOnly("test message");
+    }
+
+    private ServerLocator getServerLocator(ConnectionFactory connectionFactory) {
+        if (connectionFactory instanceof ActiveMQConnectionFactory) {
+            return ((ActiveMQConnectionFactory) connectionFactory).getServerLocator();
+        }
+        if (connectionFactory instanceof SingleConnectionFactory) {
+            return getServerLocator(((SingleConnectionFactory) connectionFactory).getTargetConnectionFactory());
+        }
+        throw new RuntimeException("Unsupported connection factory " + connectionFactory.getClass().getName());
+    }
+}
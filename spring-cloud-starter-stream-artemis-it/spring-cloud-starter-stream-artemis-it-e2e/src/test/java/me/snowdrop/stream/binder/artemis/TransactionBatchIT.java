@@ -0,0 +1,61 @@
+package me.snowdrop.stream.binder.artemis;
+
+import me.snowdrop.stream.binder.artemis.application.StreamApplication;
+import me.snowdrop.stream.binder.artemis.listeners.FailingOnceStreamListener;
+import me.snowdrop.stream.binder.artemis.sources.StringStreamSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static me.snowdrop.stream.binder.artemis.listeners.FailingOnceStreamListener.FAILING_PAYLOAD;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = StreamApplication.class,
+        properties = {
+                "spring.cloud.stream.bindings.output.destination=transaction-batch-destination",
+                "spring.cloud.stream.bindings.input.destination=transaction-batch-destination",
+                "spring.cloud.stream.bindings.input.group=transaction-batch-group",
+                "spring.cloud.stream.bindings.input.consumer.max-attempts=1",
+                "spring.cloud.stream.artemis.bindings.input.consumer.transaction-batch-size=5",
+                "spring.cloud.stream.artemis.bindings.input.consumer.transaction-batch-timeout=60000"
+        }
+)
+@Import({ StringStreamSource.class, FailingOnceStreamListener.class })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+public class TransactionBatchIT {
+
+    @Autowired
+    private StringStreamSource source;
+
+    @Autowired
+    private FailingOnceStreamListener listener;
+
+    @Test
+    public void shouldRedeliverWholeBatchAfterFailure() {
+        source.send("first message");
+        source.send("second message");
+        source.send(FAILING_PAYLOAD);
+        source.send("fourth message");
+        source.send("fifth message");
+
+        await().atMost(30, SECONDS)
+                .until(() -> listener.getReceivedMessages().size() >= 8);
+
+        // Messages processed before the failure are rolled back together with the failing one
+        assertThat(listener.getReceivedMessages()).containsExactly("first message", "second message",
+                FAILING_PAYLOAD, "first message", "second message", FAILING_PAYLOAD, "fourth message",
+                "fifth message");
+    }
+
+}
@@ -0,0 +1,37 @@
+package me.snowdrop.stream.binder.artemis.listeners;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.jboss.logging.Logger;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@Configuration
+public class BatchStreamListener {
+
+    private final Logger logger = Logger.getLogger(BatchStreamListener.class);
+
+    private final List<List<String>> batches = new LinkedList<>();
+
+    @Bean
+    public Consumer<List<String>> batchInput() {
+        return batch -> {
+            logger.debug("received: " + batch);
+            synchronized (batches) {
+                batches.add(batch);
+            }
+        };
+    }
+
+    public List<List<String>> getBatches() {
+        synchronized (batches) {
+            return new LinkedList<>(batches);
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package me.snowdrop.stream.binder.artemis.listeners;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jboss.logging.Logger;
+import org.springframework.cloud.stream.annotation.EnableBinding;
+import org.springframework.cloud.stream.annotation.StreamListener;
+import org.springframework.cloud.stream.messaging.Sink;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@EnableBinding(Sink.class)
+public class FailingOnceStreamListener {
+
+    public static final String FAILING_PAYLOAD = "failing message";
+
+    private final Logger logger = Logger.getLogger(FailingOnceStreamListener.class);
+
+    private final List<String> receivedMessages = new LinkedList<>();
+
+    private final AtomicBoolean failed = new AtomicBoolean();
+
+    @StreamListener(Sink.INPUT)
+    public synchronized void streamListener(String payload) {
+        logger.debug("received: " + payload);
+        receivedMessages.add(payload);
+        if (FAILING_PAYLOAD.equals(payload) && failed.compareAndSet(false, true)) {
+            throw new RuntimeException("test");
+        }
+    }
+
+    public synchronized List<String> getReceivedMessages() {
+        return new LinkedList<>(receivedMessages);
+    }
+
+}
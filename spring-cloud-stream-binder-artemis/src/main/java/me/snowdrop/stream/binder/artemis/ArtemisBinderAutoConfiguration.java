@@ -16,18 +16,31 @@
 
 package me.snowdrop.stream.binder.artemis;
 
+import java.util.stream.Collectors;
+
 import javax.jms.ConnectionFactory;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import me.snowdrop.stream.binder.artemis.codec.PayloadCodec;
+import me.snowdrop.stream.binder.artemis.codec.PayloadCodecRegistry;
+import me.snowdrop.stream.binder.artemis.common.CoreSessionFactory;
+import me.snowdrop.stream.binder.artemis.listener.DispatchPool;
 import me.snowdrop.stream.binder.artemis.listener.ListenerContainerFactory;
+import me.snowdrop.stream.binder.artemis.metrics.BinderMetrics;
+import me.snowdrop.stream.binder.artemis.metrics.MicrometerBinderMetrics;
+import me.snowdrop.stream.binder.artemis.metrics.QueueStatisticsCollector;
+import me.snowdrop.stream.binder.artemis.properties.ArtemisBinderConfigurationProperties;
 import me.snowdrop.stream.binder.artemis.properties.ArtemisExtendedBindingProperties;
 import me.snowdrop.stream.binder.artemis.provisioning.ArtemisBrokerManager;
 import me.snowdrop.stream.binder.artemis.provisioning.ArtemisProvisioningProvider;
 import org.apache.activemq.artemis.api.core.client.ServerLocator;
 import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.jms.artemis.ArtemisAutoConfiguration;
 import org.springframework.boot.autoconfigure.jms.artemis.ArtemisProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -43,7 +56,7 @@ import org.springframework.jms.connection.SingleConnectionFactory;
 @AutoConfigureAfter(ArtemisAutoConfiguration.class)
 @ConditionalOnClass(ActiveMQConnectionFactory.class)
 @ConditionalOnBean(ConnectionFactory.class)
-@EnableConfigurationProperties(ArtemisExtendedBindingProperties.class)
+@EnableConfigurationProperties({ ArtemisExtendedBindingProperties.class, ArtemisBinderConfigurationProperties.class })
 public class ArtemisBinderAutoConfiguration {
 
     @Bean
@@ -55,17 +68,50 @@ public class ArtemisBinderAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
     ArtemisMessageChannelBinder artemisMessageChannelBinder(ArtemisProvisioningProvider provisioningProvider,
-            ConnectionFactory connectionFactory, ArtemisExtendedBindingProperties bindingProperties) {
-        return new ArtemisMessageChannelBinder(provisioningProvider, connectionFactory, bindingProperties);
+            ConnectionFactory connectionFactory, CoreSessionFactory coreSessionFactory,
+            ArtemisExtendedBindingProperties bindingProperties, PayloadCodecRegistry payloadCodecRegistry,
+            ObjectProvider<BinderMetrics> binderMetrics,
+            ObjectProvider<QueueStatisticsCollector> queueStatisticsCollector,
+            ObjectProvider<DispatchPool> dispatchPool) {
+        ArtemisMessageChannelBinder binder = new ArtemisMessageChannelBinder(provisioningProvider, connectionFactory,
+                coreSessionFactory, bindingProperties);
+        binder.setPayloadCodecRegistry(payloadCodecRegistry);
+        binder.setBinderMetrics(binderMetrics.getIfAvailable(() -> BinderMetrics.NOOP));
+        binder.setQueueStatisticsCollector(queueStatisticsCollector.getIfAvailable());
+        binder.setDispatchPool(dispatchPool.getIfAvailable());
+        return binder;
     }
 
     @Bean
     @ConditionalOnMissingBean
-    ArtemisBrokerManager artemisBrokerManager(ConnectionFactory connectionFactory, ArtemisProperties properties) {
-        return new ArtemisBrokerManager(getServerLocator(connectionFactory), properties.getUser(),
+    @ConditionalOnProperty("spring.cloud.stream.artemis.binder.dispatch-pool-size")
+    DispatchPool artemisDispatchPool(ArtemisBinderConfigurationProperties properties) {
+        return new DispatchPool(properties.getDispatchPoolSize());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    PayloadCodecRegistry payloadCodecRegistry(ObjectProvider<PayloadCodec> payloadCodecs) {
+        return new PayloadCodecRegistry(payloadCodecs.orderedStream()
+                .collect(Collectors.toList()));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    CoreSessionFactory artemisCoreSessionFactory(ConnectionFactory connectionFactory, ArtemisProperties properties) {
+        return new CoreSessionFactory(getServerLocator(connectionFactory), properties.getUser(),
                 properties.getPassword());
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    ArtemisBrokerManager artemisBrokerManager(ConnectionFactory connectionFactory, ArtemisProperties properties,
+            ArtemisBinderConfigurationProperties binderProperties) {
+        return new ArtemisBrokerManager(getServerLocator(connectionFactory), properties.getUser(),
+                properties.getPassword(), binderProperties.getProvisioningCacheSize(),
+                binderProperties.getProvisioningCacheTtl());
+    }
+
     private ServerLocator getServerLocator(ConnectionFactory connectionFactory) {
         if (connectionFactory instanceof ActiveMQConnectionFactory) {
             return ((ActiveMQConnectionFactory) connectionFactory).getServerLocator();
@@ -78,8 +124,34 @@ public class ArtemisBinderAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean(ProvisioningProvider.class)
-    ArtemisProvisioningProvider provisioningProvider(ArtemisBrokerManager artemisBrokerManager) {
-        return new ArtemisProvisioningProvider(artemisBrokerManager);
+    ArtemisProvisioningProvider provisioningProvider(ArtemisBrokerManager artemisBrokerManager,
+            ArtemisBinderConfigurationProperties properties, ObjectProvider<BinderMetrics> binderMetrics) {
+        ArtemisProvisioningProvider provisioningProvider = new ArtemisProvisioningProvider(artemisBrokerManager);
+        provisioningProvider.setBinderMetrics(binderMetrics.getIfAvailable(() -> BinderMetrics.NOOP));
+        provisioningProvider.setProvisioningConcurrency(properties.getProvisioningConcurrency());
+        return provisioningProvider;
+    }
+
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    static class ArtemisBinderMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnBean(MeterRegistry.class)
+        @ConditionalOnMissingBean
+        BinderMetrics artemisBinderMetrics(MeterRegistry meterRegistry) {
+            return new MicrometerBinderMetrics(meterRegistry);
+        }
+
+        @Bean
+        @ConditionalOnBean(MeterRegistry.class)
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty("spring.cloud.stream.artemis.binder.queue-metrics-enabled")
+        QueueStatisticsCollector artemisQueueStatisticsCollector(CoreSessionFactory coreSessionFactory,
+                ArtemisBinderConfigurationProperties properties) {
+            return new QueueStatisticsCollector(coreSessionFactory, properties.getQueueMetricsInterval());
+        }
+
     }
 
 }
@@ -16,14 +16,50 @@
 
 package me.snowdrop.stream.binder.artemis;
 
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
 import javax.jms.ConnectionFactory;
 
+import me.snowdrop.stream.binder.artemis.codec.PayloadCodecMessageConverter;
+import me.snowdrop.stream.binder.artemis.codec.PayloadCodecRegistry;
+import me.snowdrop.stream.binder.artemis.common.ConnectionFactoryUtils;
+import me.snowdrop.stream.binder.artemis.common.CoreSessionFactory;
+import me.snowdrop.stream.binder.artemis.common.LargeMessageConverter;
+import me.snowdrop.stream.binder.artemis.common.NamingUtils;
+import me.snowdrop.stream.binder.artemis.listener.AdaptiveConsumerWindow;
+import me.snowdrop.stream.binder.artemis.listener.AdaptiveConsumerWindowConnectionFactory;
+import me.snowdrop.stream.binder.artemis.listener.ArtemisJmsHeaderMapper;
+import me.snowdrop.stream.binder.artemis.listener.ArtemisMessageSource;
+import me.snowdrop.stream.binder.artemis.listener.BatchMessageDrivenEndpoint;
+import me.snowdrop.stream.binder.artemis.listener.BatchReceivingMessageListenerContainer;
+import me.snowdrop.stream.binder.artemis.listener.DispatchPool;
 import me.snowdrop.stream.binder.artemis.listener.ListenerContainerFactory;
+import me.snowdrop.stream.binder.artemis.listener.MeteredChannelPublishingJmsMessageListener;
+import me.snowdrop.stream.binder.artemis.listener.RedeliveringChannelPublishingJmsMessageListener;
 import me.snowdrop.stream.binder.artemis.listener.RetryableChannelPublishingJmsMessageListener;
+import me.snowdrop.stream.binder.artemis.metrics.BinderMetrics;
+import me.snowdrop.stream.binder.artemis.metrics.ConsumerMetrics;
+import me.snowdrop.stream.binder.artemis.metrics.ProducerMetrics;
+import me.snowdrop.stream.binder.artemis.metrics.QueueStatistics;
+import me.snowdrop.stream.binder.artemis.metrics.QueueStatisticsCollector;
+import me.snowdrop.stream.binder.artemis.producer.ArtemisCoreMessageHandler;
+import me.snowdrop.stream.binder.artemis.producer.ArtemisJmsSendingMessageHandler;
 import me.snowdrop.stream.binder.artemis.properties.ArtemisConsumerProperties;
+import me.snowdrop.stream.binder.artemis.properties.ArtemisConsumerProperties.ContainerType;
+import me.snowdrop.stream.binder.artemis.properties.ArtemisConsumerProperties.RetryStrategy;
 import me.snowdrop.stream.binder.artemis.properties.ArtemisExtendedBindingProperties;
 import me.snowdrop.stream.binder.artemis.properties.ArtemisProducerProperties;
+import me.snowdrop.stream.binder.artemis.provisioning.ArtemisConsumerDestination;
+import me.snowdrop.stream.binder.artemis.provisioning.ArtemisProducerDestination;
 import me.snowdrop.stream.binder.artemis.provisioning.ArtemisProvisioningProvider;
+import org.apache.activemq.artemis.api.core.client.ActiveMQClient;
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.apache.activemq.artemis.jms.client.ActiveMQDestination;
+import org.apache.activemq.artemis.jms.client.ActiveMQTopic;
 import org.springframework.cloud.stream.binder.AbstractMessageChannelBinder;
 import org.springframework.cloud.stream.binder.BinderSpecificPropertiesProvider;
 import org.springframework.cloud.stream.binder.ExtendedConsumerProperties;
@@ -32,17 +68,16 @@ import org.springframework.cloud.stream.binder.ExtendedPropertiesBinder;
 import org.springframework.cloud.stream.provisioning.ConsumerDestination;
 import org.springframework.cloud.stream.provisioning.ProducerDestination;
 import org.springframework.integration.core.MessageProducer;
+import org.springframework.integration.expression.FunctionExpression;
 import org.springframework.integration.jms.JmsMessageDrivenEndpoint;
-import org.springframework.integration.jms.JmsSendingMessageHandler;
-import org.springframework.integration.jms.dsl.Jms;
+import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.listener.AbstractMessageListenerContainer;
+import org.springframework.jms.support.converter.MessageConverter;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
-import org.springframework.retry.support.RetryTemplate;
 import org.springframework.util.StringUtils;
 
-import static me.snowdrop.stream.binder.artemis.common.NamingUtils.getAnonymousGroupName;
 import static me.snowdrop.stream.binder.artemis.common.NamingUtils.getQueueName;
 import static org.springframework.cloud.stream.binder.BinderHeaders.PARTITION_HEADER;
 
@@ -58,24 +93,92 @@ public class ArtemisMessageChannelBinder extends
 
     private final ConnectionFactory connectionFactory;
 
+    private final CoreSessionFactory coreSessionFactory;
+
     private final ArtemisExtendedBindingProperties bindingProperties;
 
+    private PayloadCodecRegistry payloadCodecRegistry = new PayloadCodecRegistry();
+
+    private BinderMetrics binderMetrics = BinderMetrics.NOOP;
+
+    private QueueStatisticsCollector queueStatisticsCollector;
+
+    private DispatchPool dispatchPool;
+
+    private final Map<ProducerDestination, ProducerMetrics> producerBindingMetrics =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    // Keyed by destination instances, because anonymous group names are not known when unbinding
+    private final Map<ConsumerDestination, ConsumerMetrics> consumerBindingMetrics =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private final Map<ConsumerDestination, QueueStatistics> queueStatistics =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private final Map<ConsumerDestination, ActiveMQConnectionFactory> consumerConnectionFactories =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
     public ArtemisMessageChannelBinder(ArtemisProvisioningProvider provisioningProvider,
             ConnectionFactory connectionFactory, ArtemisExtendedBindingProperties bindingProperties) {
+        this(provisioningProvider, connectionFactory, null, bindingProperties);
+    }
+
+    public ArtemisMessageChannelBinder(ArtemisProvisioningProvider provisioningProvider,
+            ConnectionFactory connectionFactory, CoreSessionFactory coreSessionFactory,
+            ArtemisExtendedBindingProperties bindingProperties) {
         super(DEFAULT_HEADERS, provisioningProvider);
         this.connectionFactory = connectionFactory;
+        this.coreSessionFactory = coreSessionFactory;
         this.bindingProperties = bindingProperties;
     }
 
+    public void setPayloadCodecRegistry(PayloadCodecRegistry payloadCodecRegistry) {
+        this.payloadCodecRegistry = payloadCodecRegistry;
+    }
+
+    public void setBinderMetrics(BinderMetrics binderMetrics) {
+        this.binderMetrics = binderMetrics;
+    }
+
+    /**
+     * @param queueStatisticsCollector Collector of consumer binding queue statistics exposed with binder metrics, or
+     *                                 null if they should not be collected.
+     */
+    public void setQueueStatisticsCollector(QueueStatisticsCollector queueStatisticsCollector) {
+        this.queueStatisticsCollector = queueStatisticsCollector;
+    }
+
+    /**
+     * @param dispatchPool Pool shared by event driven consumer bindings without a pool of their own, or null if they
+     *                     should use the pool of the binder connection factory.
+     */
+    public void setDispatchPool(DispatchPool dispatchPool) {
+        this.dispatchPool = dispatchPool;
+    }
+
     @Override
     protected MessageHandler createProducerMessageHandler(ProducerDestination destination,
             ExtendedProducerProperties<ArtemisProducerProperties> properties, MessageChannel errorChannel) {
         logger.debug("Creating producer message handler for '" + destination + "'");
 
-        JmsSendingMessageHandler handler = Jms.outboundAdapter(connectionFactory)
-                .destination(message -> getMessageDestination(message, destination))
-                .configureJmsTemplate(templateSpec -> templateSpec.pubSubDomain(true))
-                .get();
+        ArtemisProducerProperties artemisProperties = properties.getExtension();
+        if (artemisProperties.isNativeProducer() || artemisProperties.isAsyncSend()
+                || artemisProperties.getTransactionBatchSize() > 1) {
+            return createNativeProducerMessageHandler(destination, artemisProperties, errorChannel);
+        }
+
+        PayloadCodecMessageConverter messageConverter = new PayloadCodecMessageConverter(payloadCodecRegistry);
+        if (StringUtils.hasText(artemisProperties.getCompression())) {
+            messageConverter.setCompression(payloadCodecRegistry.getCodec(artemisProperties.getCompression()),
+                    artemisProperties.getCompressionThreshold());
+        }
+        JmsTemplate jmsTemplate = new JmsTemplate(connectionFactory);
+        jmsTemplate.setPubSubDomain(true);
+        jmsTemplate.setMessageConverter(new LargeMessageConverter(messageConverter));
+        ArtemisJmsSendingMessageHandler handler = new ArtemisJmsSendingMessageHandler(jmsTemplate);
+        handler.setDestinationExpression(new FunctionExpression<Message<?>>(
+                message -> getMessageDestination(message, destination)));
+        handler.setProducerMetrics(getProducerMetrics(destination));
         handler.setApplicationContext(getApplicationContext());
         handler.setBeanFactory(getBeanFactory());
 
@@ -87,27 +190,96 @@ public class ArtemisMessageChannelBinder extends
             ExtendedConsumerProperties<ArtemisConsumerProperties> properties) {
         logger.debug("Creating consumer endpoint for '{" + destination + "}' with a group '{" + group + "}'");
 
-        if (!StringUtils.hasText(group)) {
-            group = getAnonymousGroupName();
+        String metricsGroup = StringUtils.hasText(group) ? group : null;
+        Integer metricsPartition = properties.isPartitioned() ? properties.getInstanceIndex() : null;
+        ConsumerMetrics consumerMetrics = getConsumerMetrics(destination, metricsGroup, metricsPartition);
+        // Nobody reads messages of an anonymous group once its consumers are gone
+        boolean durable = StringUtils.hasText(group);
+        if (!durable) {
+            group = getAnonymousGroupName(destination);
         }
 
         String subscriptionName = getQueueName(destination.getName(), group);
-        ListenerContainerFactory listenerContainerFactory = new ListenerContainerFactory(connectionFactory);
+        QueueStatistics statistics = null;
+        if (queueStatisticsCollector != null) {
+            String queueName = ActiveMQDestination.createQueueNameForSubscription(durable, null, subscriptionName)
+                    .toString();
+            statistics = queueStatisticsCollector.register(properties.getExtension().getManagementAddress(),
+                    queueName);
+            binderMetrics.registerQueueStatistics(destination.getName(), metricsGroup, metricsPartition, statistics);
+            queueStatistics.put(destination, statistics);
+        }
+        ConnectionFactory consumerConnectionFactory =
+                getConsumerConnectionFactory(destination, properties.getExtension());
+        if (properties.getExtension().isAdaptiveConsumerWindow()) {
+            ActiveMQConnectionFactory bindingConnectionFactory = (ActiveMQConnectionFactory) consumerConnectionFactory;
+            AdaptiveConsumerWindow window = createAdaptiveConsumerWindow(bindingConnectionFactory, consumerMetrics,
+                    statistics);
+            consumerMetrics = window;
+            consumerConnectionFactory = new AdaptiveConsumerWindowConnectionFactory(bindingConnectionFactory, window);
+        }
+        ListenerContainerFactory listenerContainerFactory = new ListenerContainerFactory(consumerConnectionFactory);
         AbstractMessageListenerContainer listenerContainer = listenerContainerFactory
-                .getListenerContainer(destination.getName(), subscriptionName);
+                .getListenerContainer(destination.getName(), subscriptionName, durable, properties);
 
-        if (properties.getMaxAttempts() == 1) {
-            return Jms.messageDrivenChannelAdapter(listenerContainer).get();
+        if (properties.isBatchMode()) {
+            return createBatchConsumerEndpoint(destination, group, properties,
+                    (BatchReceivingMessageListenerContainer) listenerContainer, consumerMetrics);
         }
 
-        RetryTemplate retryTemplate = buildRetryTemplate(properties);
-        ErrorInfrastructure errorInfrastructure = registerErrorInfrastructure(destination, group, properties);
-        RetryableChannelPublishingJmsMessageListener listener =
-                new RetryableChannelPublishingJmsMessageListener(retryTemplate, errorInfrastructure.getRecoverer());
+        MeteredChannelPublishingJmsMessageListener listener;
+        if (properties.getMaxAttempts() == 1) {
+            listener = new MeteredChannelPublishingJmsMessageListener();
+        } else {
+            ErrorInfrastructure errorInfrastructure = registerErrorInfrastructure(destination, group, properties);
+            if (properties.getExtension().getRetryStrategy() == RetryStrategy.REDELIVERY) {
+                validateRedelivery(destination, properties);
+                listener = new RedeliveringChannelPublishingJmsMessageListener(properties.getMaxAttempts(),
+                        errorInfrastructure.getRecoverer());
+                // Failed attempts are expected to be redelivered and don't need a warning each
+                listenerContainer.setErrorHandler(e -> logger.debug("Delivery failed and will be redelivered", e));
+            } else {
+                listener = new RetryableChannelPublishingJmsMessageListener(buildRetryTemplate(properties),
+                        errorInfrastructure.getRecoverer());
+            }
+        }
         listener.setExpectReply(false);
+        listener.setMessageConverter(createConsumerMessageConverter(properties.getExtension()));
+        listener.setHeaderMapper(new ArtemisJmsHeaderMapper());
+        listener.setConsumerMetrics(consumerMetrics);
         return new JmsMessageDrivenEndpoint(listenerContainer, listener);
     }
 
+    @Override
+    protected PolledConsumerResources createPolledConsumerResources(String name, String group,
+            ConsumerDestination destination, ExtendedConsumerProperties<ArtemisConsumerProperties> properties) {
+        logger.debug("Creating polled consumer resources for '{" + destination + "}' with a group '{" + group + "}'");
+
+        String metricsGroup = StringUtils.hasText(group) ? group : null;
+        Integer metricsPartition = properties.isPartitioned() ? properties.getInstanceIndex() : null;
+        boolean durable = StringUtils.hasText(group);
+        String subscriptionGroup = durable ? group : getAnonymousGroupName(destination);
+
+        if (properties.getExtension().isAdaptiveConsumerWindow()) {
+            // Source keeps its session until it fails, so an adapted window would hardly ever be applied
+            throw new IllegalArgumentException("Pollable consumers don't support an adaptive consumer window");
+        }
+        ConsumerMetrics consumerMetrics = getConsumerMetrics(destination, metricsGroup, metricsPartition);
+        ConnectionFactory consumerConnectionFactory =
+                getConsumerConnectionFactory(destination, properties.getExtension());
+
+        ArtemisMessageSource source = new ArtemisMessageSource(consumerConnectionFactory, destination.getName(),
+                getQueueName(destination.getName(), subscriptionGroup), durable);
+        source.setMessageSelector(properties.getExtension().getQueueFilter());
+        source.setMessageConverter(createConsumerMessageConverter(properties.getExtension()));
+        source.setHeaderMapper(new ArtemisJmsHeaderMapper());
+        source.setConsumerMetrics(consumerMetrics);
+        source.setBeanFactory(getBeanFactory());
+
+        return new PolledConsumerResources(source,
+                registerErrorInfrastructure(destination, subscriptionGroup, properties, true));
+    }
+
     @Override
     public ArtemisConsumerProperties getExtendedConsumerProperties(String channelName) {
         return bindingProperties.getExtendedConsumerProperties(channelName);
@@ -128,36 +300,227 @@ public class ArtemisMessageChannelBinder extends
         return this.bindingProperties.getExtendedPropertiesEntryClass();
     }
 
+    @Override
+    protected void afterUnbindProducer(ProducerDestination destination,
+            ExtendedProducerProperties<ArtemisProducerProperties> properties) {
+        ProducerMetrics metrics = producerBindingMetrics.remove(destination);
+        if (metrics != null) {
+            binderMetrics.removeProducerMetrics(metrics);
+        }
+    }
+
+    @Override
+    protected void afterUnbindConsumer(ConsumerDestination destination, String group,
+            ExtendedConsumerProperties<ArtemisConsumerProperties> properties) {
+        ConsumerMetrics metrics = consumerBindingMetrics.remove(destination);
+        if (metrics != null) {
+            binderMetrics.removeConsumerMetrics(metrics);
+        }
+        QueueStatistics statistics = queueStatistics.remove(destination);
+        if (statistics != null) {
+            binderMetrics.removeQueueStatistics(statistics);
+            queueStatisticsCollector.unregister(statistics);
+        }
+        // Consumers are already stopped, so their connection can be closed
+        ActiveMQConnectionFactory consumerConnectionFactory = consumerConnectionFactories.remove(destination);
+        if (consumerConnectionFactory != null) {
+            consumerConnectionFactory.close();
+        }
+    }
+
     @Override
     protected String errorsBaseName(ConsumerDestination destination, String group,
             ExtendedConsumerProperties<ArtemisConsumerProperties> properties) {
-        if (group == null) {
+        if (!StringUtils.hasText(group)) {
             /*
-            This is a workaround to not get NPE when calling getQueueName.
-            Such situation occurs with anonymous groups during the destroyErrorInfrastructure execution.
-            Differently from registerErrorInfrastructure, destroyErrorInfrastructure doesn't know generated group name and uses null instead.
-            However, this means that the actual channel, recoverer, message handler and bridge handler beans aren't destroyed.
+            Differently from registerErrorInfrastructure, destroyErrorInfrastructure doesn't know generated group name
+            and uses null instead. Generated name is kept by the destination, so that error infrastructure beans of an
+            anonymous group are destroyed when unbinding.
             See https://github.com/snowdrop/spring-cloud-stream-binder-artemis/issues/22
              */
-            return destination.getName() + ".errors";
+            if (!(destination instanceof ArtemisConsumerDestination)) {
+                return destination.getName() + ".errors";
+            }
+            group = getAnonymousGroupName(destination);
         }
         return getQueueName(destination.getName(), group) + ".errors";
     }
 
-    private String getMessageDestination(Message<?> message, ProducerDestination destination) {
+    private ProducerMetrics getProducerMetrics(ProducerDestination destination) {
+        ProducerMetrics metrics = binderMetrics.getProducerMetrics(destination.getName());
+        producerBindingMetrics.put(destination, metrics);
+        return metrics;
+    }
+
+    private ConsumerMetrics getConsumerMetrics(ConsumerDestination destination, String group, Integer partition) {
+        ConsumerMetrics metrics = binderMetrics.getConsumerMetrics(destination.getName(), group, partition);
+        consumerBindingMetrics.put(destination, metrics);
+        return metrics;
+    }
+
+    private String getAnonymousGroupName(ConsumerDestination destination) {
+        if (destination instanceof ArtemisConsumerDestination) {
+            return ((ArtemisConsumerDestination) destination).getAnonymousGroupName();
+        }
+        // Destination of a custom provisioning provider
+        return NamingUtils.getAnonymousGroupName();
+    }
+
+    /**
+     * Consumers of a binding need a connection factory of their own, if any of the binding properties have to be
+     * applied to its server locator. Otherwise the binder connection factory is used.
+     */
+    private ConnectionFactory getConsumerConnectionFactory(ConsumerDestination destination,
+            ArtemisConsumerProperties properties) {
+        boolean eventDriven = properties.getContainerType() == ContainerType.EVENT_DRIVEN;
+        boolean ownDispatchPool = eventDriven && properties.getDispatchPoolSize() != null;
+        boolean sharedDispatchPool = eventDriven && !ownDispatchPool && dispatchPool != null;
+        if (properties.getConsumerWindowSize() == null && !properties.isAdaptiveConsumerWindow() && !ownDispatchPool
+                && !sharedDispatchPool) {
+            return connectionFactory;
+        }
+        ActiveMQConnectionFactory consumerConnectionFactory =
+                ConnectionFactoryUtils.copyConnectionFactory(connectionFactory);
+        if (properties.getConsumerWindowSize() != null) {
+            consumerConnectionFactory.setConsumerWindowSize(properties.getConsumerWindowSize());
+        }
+        if (ownDispatchPool) {
+            consumerConnectionFactory.setUseGlobalPools(false);
+            consumerConnectionFactory.setThreadPoolMaxSize(properties.getDispatchPoolSize());
+        } else if (sharedDispatchPool) {
+            Executor executor = dispatchPool.createExecutor(properties.getDispatchWeight(),
+                    properties.getDispatchMinThreads(), properties.getDispatchMaxThreads());
+            // Only the few scheduled tasks, e.g. connection checks, are left on the global pool
+            consumerConnectionFactory.getServerLocator()
+                    .setThreadPools(executor, ActiveMQClient.getGlobalScheduledThreadPool());
+        }
+        consumerConnectionFactories.put(destination, consumerConnectionFactory);
+        return consumerConnectionFactory;
+    }
+
+    private AdaptiveConsumerWindow createAdaptiveConsumerWindow(ActiveMQConnectionFactory consumerConnectionFactory,
+            ConsumerMetrics consumerMetrics, QueueStatistics statistics) {
+        // Configured size is the upper bound of an adaptive window, unless it is unbounded
+        int maxSize = consumerConnectionFactory.getConsumerWindowSize() >= 0
+                ? consumerConnectionFactory.getConsumerWindowSize()
+                : ActiveMQClient.DEFAULT_CONSUMER_WINDOW_SIZE;
+        AdaptiveConsumerWindow window = new AdaptiveConsumerWindow(maxSize, consumerMetrics);
+        window.setQueueStatistics(statistics);
+        return window;
+    }
+
+    private MessageHandler createNativeProducerMessageHandler(ProducerDestination destination,
+            ArtemisProducerProperties properties, MessageChannel errorChannel) {
+        if (coreSessionFactory == null) {
+            throw new IllegalStateException("Native producer requires a core session factory");
+        }
+        if (properties.isAsyncSend() && properties.getTransactionBatchSize() > 1) {
+            throw new IllegalArgumentException("Asynchronous sends cannot be combined with transactional batching");
+        }
+
+        ArtemisCoreMessageHandler handler = new ArtemisCoreMessageHandler(coreSessionFactory,
+                message -> getMessageDestination(message, destination).getAddress());
+        handler.setSendFailureChannel(errorChannel);
+        handler.setProducerMetrics(getProducerMetrics(destination));
+        if (StringUtils.hasText(properties.getCompression())) {
+            handler.setCompression(payloadCodecRegistry.getCodec(properties.getCompression()),
+                    properties.getCompressionThreshold());
+        }
+        if (properties.getTransactionBatchSize() > 1) {
+            handler.setTransactionBatch(properties.getTransactionBatchSize(), properties.getTransactionBatchMaxBytes(),
+                    properties.getTransactionBatchTimeout(), properties.isAdaptiveTransactionBatch());
+        }
+        if (properties.isAsyncSend()) {
+            handler.setAsyncSend(true);
+            handler.setMaxInFlight(properties.getMaxInFlight());
+            if (StringUtils.hasText(properties.getConfirmAckChannel())) {
+                handler.setConfirmAckChannelName(properties.getConfirmAckChannel());
+            }
+        }
+        handler.setApplicationContext(getApplicationContext());
+        handler.setBeanFactory(getBeanFactory());
+
+        return handler;
+    }
+
+    private void validateRedelivery(ConsumerDestination destination,
+            ExtendedConsumerProperties<ArtemisConsumerProperties> properties) {
+        ArtemisConsumerProperties artemisProperties = properties.getExtension();
+        // Rollback of a batch would count a delivery attempt of every message in it, not only of the failed one
+        if (artemisProperties.getTransactionBatchSize() > 1) {
+            throw new IllegalArgumentException("Redelivery retry strategy cannot be combined with batched commits");
+        }
+        if (!artemisProperties.isModifyAddressSettings()) {
+            logger.warn("Redelivery retry strategy of '" + destination.getName() + "' relies on the redelivery "
+                    + "delay of the broker address settings. Failed messages are redelivered immediately unless "
+                    + "the broker configures a delay");
+            return;
+        }
+        // Failed message would be redelivered immediately and keep the consumer busy until it runs out of attempts
+        if (artemisProperties.getBrokerRedeliveryDelay() <= 0) {
+            throw new IllegalArgumentException("Redelivery retry strategy requires a positive broker redelivery delay");
+        }
+        int brokerMaxDeliveryAttempts = artemisProperties.getBrokerMaxDeliveryAttempts();
+        // Broker would send the message to a dead letter address before the last attempt could be recovered
+        if (brokerMaxDeliveryAttempts > 0 && brokerMaxDeliveryAttempts < properties.getMaxAttempts()) {
+            throw new IllegalArgumentException(String.format(
+                    "Broker max delivery attempts (%d) cannot be lower than consumer max attempts (%d)",
+                    brokerMaxDeliveryAttempts, properties.getMaxAttempts()));
+        }
+    }
+
+    private MessageConverter createConsumerMessageConverter(ArtemisConsumerProperties properties) {
+        LargeMessageConverter messageConverter =
+                new LargeMessageConverter(new PayloadCodecMessageConverter(payloadCodecRegistry));
+        messageConverter.setStreamPayload(properties.isStreamPayload());
+        if (StringUtils.hasText(properties.getLargeMessageDirectory())) {
+            messageConverter.setDirectory(Paths.get(properties.getLargeMessageDirectory()));
+        }
+
+        return messageConverter;
+    }
+
+    private MessageProducer createBatchConsumerEndpoint(ConsumerDestination destination, String group,
+            ExtendedConsumerProperties<ArtemisConsumerProperties> properties,
+            BatchReceivingMessageListenerContainer listenerContainer, ConsumerMetrics consumerMetrics) {
+        BatchMessageDrivenEndpoint endpoint = new BatchMessageDrivenEndpoint(listenerContainer);
+        endpoint.setMessageConverter(createConsumerMessageConverter(properties.getExtension()));
+        endpoint.setHeaderMapper(new ArtemisJmsHeaderMapper());
+        endpoint.setConsumerMetrics(consumerMetrics);
+
+        if (properties.getMaxAttempts() > 1) {
+            ErrorInfrastructure errorInfrastructure = registerErrorInfrastructure(destination, group, properties);
+            endpoint.setRetryTemplate(buildRetryTemplate(properties));
+            endpoint.setRecoveryCallback(errorInfrastructure.getRecoverer());
+        }
+
+        return endpoint;
+    }
+
+    private ActiveMQTopic getMessageDestination(Message<?> message, ProducerDestination destination) {
         Object partition = message.getHeaders()
                 .get(PARTITION_HEADER);
 
         if (partition == null) {
-            return destination.getName();
+            return destination instanceof ArtemisProducerDestination
+                    ? ((ArtemisProducerDestination) destination).getTopic()
+                    : new ActiveMQTopic(destination.getName());
         }
         if (partition instanceof Integer) {
-            return destination.getNameForPartition((Integer) partition);
+            return getPartitionTopic(destination, (Integer) partition);
         }
         if (partition instanceof String) {
-            return destination.getNameForPartition(Integer.parseInt((String) partition));
+            return getPartitionTopic(destination, Integer.parseInt((String) partition));
         }
         throw new IllegalArgumentException(
                 String.format("The provided partition '%s' is not a valid format", partition));
     }
+
+    private ActiveMQTopic getPartitionTopic(ProducerDestination destination, int partition) {
+        // Destinations of other provisioning providers don't have their topics resolved upfront
+        if (destination instanceof ArtemisProducerDestination) {
+            return ((ArtemisProducerDestination) destination).getPartitionTopic(partition);
+        }
+        return new ActiveMQTopic(destination.getNameForPartition(partition));
+    }
 }
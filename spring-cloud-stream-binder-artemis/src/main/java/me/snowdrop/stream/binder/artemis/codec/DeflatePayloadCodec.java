@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.springframework.util.StreamUtils;
+
+/**
+ * Payload codec using JDK deflate implementation.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class DeflatePayloadCodec implements PayloadCodec {
+
+    public static final String NAME = "deflate";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(byte[] payload) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(payload.length / 2 + 16);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(output)) {
+            deflater.write(payload);
+        }
+        return output.toByteArray();
+    }
+
+    @Override
+    public byte[] decode(byte[] payload) throws IOException {
+        try (InflaterInputStream inflater = new InflaterInputStream(new ByteArrayInputStream(payload))) {
+            return StreamUtils.copyToByteArray(inflater);
+        }
+    }
+
+}
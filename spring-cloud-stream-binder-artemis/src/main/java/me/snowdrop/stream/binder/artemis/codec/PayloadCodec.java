@@ -0,0 +1,38 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.codec;
+
+import java.io.IOException;
+
+/**
+ * Codec used to compress message payloads. Implementations registered as beans are picked up by the binder and can be
+ * selected per producer binding by their name.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public interface PayloadCodec {
+
+    /**
+     * @return unique name of the codec, sent with each compressed message.
+     */
+    String getName();
+
+    byte[] encode(byte[] payload) throws IOException;
+
+    byte[] decode(byte[] payload) throws IOException;
+
+}
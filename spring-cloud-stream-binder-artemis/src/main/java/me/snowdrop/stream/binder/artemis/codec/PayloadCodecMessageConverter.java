@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.codec;
+
+import java.io.IOException;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.jms.support.converter.SimpleMessageConverter;
+
+import static me.snowdrop.stream.binder.artemis.common.ArtemisHeaders.COMPRESSION;
+
+/**
+ * JMS message converter compressing outgoing {@code byte[]} payloads above a threshold and decompressing incoming
+ * payloads marked with a {@link me.snowdrop.stream.binder.artemis.common.ArtemisHeaders#COMPRESSION} property.
+ * Everything else is delegated to a {@link SimpleMessageConverter}.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class PayloadCodecMessageConverter implements MessageConverter {
+
+    private final MessageConverter delegate = new SimpleMessageConverter();
+
+    private final PayloadCodecRegistry codecRegistry;
+
+    private PayloadCodec compressionCodec;
+
+    private int compressionThreshold;
+
+    public PayloadCodecMessageConverter(PayloadCodecRegistry codecRegistry) {
+        this.codecRegistry = codecRegistry;
+    }
+
+    /**
+     * Enable compression of outgoing messages.
+     *
+     * @param codec     Codec to compress payloads with.
+     * @param threshold Minimum payload size (in bytes) to be compressed.
+     */
+    public void setCompression(PayloadCodec codec, int threshold) {
+        this.compressionCodec = codec;
+        this.compressionThreshold = threshold;
+    }
+
+    @Override
+    public Message toMessage(Object object, Session session) throws JMSException {
+        if (compressionCodec == null || !(object instanceof byte[]) || ((byte[]) object).length < compressionThreshold) {
+            return delegate.toMessage(object, session);
+        }
+
+        BytesMessage message = session.createBytesMessage();
+        message.writeBytes(encode((byte[]) object));
+        message.setStringProperty(COMPRESSION, compressionCodec.getName());
+
+        return message;
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws JMSException {
+        String codecName = message.getStringProperty(COMPRESSION);
+        if (codecName == null || !(message instanceof BytesMessage)) {
+            return delegate.fromMessage(message);
+        }
+
+        BytesMessage bytesMessage = (BytesMessage) message;
+        byte[] payload = new byte[(int) bytesMessage.getBodyLength()];
+        bytesMessage.readBytes(payload);
+
+        return decode(codecName, payload);
+    }
+
+    private byte[] encode(byte[] payload) {
+        try {
+            return compressionCodec.encode(payload);
+        } catch (IOException e) {
+            throw new MessageConversionException(
+                    String.format("Failed to compress payload with '%s' codec", compressionCodec.getName()), e);
+        }
+    }
+
+    private byte[] decode(String codecName, byte[] payload) {
+        try {
+            return codecRegistry.getCodec(codecName)
+                    .decode(payload);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new MessageConversionException(
+                    String.format("Failed to decompress payload with '%s' codec", codecName), e);
+        }
+    }
+
+}
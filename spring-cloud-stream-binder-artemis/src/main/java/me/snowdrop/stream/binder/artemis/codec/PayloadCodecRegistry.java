@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.codec;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of payload codecs available to the binder. Deflate codec is always available unless it is replaced by
+ * another codec with the same name.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class PayloadCodecRegistry {
+
+    private final Map<String, PayloadCodec> codecs = new HashMap<>();
+
+    public PayloadCodecRegistry() {
+        this(Collections.emptyList());
+    }
+
+    public PayloadCodecRegistry(Collection<? extends PayloadCodec> codecs) {
+        this.codecs.put(DeflatePayloadCodec.NAME, new DeflatePayloadCodec());
+        codecs.forEach(codec -> this.codecs.put(codec.getName(), codec));
+    }
+
+    /**
+     * @param name Name of a codec.
+     * @return codec with the provided name.
+     * @throws IllegalArgumentException if codec with the provided name is not registered.
+     */
+    public PayloadCodec getCodec(String name) {
+        PayloadCodec codec = codecs.get(name);
+        if (codec == null) {
+            throw new IllegalArgumentException(String.format("Unknown payload codec '%s'", name));
+        }
+        return codec;
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2016-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.common;
+
+/**
+ * Message headers used by the Artemis binder.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public final class ArtemisHeaders {
+
+    public static final String PREFIX = "artemis_";
+
+    /**
+     * List of header maps of the individual messages in a batch. Indexes match the payload list indexes.
+     */
+    public static final String BATCH_CONVERTED_HEADERS = PREFIX + "batchConvertedHeaders";
+
+    /**
+     * Name of a codec the message payload was compressed with.
+     */
+    public static final String COMPRESSION = PREFIX + "compression";
+
+    private ArtemisHeaders() {
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.MessageEOFException;
+
+/**
+ * Input stream reading a body of a bytes message on demand, so that large messages don't have to be loaded into
+ * memory as a whole. Stream can only be read while the message is being handled.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+class BytesMessageInputStream extends InputStream {
+
+    private final BytesMessage message;
+
+    BytesMessageInputStream(BytesMessage message) {
+        this.message = message;
+    }
+
+    @Override
+    public int read() throws IOException {
+        try {
+            return message.readUnsignedByte();
+        } catch (MessageEOFException e) {
+            return -1;
+        } catch (JMSException e) {
+            throw new IOException("Failed to read message body", e);
+        }
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        try {
+            if (offset == 0) {
+                return message.readBytes(buffer, length);
+            }
+            byte[] chunk = new byte[length];
+            int read = message.readBytes(chunk, length);
+            if (read > 0) {
+                System.arraycopy(chunk, 0, buffer, offset, read);
+            }
+            return read;
+        } catch (JMSException e) {
+            throw new IOException("Failed to read message body", e);
+        }
+    }
+
+}
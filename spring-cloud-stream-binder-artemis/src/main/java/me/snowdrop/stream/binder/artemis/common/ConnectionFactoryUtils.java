@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.common;
+
+import javax.jms.ConnectionFactory;
+
+import org.apache.activemq.artemis.api.core.client.ServerLocator;
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.springframework.jms.connection.SingleConnectionFactory;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public final class ConnectionFactoryUtils {
+
+    /**
+     * Create a new connection factory with the same server locator settings and credentials as the given one.
+     * Artemis applies the server locator settings to every connection, so the copy can be used to change them for a
+     * single binding without affecting others.
+     *
+     * @param connectionFactory Artemis connection factory, possibly wrapped in a {@link SingleConnectionFactory}.
+     * @return new connection factory which has to be closed once it's no longer needed.
+     * @throws IllegalArgumentException if the connection factory is not an Artemis connection factory.
+     */
+    public static ActiveMQConnectionFactory copyConnectionFactory(ConnectionFactory connectionFactory) {
+        ActiveMQConnectionFactory original = getActiveMQConnectionFactory(connectionFactory);
+        ServerLocator locator = CoreSessionFactory.copyServerLocator(original.getServerLocator());
+        ActiveMQConnectionFactory copy = new ActiveMQConnectionFactory(locator);
+        copy.setUser(original.getUser());
+        copy.setPassword(original.getPassword());
+        copy.setDeserializationWhiteList(original.getDeserializationWhiteList());
+        copy.setDeserializationBlackList(original.getDeserializationBlackList());
+        return copy;
+    }
+
+    private static ActiveMQConnectionFactory getActiveMQConnectionFactory(ConnectionFactory connectionFactory) {
+        if (connectionFactory instanceof ActiveMQConnectionFactory) {
+            return (ActiveMQConnectionFactory) connectionFactory;
+        }
+        if (connectionFactory instanceof SingleConnectionFactory) {
+            return getActiveMQConnectionFactory(
+                    ((SingleConnectionFactory) connectionFactory).getTargetConnectionFactory());
+        }
+        throw new IllegalArgumentException(
+                "Binding connection settings are not supported with " + connectionFactory.getClass().getName());
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.common;
+
+import java.util.function.Consumer;
+
+import org.apache.activemq.artemis.api.config.ServerLocatorConfig;
+import org.apache.activemq.artemis.api.core.ActiveMQException;
+import org.apache.activemq.artemis.api.core.client.ActiveMQClient;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
+import org.apache.activemq.artemis.api.core.client.ServerLocator;
+
+/**
+ * Creates Artemis core client sessions using the server locator and credentials of the binder's connection factory.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class CoreSessionFactory {
+
+    private final ServerLocator serverLocator;
+
+    private final String username;
+
+    private final String password;
+
+    private final boolean ownsServerLocator;
+
+    public CoreSessionFactory(ServerLocator serverLocator, String username, String password) {
+        this(serverLocator, username, password, false);
+    }
+
+    private CoreSessionFactory(ServerLocator serverLocator, String username, String password,
+            boolean ownsServerLocator) {
+        this.serverLocator = serverLocator;
+        this.username = username;
+        this.password = password;
+        this.ownsServerLocator = ownsServerLocator;
+    }
+
+    /**
+     * Create a factory using a customized copy of the server locator. Locator settings cannot be changed once the
+     * locator is in use, so this is the way to apply them without affecting other sessions.
+     *
+     * @param customizer Customizer to be applied to the server locator copy.
+     * @return new factory which has to be closed once it's no longer needed.
+     */
+    public CoreSessionFactory copy(Consumer<ServerLocator> customizer) {
+        ServerLocator locator = copyServerLocator(serverLocator);
+        customizer.accept(locator);
+
+        return new CoreSessionFactory(locator, username, password, true);
+    }
+
+    /**
+     * Create a new server locator with the same connectors and settings as the given one.
+     *
+     * @param serverLocator Server locator to copy.
+     * @return new server locator which has to be closed once it's no longer needed.
+     */
+    public static ServerLocator copyServerLocator(ServerLocator serverLocator) {
+        ServerLocator locator = serverLocator.getDiscoveryGroupConfiguration() == null
+                ? ActiveMQClient.createServerLocator(serverLocator.isHA(),
+                serverLocator.getStaticTransportConfigurations())
+                : ActiveMQClient.createServerLocator(serverLocator.isHA(),
+                serverLocator.getDiscoveryGroupConfiguration());
+        locator.setLocatorConfig(new ServerLocatorConfig(serverLocator.getLocatorConfig()));
+        return locator;
+    }
+
+    public ClientSessionFactory createSessionFactory() throws Exception {
+        return serverLocator.createSessionFactory();
+    }
+
+    /**
+     * Create a new session with the configured credentials.
+     *
+     * @param sessionFactory  Session factory to create a session with.
+     * @param autoCommitSends Whether sends should be committed automatically.
+     * @param autoCommitAcks  Whether acknowledgements should be committed automatically.
+     * @return new session which has to be closed by the caller.
+     * @throws ActiveMQException if session creation fails.
+     */
+    public ClientSession createSession(ClientSessionFactory sessionFactory, boolean autoCommitSends,
+            boolean autoCommitAcks) throws ActiveMQException {
+        return sessionFactory.createSession(username, password, false, autoCommitSends, autoCommitAcks,
+                serverLocator.isPreAcknowledge(), serverLocator.getAckBatchSize());
+    }
+
+    /**
+     * Close the server locator if it was created by this factory. Shared server locator is left open.
+     */
+    public void close() {
+        if (ownsServerLocator) {
+            serverLocator.close();
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import static me.snowdrop.stream.binder.artemis.common.ArtemisHeaders.COMPRESSION;
+
+/**
+ * JMS message converter streaming large payloads instead of loading them into memory.
+ * <p>
+ * Outgoing {@link InputStream} payloads are streamed into a bytes message with Artemis large message support. Incoming
+ * bytes messages are delivered either as an {@link InputStream} reading the body on demand, or saved to a file in the
+ * provided directory and delivered as its {@link Path}. Everything else is handled by a delegate converter.
+ * <p>
+ * Saved files are tracked per converting thread, so that whoever converted a message can delete its file once the
+ * message is handled with {@link #deleteSavedFiles()}, or take over the files with {@link #takeSavedFiles()}.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class LargeMessageConverter implements MessageConverter {
+
+    private static final String INPUT_STREAM_PROPERTY = "JMS_AMQ_InputStream";
+
+    private static final String SAVE_STREAM_PROPERTY = "JMS_AMQ_SaveStream";
+
+    private static final String FILE_PREFIX = "artemis-";
+
+    private static final String FILE_SUFFIX = ".msg";
+
+    private final Logger logger = LoggerFactory.getLogger(LargeMessageConverter.class);
+
+    private final ThreadLocal<List<Path>> savedFiles = new ThreadLocal<>();
+
+    private final MessageConverter delegate;
+
+    private boolean streamPayload;
+
+    private Path directory;
+
+    public LargeMessageConverter(MessageConverter delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @param streamPayload Whether incoming bytes messages should be delivered as an {@link InputStream}.
+     */
+    public void setStreamPayload(boolean streamPayload) {
+        this.streamPayload = streamPayload;
+    }
+
+    /**
+     * @param directory Directory to save incoming bytes messages to. Takes precedence over streaming.
+     */
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public Message toMessage(Object object, Session session) throws JMSException {
+        if (!(object instanceof InputStream)) {
+            return delegate.toMessage(object, session);
+        }
+
+        BytesMessage message = session.createBytesMessage();
+        message.setObjectProperty(INPUT_STREAM_PROPERTY, object);
+
+        return message;
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws JMSException {
+        if (!(message instanceof BytesMessage) || (directory == null && !streamPayload)) {
+            return delegate.fromMessage(message);
+        }
+
+        if (message.propertyExists(COMPRESSION)) {
+            // Compressed payloads are small enough to be decoded in memory
+            byte[] payload = (byte[]) delegate.fromMessage(message);
+            return directory == null ? new ByteArrayInputStream(payload) : save(payload);
+        }
+
+        return directory == null ? new BytesMessageInputStream((BytesMessage) message) : save(message);
+    }
+
+    /**
+     * Get files saved by the current thread since the last call. Caller becomes responsible for deleting them.
+     *
+     * @return saved files, or an empty list if none were saved.
+     */
+    public List<Path> takeSavedFiles() {
+        List<Path> files = savedFiles.get();
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        savedFiles.remove();
+        return files;
+    }
+
+    /**
+     * Delete files saved by the current thread since the last call.
+     */
+    public void deleteSavedFiles() {
+        deleteFiles(takeSavedFiles());
+    }
+
+    /**
+     * Delete files taken with {@link #takeSavedFiles()}. Files which were already moved or deleted are skipped.
+     *
+     * @param files Files to delete.
+     */
+    public void deleteFiles(List<Path> files) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Failed to delete saved message body '{}'", file, e);
+            }
+        }
+    }
+
+    private Path save(Message message) throws JMSException {
+        Path file = createFile();
+        try (OutputStream output = Files.newOutputStream(file)) {
+            message.setObjectProperty(SAVE_STREAM_PROPERTY, output);
+        } catch (IOException e) {
+            throw new MessageConversionException(String.format("Failed to save message body to '%s'", file), e);
+        }
+        return file;
+    }
+
+    private Path save(byte[] payload) {
+        Path file = createFile();
+        try {
+            Files.write(file, payload);
+        } catch (IOException e) {
+            throw new MessageConversionException(String.format("Failed to save message body to '%s'", file), e);
+        }
+        return file;
+    }
+
+    private Path createFile() {
+        try {
+            Files.createDirectories(directory);
+            Path file = Files.createTempFile(directory, FILE_PREFIX, FILE_SUFFIX);
+            // Track the file before writing to it, so that a partially saved body is deleted as well
+            if (savedFiles.get() == null) {
+                savedFiles.set(new ArrayList<>(1));
+            }
+            savedFiles.get().add(file);
+            return file;
+        } catch (IOException e) {
+            throw new MessageConversionException(
+                    String.format("Failed to create a file for message body in '%s'", directory), e);
+        }
+    }
+
+}
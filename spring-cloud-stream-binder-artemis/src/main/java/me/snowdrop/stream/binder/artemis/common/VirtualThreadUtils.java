@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.common;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads of JDK 21 and newer, while the binder is built for older JDKs.
+ * <p>
+ * Before JDK 24 a virtual thread waiting in a {@code synchronized} block, like the Artemis client consumer waiting for
+ * a message, pins its carrier thread. Scheduler only adds carriers up to {@code jdk.virtualThreadScheduler.maxPoolSize}
+ * to make up for pinned ones, so the number of virtual threads waiting for messages has to stay below that.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public final class VirtualThreadUtils {
+
+    // JDK version in which waiting in synchronized code stopped pinning carrier threads
+    private static final int UNPINNED_MONITORS_VERSION = 24;
+
+    private static final int DEFAULT_MAX_POOL_SIZE = 256;
+
+    private static final Executor EXECUTOR = createExecutor();
+
+    /**
+     * @return whether virtual threads are supported by the running JDK.
+     */
+    public static boolean isAvailable() {
+        return EXECUTOR != null;
+    }
+
+    /**
+     * @return executor starting a new virtual thread for every task, or null if virtual threads are not available.
+     */
+    public static Executor getExecutor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * Get the number of virtual threads which can wait in {@code synchronized} code at the same time, while leaving
+     * as many carrier threads as the scheduler parallelism to other virtual threads.
+     *
+     * @return maximum number of blocked virtual threads, or {@link Integer#MAX_VALUE} if they don't pin carriers.
+     */
+    public static int getMaxBlockedThreads() {
+        if (getJavaVersion() >= UNPINNED_MONITORS_VERSION) {
+            return Integer.MAX_VALUE;
+        }
+        int parallelism = Integer.getInteger("jdk.virtualThreadScheduler.parallelism",
+                Runtime.getRuntime().availableProcessors());
+        int maxPoolSize = Integer.getInteger("jdk.virtualThreadScheduler.maxPoolSize",
+                Math.max(parallelism, DEFAULT_MAX_POOL_SIZE));
+        return Math.max(1, maxPoolSize - parallelism);
+    }
+
+    private static int getJavaVersion() {
+        String version = System.getProperty("java.specification.version");
+        return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+    }
+
+    private static Executor createExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (Executor) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Missing before JDK 19, and fails on JDK 19 and 20 unless preview features are enabled
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.snowdrop.stream.binder.artemis.listener;
+
+import java.util.concurrent.TimeUnit;
+
+import me.snowdrop.stream.binder.artemis.metrics.ConsumerMetrics;
+import me.snowdrop.stream.binder.artemis.metrics.QueueStatistics;
+
+/**
+ * Consumer metrics which size a consumer window based on the measured processing time and queue depth.
+ * <p>
+ * Window is sized to buffer the messages a consumer can process within {@link #BUFFERED_PROCESSING_TIME}, but not
+ * more than its share of the queue backlog if queue statistics are available. Consumers which need longer than that
+ * for a single message don't buffer any messages. Thus slow consumers don't keep messages which other consumers of
+ * the group could process in the meantime. Window size never exceeds the configured maximum.
+ * <p>
+ * Size is rounded up to a power of two, so that consumers created with similar measurements share a connection of
+ * {@link AdaptiveConsumerWindowConnectionFactory}.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class AdaptiveConsumerWindow implements ConsumerMetrics {
+
+    static final long BUFFERED_PROCESSING_TIME = TimeUnit.SECONDS.toNanos(1);
+
+    // Weight of the latest measurement in the moving averages
+    private static final double SMOOTHING = 0.2;
+
+    private final int maxSize;
+
+    private final ConsumerMetrics delegate;
+
+    private QueueStatistics queueStatistics;
+
+    private double averageNanos = Double.NaN;
+
+    private double averageBytes = Double.NaN;
+
+    private volatile int size;
+
+    /**
+     * @param maxSize  Maximum window size in bytes, which is also used until the first message is processed.
+     * @param delegate Metrics to which all measurements are passed on.
+     */
+    public AdaptiveConsumerWindow(int maxSize, ConsumerMetrics delegate) {
+        this.maxSize = maxSize;
+        this.delegate = delegate;
+        this.size = maxSize;
+    }
+
+    /**
+     * @param queueStatistics Statistics of the binding queue used to limit the window by the backlog, or null if they
+     *                        are not collected.
+     */
+    public void setQueueStatistics(QueueStatistics queueStatistics) {
+        this.queueStatistics = queueStatistics;
+    }
+
+    /**
+     * @return Window size in bytes for consumers created from now on. 0 disables buffering.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public void recordReceive(long timestamp) {
+        delegate.recordReceive(timestamp);
+    }
+
+    @Override
+    public void recordProcessing(long durationNanos, int messages, long bytes) {
+        delegate.recordProcessing(durationNanos, messages, bytes);
+        if (messages < 1) {
+            return;
+        }
+        synchronized (this) {
+            averageNanos = average(averageNanos, (double) durationNanos / messages);
+            averageBytes = average(averageBytes, (double) bytes / messages);
+            size = calculateSize();
+        }
+    }
+
+    @Override
+    public void recordFailure(int messages) {
+        delegate.recordFailure(messages);
+    }
+
+    @Override
+    public void recordRetry() {
+        delegate.recordRetry();
+    }
+
+    @Override
+    public void recordRecovery() {
+        delegate.recordRecovery();
+    }
+
+    private int calculateSize() {
+        double messages = BUFFERED_PROCESSING_TIME / Math.max(averageNanos, 1);
+        if (messages < 1) {
+            return 0;
+        }
+        if (queueStatistics != null) {
+            double share = queueStatistics.getMessageCount() / Math.max(queueStatistics.getConsumerCount(), 1);
+            if (!Double.isNaN(share)) {
+                messages = Math.min(messages, Math.max(share, 1));
+            }
+        }
+        double bytes = Math.ceil(messages * Math.max(averageBytes, 1));
+        if (bytes >= maxSize) {
+            return maxSize;
+        }
+        int roundedBytes = Integer.highestOneBit((int) bytes);
+        return roundedBytes < bytes ? Math.min(maxSize, roundedBytes << 1) : roundedBytes;
+    }
+
+    private double average(double average, double value) {
+        return Double.isNaN(average) ? value : average + SMOOTHING * (value - average);
+    }
+
+}
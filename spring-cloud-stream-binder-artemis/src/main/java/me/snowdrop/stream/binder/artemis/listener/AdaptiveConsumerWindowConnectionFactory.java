@@ -0,0 +1,303 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.listener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.jms.Connection;
+import javax.jms.ConnectionConsumer;
+import javax.jms.ConnectionFactory;
+import javax.jms.ConnectionMetaData;
+import javax.jms.Destination;
+import javax.jms.ExceptionListener;
+import javax.jms.IllegalStateException;
+import javax.jms.JMSContext;
+import javax.jms.JMSException;
+import javax.jms.ServerSessionPool;
+import javax.jms.Session;
+import javax.jms.Topic;
+
+import me.snowdrop.stream.binder.artemis.common.ConnectionFactoryUtils;
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.apache.activemq.artemis.jms.client.ActiveMQSession;
+import org.springframework.jms.support.JmsUtils;
+
+/**
+ * Connection factory of a binding with an {@link AdaptiveConsumerWindow}.
+ * <p>
+ * Artemis reads the consumer window from the server locator when a session is created, and the locator cannot be
+ * changed once it is in use. Connections of this factory therefore create each session on a connection of a fresh
+ * copy of the binding connection factory, which is configured with the window size current at that time. Sessions
+ * created with the same size share a connection, and a connection of an outdated size is closed once all of its
+ * sessions are closed. A listener container keeps a session for as long as its consumer lives, so the adapted size
+ * applies to the consumers it creates afterwards, e.g. the ones added for a backlog and the ones recreated after a
+ * failure.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class AdaptiveConsumerWindowConnectionFactory implements ConnectionFactory {
+
+    private final ActiveMQConnectionFactory connectionFactory;
+
+    private final AdaptiveConsumerWindow window;
+
+    /**
+     * @param connectionFactory Connection factory of the binding, whose copies are used to create the connections.
+     * @param window            Window providing the size of the consumers created from now on.
+     */
+    public AdaptiveConsumerWindowConnectionFactory(ActiveMQConnectionFactory connectionFactory,
+            AdaptiveConsumerWindow window) {
+        this.connectionFactory = connectionFactory;
+        this.window = window;
+    }
+
+    @Override
+    public Connection createConnection() throws JMSException {
+        return new AdaptiveConsumerWindowConnection(null, null);
+    }
+
+    @Override
+    public Connection createConnection(String user, String password) throws JMSException {
+        return new AdaptiveConsumerWindowConnection(user, password);
+    }
+
+    @Override
+    public JMSContext createContext() {
+        throw new UnsupportedOperationException("JMS contexts are not supported with an adaptive consumer window");
+    }
+
+    @Override
+    public JMSContext createContext(String user, String password) {
+        throw new UnsupportedOperationException("JMS contexts are not supported with an adaptive consumer window");
+    }
+
+    @Override
+    public JMSContext createContext(String user, String password, int sessionMode) {
+        throw new UnsupportedOperationException("JMS contexts are not supported with an adaptive consumer window");
+    }
+
+    @Override
+    public JMSContext createContext(int sessionMode) {
+        throw new UnsupportedOperationException("JMS contexts are not supported with an adaptive consumer window");
+    }
+
+    private final class AdaptiveConsumerWindowConnection implements Connection {
+
+        private final String user;
+
+        private final String password;
+
+        private final Map<Integer, WindowConnection> connections = new HashMap<>();
+
+        private ExceptionListener exceptionListener;
+
+        private boolean started;
+
+        private boolean closed;
+
+        private AdaptiveConsumerWindowConnection(String user, String password) throws JMSException {
+            this.user = user;
+            this.password = password;
+            // Fail early if the broker cannot be reached, as the connection of the initial size is needed anyway
+            getConnection();
+        }
+
+        @Override
+        public synchronized Session createSession(boolean transacted, int acknowledgeMode) throws JMSException {
+            WindowConnection connection = getConnection();
+            Session session = connection.connection.createSession(transacted, acknowledgeMode);
+            connection.sessions.add(session);
+            return session;
+        }
+
+        @Override
+        public Session createSession(int sessionMode) throws JMSException {
+            return createSession(sessionMode == Session.SESSION_TRANSACTED, sessionMode);
+        }
+
+        @Override
+        public Session createSession() throws JMSException {
+            return createSession(false, Session.AUTO_ACKNOWLEDGE);
+        }
+
+        @Override
+        public String getClientID() {
+            return null;
+        }
+
+        @Override
+        public void setClientID(String clientID) throws JMSException {
+            // Client ID is unique per connection, while sessions of this connection are spread over several
+            throw new IllegalStateException("Client ID is not supported with an adaptive consumer window");
+        }
+
+        @Override
+        public synchronized ConnectionMetaData getMetaData() throws JMSException {
+            return getConnection().connection.getMetaData();
+        }
+
+        @Override
+        public synchronized ExceptionListener getExceptionListener() {
+            return exceptionListener;
+        }
+
+        @Override
+        public synchronized void setExceptionListener(ExceptionListener exceptionListener) throws JMSException {
+            this.exceptionListener = exceptionListener;
+            for (WindowConnection connection : connections.values()) {
+                connection.connection.setExceptionListener(exceptionListener);
+            }
+        }
+
+        @Override
+        public synchronized void start() throws JMSException {
+            checkClosed();
+            started = true;
+            for (WindowConnection connection : connections.values()) {
+                connection.connection.start();
+            }
+        }
+
+        @Override
+        public synchronized void stop() throws JMSException {
+            checkClosed();
+            started = false;
+            for (WindowConnection connection : connections.values()) {
+                connection.connection.stop();
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            connections.values().forEach(WindowConnection::close);
+            connections.clear();
+        }
+
+        @Override
+        public synchronized ConnectionConsumer createConnectionConsumer(Destination destination,
+                String messageSelector, ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+            return getConnection().connection
+                    .createConnectionConsumer(destination, messageSelector, sessionPool, maxMessages);
+        }
+
+        @Override
+        public synchronized ConnectionConsumer createSharedConnectionConsumer(Topic topic, String subscriptionName,
+                String messageSelector, ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+            return getConnection().connection
+                    .createSharedConnectionConsumer(topic, subscriptionName, messageSelector, sessionPool,
+                            maxMessages);
+        }
+
+        @Override
+        public synchronized ConnectionConsumer createDurableConnectionConsumer(Topic topic, String subscriptionName,
+                String messageSelector, ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+            return getConnection().connection
+                    .createDurableConnectionConsumer(topic, subscriptionName, messageSelector, sessionPool,
+                            maxMessages);
+        }
+
+        @Override
+        public synchronized ConnectionConsumer createSharedDurableConnectionConsumer(Topic topic,
+                String subscriptionName, String messageSelector, ServerSessionPool sessionPool, int maxMessages)
+                throws JMSException {
+            return getConnection().connection
+                    .createSharedDurableConnectionConsumer(topic, subscriptionName, messageSelector, sessionPool,
+                            maxMessages);
+        }
+
+        private WindowConnection getConnection() throws JMSException {
+            checkClosed();
+            int size = window.getSize();
+            closeOutdatedConnections(size);
+            WindowConnection connection = connections.get(size);
+            if (connection == null) {
+                connection = new WindowConnection(size);
+                connections.put(size, connection);
+            }
+            return connection;
+        }
+
+        private void closeOutdatedConnections(int size) {
+            Iterator<Map.Entry<Integer, WindowConnection>> iterator = connections.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Integer, WindowConnection> entry = iterator.next();
+                if (entry.getKey() != size && entry.getValue().isUnused()) {
+                    entry.getValue().close();
+                    iterator.remove();
+                }
+            }
+        }
+
+        private void checkClosed() throws JMSException {
+            if (closed) {
+                throw new IllegalStateException("Connection is closed");
+            }
+        }
+
+        private final class WindowConnection {
+
+            private final ActiveMQConnectionFactory connectionFactory;
+
+            private final Connection connection;
+
+            private final List<Session> sessions = new ArrayList<>();
+
+            private WindowConnection(int size) throws JMSException {
+                connectionFactory = ConnectionFactoryUtils
+                        .copyConnectionFactory(AdaptiveConsumerWindowConnectionFactory.this.connectionFactory);
+                connectionFactory.setConsumerWindowSize(size);
+                try {
+                    connection = user == null
+                            ? connectionFactory.createConnection()
+                            : connectionFactory.createConnection(user, password);
+                } catch (JMSException | RuntimeException e) {
+                    connectionFactory.close();
+                    throw e;
+                }
+                try {
+                    if (exceptionListener != null) {
+                        connection.setExceptionListener(exceptionListener);
+                    }
+                    if (started) {
+                        connection.start();
+                    }
+                } catch (JMSException | RuntimeException e) {
+                    close();
+                    throw e;
+                }
+            }
+
+            private boolean isUnused() {
+                sessions.removeIf(session -> ((ActiveMQSession) session).getCoreSession().isClosed());
+                return sessions.isEmpty();
+            }
+
+            private void close() {
+                // Closing the connection closes its sessions and consumers
+                JmsUtils.closeConnection(connection);
+                connectionFactory.close();
+            }
+
+        }
+
+    }
+
+}
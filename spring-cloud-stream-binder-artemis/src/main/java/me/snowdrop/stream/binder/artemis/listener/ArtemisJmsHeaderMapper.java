@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.listener;
+
+import java.util.Map;
+
+import javax.jms.Message;
+
+import org.springframework.integration.jms.DefaultJmsHeaderMapper;
+
+import static me.snowdrop.stream.binder.artemis.common.ArtemisHeaders.COMPRESSION;
+
+/**
+ * JMS header mapper hiding properties which describe the encoding of an incoming message. They are only valid for the
+ * original payload and must not be copied to the messages an application sends afterwards.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class ArtemisJmsHeaderMapper extends DefaultJmsHeaderMapper {
+
+    @Override
+    public Map<String, Object> toHeaders(Message jmsMessage) {
+        Map<String, Object> headers = super.toHeaders(jmsMessage);
+        headers.remove(COMPRESSION);
+        return headers;
+    }
+
+}
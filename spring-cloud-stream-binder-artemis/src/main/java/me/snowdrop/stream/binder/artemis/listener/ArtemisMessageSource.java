@@ -0,0 +1,286 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.listener;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import javax.jms.Topic;
+
+import me.snowdrop.stream.binder.artemis.common.LargeMessageConverter;
+import me.snowdrop.stream.binder.artemis.metrics.ConsumerMetrics;
+import me.snowdrop.stream.binder.artemis.metrics.MessageSizes;
+import org.springframework.context.Lifecycle;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.acks.AcknowledgmentCallback;
+import org.springframework.integration.endpoint.AbstractMessageSource;
+import org.springframework.integration.jms.DefaultJmsHeaderMapper;
+import org.springframework.integration.jms.JmsHeaderMapper;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.jms.support.converter.SimpleMessageConverter;
+
+/**
+ * Message source of polled consumer bindings.
+ * <p>
+ * A consumer of a shared subscription is kept open between polls. Every poll takes a message with
+ * {@link MessageConsumer#receiveNoWait()}, which is served from the client side buffer filled according to the
+ * consumer window size, so that the broker is only contacted once the buffer is empty. Consumer uses a transacted
+ * session, which is committed once a message is accepted or rejected, and rolled back if the message is requeued.
+ * Thus rejected messages are discarded and requeued messages are redelivered according to the broker redelivery
+ * settings. A message has to be acknowledged before the next one is polled, and files saved for it by a
+ * {@link LargeMessageConverter} are deleted once it is acknowledged.
+ * <p>
+ * Session and connection are closed when the source is stopped or fails, and opened again on the next poll.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class ArtemisMessageSource extends AbstractMessageSource<Object> implements Lifecycle {
+
+    private final ConnectionFactory connectionFactory;
+
+    private final String topic;
+
+    private final String subscriptionName;
+
+    private final boolean durable;
+
+    private String messageSelector;
+
+    private MessageConverter messageConverter = new SimpleMessageConverter();
+
+    private JmsHeaderMapper headerMapper = new DefaultJmsHeaderMapper();
+
+    private ConsumerMetrics consumerMetrics = ConsumerMetrics.NOOP;
+
+    private boolean running;
+
+    private Connection connection;
+
+    private Session session;
+
+    private MessageConsumer consumer;
+
+    private SessionAcknowledgmentCallback lastCallback;
+
+    /**
+     * @param connectionFactory Factory of the consumer connection.
+     * @param topic             Name of a topic to subscribe to.
+     * @param subscriptionName  Name of a shared subscription.
+     * @param durable           Whether the subscription is durable.
+     */
+    public ArtemisMessageSource(ConnectionFactory connectionFactory, String topic, String subscriptionName,
+            boolean durable) {
+        this.connectionFactory = connectionFactory;
+        this.topic = topic;
+        this.subscriptionName = subscriptionName;
+        this.durable = durable;
+    }
+
+    public void setMessageSelector(String messageSelector) {
+        this.messageSelector = messageSelector;
+    }
+
+    public void setMessageConverter(MessageConverter messageConverter) {
+        this.messageConverter = messageConverter;
+    }
+
+    public void setHeaderMapper(JmsHeaderMapper headerMapper) {
+        this.headerMapper = headerMapper;
+    }
+
+    public void setConsumerMetrics(ConsumerMetrics consumerMetrics) {
+        this.consumerMetrics = consumerMetrics;
+    }
+
+    @Override
+    public String getComponentType() {
+        return "artemis:message-source";
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        close();
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    protected synchronized Object doReceive() {
+        if (!running) {
+            return null;
+        }
+        if (lastCallback != null && !lastCallback.isAcknowledged()) {
+            throw new IllegalStateException("Previous message of '" + subscriptionName + "' was not acknowledged");
+        }
+
+        Message message;
+        try {
+            message = getConsumer().receiveNoWait();
+        } catch (JMSException e) {
+            close();
+            throw JmsUtils.convertJmsAccessException(e);
+        }
+        if (message == null) {
+            return null;
+        }
+
+        try {
+            consumerMetrics.recordReceive(message.getJMSTimestamp());
+            Object payload = messageConverter.fromMessage(message);
+            Map<String, Object> headers = headerMapper.toHeaders(message);
+            lastCallback = new SessionAcknowledgmentCallback(session, MessageSizes.of(message), takeSavedFiles());
+            return getMessageBuilderFactory()
+                    .withPayload(payload)
+                    .copyHeaders(headers)
+                    .setHeader(IntegrationMessageHeaderAccessor.ACKNOWLEDGMENT_CALLBACK, lastCallback);
+        } catch (JMSException | RuntimeException e) {
+            consumerMetrics.recordFailure(1);
+            deleteFiles(takeSavedFiles());
+            rollback(session);
+            throw e instanceof JMSException ? JmsUtils.convertJmsAccessException((JMSException) e)
+                    : (RuntimeException) e;
+        }
+    }
+
+    private List<Path> takeSavedFiles() {
+        if (messageConverter instanceof LargeMessageConverter) {
+            return ((LargeMessageConverter) messageConverter).takeSavedFiles();
+        }
+        return Collections.emptyList();
+    }
+
+    private void deleteFiles(List<Path> files) {
+        if (!files.isEmpty()) {
+            ((LargeMessageConverter) messageConverter).deleteFiles(files);
+        }
+    }
+
+    private MessageConsumer getConsumer() throws JMSException {
+        if (consumer == null) {
+            connection = connectionFactory.createConnection();
+            session = connection.createSession(true, Session.SESSION_TRANSACTED);
+            Topic destination = session.createTopic(topic);
+            consumer = durable ? session.createSharedDurableConsumer(destination, subscriptionName, messageSelector)
+                    : session.createSharedConsumer(destination, subscriptionName, messageSelector);
+            connection.start();
+        }
+        return consumer;
+    }
+
+    private void rollback(Session session) {
+        try {
+            session.rollback();
+        } catch (JMSException e) {
+            logger.debug(e, "Failed to roll back a session of '" + subscriptionName + "'");
+            close();
+        }
+    }
+
+    private void close() {
+        // Closing the connection closes its session and consumer, and rolls back the session
+        JmsUtils.closeConnection(connection);
+        connection = null;
+        session = null;
+        consumer = null;
+    }
+
+    private final class SessionAcknowledgmentCallback implements AcknowledgmentCallback {
+
+        private final Session session;
+
+        private final long receivedAt = System.nanoTime();
+
+        private final long size;
+
+        private final List<Path> savedFiles;
+
+        private volatile boolean acknowledged;
+
+        private volatile boolean autoAck = true;
+
+        private SessionAcknowledgmentCallback(Session session, long size, List<Path> savedFiles) {
+            this.session = session;
+            this.size = size;
+            this.savedFiles = savedFiles;
+        }
+
+        @Override
+        public void acknowledge(Status status) {
+            synchronized (ArtemisMessageSource.this) {
+                if (acknowledged) {
+                    return;
+                }
+                acknowledged = true;
+                deleteFiles(savedFiles);
+                if (session != ArtemisMessageSource.this.session) {
+                    throw new IllegalStateException("Session of '" + subscriptionName + "' was closed");
+                }
+                if (status == Status.REQUEUE) {
+                    consumerMetrics.recordFailure(1);
+                    rollback(session);
+                    return;
+                }
+                try {
+                    session.commit();
+                } catch (JMSException e) {
+                    close();
+                    throw JmsUtils.convertJmsAccessException(e);
+                }
+                if (status == Status.ACCEPT) {
+                    consumerMetrics.recordProcessing(System.nanoTime() - receivedAt, 1, size);
+                } else {
+                    consumerMetrics.recordFailure(1);
+                }
+            }
+        }
+
+        @Override
+        public boolean isAcknowledged() {
+            return acknowledged;
+        }
+
+        @Override
+        public void noAutoAck() {
+            autoAck = false;
+        }
+
+        @Override
+        public boolean isAutoAck() {
+            return autoAck;
+        }
+
+    }
+
+}
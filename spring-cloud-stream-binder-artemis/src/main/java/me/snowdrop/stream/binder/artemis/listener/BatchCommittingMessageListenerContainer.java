@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.listener;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.util.Assert;
+
+/**
+ * Listener container which commits a locally transacted session after a batch of messages instead of after every
+ * message. A batch is committed once it reaches the configured size, once the configured time passed since its first
+ * message or once the consumer stops receiving messages, whichever comes first.
+ * <p>
+ * If a listener fails, the whole uncommitted batch is rolled back and redelivered by the broker. Thus messages that
+ * were already processed successfully as part of that batch are delivered again.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class BatchCommittingMessageListenerContainer extends DefaultMessageListenerContainer {
+
+    private final int batchSize;
+
+    private final long batchTimeout;
+
+    // Sessions are not shared between consumers, so each of them keeps its own batch
+    private final Map<Session, Batch> batches = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public BatchCommittingMessageListenerContainer(int batchSize, long batchTimeout) {
+        // Receive timeout of 0 would block until the next message instead of committing an incomplete batch
+        Assert.isTrue(batchTimeout > 0, "Batch timeout must be positive");
+        this.batchSize = batchSize;
+        this.batchTimeout = batchTimeout;
+        // Make sure an incomplete batch is committed on time if no more messages arrive
+        setReceiveTimeout(Math.min(DEFAULT_RECEIVE_TIMEOUT, batchTimeout));
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getBatchTimeout() {
+        return batchTimeout;
+    }
+
+    @Override
+    protected void commitIfNecessary(Session session, Message message) throws JMSException {
+        if (!session.getTransacted() || !isSessionLocallyTransacted(session)) {
+            super.commitIfNecessary(session, message);
+            return;
+        }
+
+        Batch batch = batches.computeIfAbsent(session, s -> new Batch());
+        if (message != null) {
+            batch.add();
+        }
+
+        // Null message means that receive has timed out and there is no point in waiting any longer
+        if (batch.size > 0 && (message == null || batch.size >= batchSize || batch.getAge() >= batchTimeout)) {
+            if (logger.isTraceEnabled()) {
+                logger.trace("Committing a batch of " + batch.size + " messages");
+            }
+            batch.clear();
+            super.commitIfNecessary(session, message);
+        }
+    }
+
+    @Override
+    protected void rollbackIfNecessary(Session session) throws JMSException {
+        clearBatch(session);
+        super.rollbackIfNecessary(session);
+    }
+
+    @Override
+    protected void rollbackOnExceptionIfNecessary(Session session, Throwable ex) throws JMSException {
+        clearBatch(session);
+        super.rollbackOnExceptionIfNecessary(session, ex);
+    }
+
+    private void clearBatch(Session session) {
+        Batch batch = batches.get(session);
+        if (batch != null) {
+            batch.clear();
+        }
+    }
+
+    private static final class Batch {
+
+        private int size;
+
+        private long startTime;
+
+        private void add() {
+            if (size++ == 0) {
+                startTime = System.currentTimeMillis();
+            }
+        }
+
+        private long getAge() {
+            return System.currentTimeMillis() - startTime;
+        }
+
+        private void clear() {
+            size = 0;
+        }
+
+    }
+
+}
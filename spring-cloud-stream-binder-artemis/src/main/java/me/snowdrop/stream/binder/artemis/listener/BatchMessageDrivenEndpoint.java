@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.listener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+
+import me.snowdrop.stream.binder.artemis.common.LargeMessageConverter;
+import me.snowdrop.stream.binder.artemis.metrics.ConsumerMetrics;
+import me.snowdrop.stream.binder.artemis.metrics.MessageSizes;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.integration.endpoint.MessageProducerSupport;
+import org.springframework.integration.jms.DefaultJmsHeaderMapper;
+import org.springframework.integration.jms.JmsHeaderMapper;
+import org.springframework.integration.support.ErrorMessageUtils;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.jms.support.converter.SimpleMessageConverter;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.retry.RecoveryCallback;
+import org.springframework.retry.support.RetryTemplate;
+
+import static me.snowdrop.stream.binder.artemis.common.ArtemisHeaders.BATCH_CONVERTED_HEADERS;
+
+/**
+ * Message driven endpoint which publishes batches received by {@link BatchReceivingMessageListenerContainer} as a
+ * single message with a list payload. Headers of the individual messages are available as a list in the
+ * {@code artemis_batchConvertedHeaders} header. Files saved by a {@link LargeMessageConverter} are deleted once the
+ * batch is handled.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class BatchMessageDrivenEndpoint extends MessageProducerSupport implements DisposableBean {
+
+    private final BatchReceivingMessageListenerContainer listenerContainer;
+
+    private MessageConverter messageConverter = new SimpleMessageConverter();
+
+    private JmsHeaderMapper headerMapper = new DefaultJmsHeaderMapper();
+
+    private RetryTemplate retryTemplate;
+
+    private RecoveryCallback<?> recoveryCallback;
+
+    private ConsumerMetrics consumerMetrics = ConsumerMetrics.NOOP;
+
+    public BatchMessageDrivenEndpoint(BatchReceivingMessageListenerContainer listenerContainer) {
+        this.listenerContainer = listenerContainer;
+        this.listenerContainer.setAutoStartup(false);
+        this.listenerContainer.setMessageListener((BatchMessageListener) this::onMessages);
+    }
+
+    public void setMessageConverter(MessageConverter messageConverter) {
+        this.messageConverter = messageConverter;
+    }
+
+    public void setHeaderMapper(JmsHeaderMapper headerMapper) {
+        this.headerMapper = headerMapper;
+    }
+
+    public void setRetryTemplate(RetryTemplate retryTemplate) {
+        this.retryTemplate = retryTemplate;
+    }
+
+    public void setRecoveryCallback(RecoveryCallback<?> recoveryCallback) {
+        this.recoveryCallback = recoveryCallback;
+    }
+
+    public void setConsumerMetrics(ConsumerMetrics consumerMetrics) {
+        this.consumerMetrics = consumerMetrics;
+    }
+
+    @Override
+    public String getComponentType() {
+        return "jms:batch-message-driven-channel-adapter";
+    }
+
+    @Override
+    protected void onInit() {
+        super.onInit();
+        listenerContainer.afterPropertiesSet();
+    }
+
+    @Override
+    protected void doStart() {
+        listenerContainer.start();
+    }
+
+    @Override
+    protected void doStop() {
+        listenerContainer.stop();
+    }
+
+    @Override
+    public void destroy() {
+        if (isRunning()) {
+            stop();
+        }
+        listenerContainer.destroy();
+    }
+
+    private void onMessages(List<Message> jmsMessages, Session session) throws JMSException {
+        long start = System.nanoTime();
+        long bytes = 0;
+        for (Message jmsMessage : jmsMessages) {
+            consumerMetrics.recordReceive(jmsMessage.getJMSTimestamp());
+            bytes += MessageSizes.of(jmsMessage);
+        }
+
+        try {
+            deliver(jmsMessages);
+        } catch (JMSException | RuntimeException e) {
+            consumerMetrics.recordFailure(jmsMessages.size());
+            throw e;
+        } finally {
+            if (messageConverter instanceof LargeMessageConverter) {
+                ((LargeMessageConverter) messageConverter).deleteSavedFiles();
+            }
+        }
+        consumerMetrics.recordProcessing(System.nanoTime() - start, jmsMessages.size(), bytes);
+    }
+
+    private void deliver(List<Message> jmsMessages) throws JMSException {
+        List<Object> payloads = new ArrayList<>(jmsMessages.size());
+        List<Map<String, Object>> headers = new ArrayList<>(jmsMessages.size());
+        for (Message jmsMessage : jmsMessages) {
+            payloads.add(messageConverter.fromMessage(jmsMessage));
+            headers.add(headerMapper.toHeaders(jmsMessage));
+        }
+
+        org.springframework.messaging.Message<List<Object>> message = getMessageBuilderFactory()
+                .withPayload(payloads)
+                .setHeader(BATCH_CONVERTED_HEADERS, headers)
+                // All messages of a binding are expected to share the same content type
+                .setHeader(MessageHeaders.CONTENT_TYPE, headers.get(0).get(MessageHeaders.CONTENT_TYPE))
+                .build();
+
+        if (retryTemplate == null) {
+            sendMessage(message);
+            return;
+        }
+
+        retryTemplate.execute(context -> {
+            if (context.getRetryCount() > 0) {
+                consumerMetrics.recordRetry();
+            }
+            context.setAttribute(ErrorMessageUtils.FAILED_MESSAGE_CONTEXT_KEY, message);
+            sendMessage(message);
+            return null;
+        }, context -> {
+            consumerMetrics.recordRecovery();
+            return recoveryCallback.recover(context);
+        });
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.listener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.util.Assert;
+
+/**
+ * Listener container which receives messages in batches and passes them to a {@link BatchMessageListener}.
+ * Once a first message is received, container keeps receiving until either the batch size is reached or the batch
+ * timeout passes. Every batch is committed or rolled back as a whole.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class BatchReceivingMessageListenerContainer extends DefaultMessageListenerContainer {
+
+    private final int batchSize;
+
+    private final long batchTimeout;
+
+    public BatchReceivingMessageListenerContainer(int batchSize, long batchTimeout) {
+        Assert.isTrue(batchSize > 0, "Batch size must be positive");
+        this.batchSize = batchSize;
+        this.batchTimeout = batchTimeout;
+        // Batch receive relies on the consumer being kept open between the receive calls
+        setCacheLevel(CACHE_CONSUMER);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getBatchTimeout() {
+        return batchTimeout;
+    }
+
+    @Override
+    protected void checkMessageListener(Object messageListener) {
+        if (!(messageListener instanceof BatchMessageListener)) {
+            throw new IllegalArgumentException(
+                    "Message listener needs to be of type [" + BatchMessageListener.class.getName() + "]");
+        }
+    }
+
+    @Override
+    protected boolean doReceiveAndExecute(Object invoker, Session session, MessageConsumer consumer,
+            TransactionStatus status) throws JMSException {
+        Assert.state(session != null && consumer != null, "Batch receive requires a cached session and consumer");
+
+        List<Message> messages = receiveBatch(consumer);
+        if (messages.isEmpty()) {
+            noMessageReceived(invoker, session);
+            if (shouldCommitAfterNoMessageReceived(session)) {
+                commitIfNecessary(session, null);
+            }
+            return false;
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Received a batch of " + messages.size() + " messages of type [" + consumer.getClass()
+                    + "] from consumer [" + consumer + "] of session [" + session + "]");
+        }
+        messageReceived(invoker, session);
+
+        try {
+            doExecuteBatchListener(session, messages);
+        } catch (Throwable ex) {
+            if (status != null) {
+                status.setRollbackOnly();
+            }
+            handleListenerException(ex);
+            if (ex instanceof JMSException) {
+                throw (JMSException) ex;
+            }
+        }
+        return true;
+    }
+
+    private List<Message> receiveBatch(MessageConsumer consumer) throws JMSException {
+        List<Message> messages = new ArrayList<>(batchSize);
+        Message message = receiveMessage(consumer);
+        if (message == null) {
+            return messages;
+        }
+        messages.add(message);
+
+        long deadline = System.currentTimeMillis() + batchTimeout;
+        while (messages.size() < batchSize) {
+            long remaining = deadline - System.currentTimeMillis();
+            message = remaining > 0 ? consumer.receive(remaining) : null;
+            if (message == null) {
+                break;
+            }
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private void doExecuteBatchListener(Session session, List<Message> messages) throws JMSException {
+        if (!isAcceptMessagesWhileStopping() && !isRunning()) {
+            logger.warn("Rejecting a batch of " + messages.size()
+                    + " received messages because of the listener container having been stopped in the meantime");
+            rollbackIfNecessary(session);
+            return;
+        }
+
+        try {
+            ((BatchMessageListener) getMessageListener()).onMessages(messages, session);
+        } catch (JMSException | RuntimeException | Error ex) {
+            rollbackOnExceptionIfNecessary(session, ex);
+            throw ex;
+        }
+        commitIfNecessary(session, messages.get(messages.size() - 1));
+    }
+
+}
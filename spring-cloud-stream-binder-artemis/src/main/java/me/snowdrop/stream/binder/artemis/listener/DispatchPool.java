@@ -0,0 +1,196 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.listener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of threads shared by the event driven consumer bindings.
+ * <p>
+ * Every binding dispatches its tasks through an executor of its own, which queues them until a pool thread is
+ * available. Free threads are given to the bindings with a queued task in proportion to their weights, so a binding
+ * with a weight of 2 gets twice as many tasks executed as a binding with a weight of 1 while both have a backlog.
+ * Bindings which were idle don't accumulate a credit, so they cannot take over the pool once they become busy.
+ * A binding which runs fewer tasks than its minimum number of threads is given the next free thread before any other
+ * binding, and a binding which runs its maximum number of threads is not given any more until one of them is free.
+ * Running tasks are never interrupted, so the shares are only enforced whenever a thread becomes free.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class DispatchPool {
+
+    private static final long KEEP_ALIVE_TIME = 60000;
+
+    private final int size;
+
+    private final ThreadPoolExecutor executor;
+
+    // Lanes with queued tasks
+    private final List<Lane> readyLanes = new ArrayList<>();
+
+    private double virtualTime;
+
+    // Dispatches which found only lanes running their maximum number of threads
+    private int deferredDispatches;
+
+    /**
+     * @param size Maximum number of threads.
+     */
+    public DispatchPool(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Dispatch pool size has to be positive");
+        }
+        this.size = size;
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(size, size, KEEP_ALIVE_TIME, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "artemis-dispatch-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Create an executor of a single binding.
+     *
+     * @param weight     Share of the pool relative to the other bindings.
+     * @param minThreads Number of threads the binding gets before any other binding, 0 for none.
+     * @param maxThreads Maximum number of threads used by the binding, 0 for the size of the pool.
+     * @return executor which queues tasks in this pool.
+     */
+    public Executor createExecutor(int weight, int minThreads, int maxThreads) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("Dispatch weight has to be positive");
+        }
+        return new Lane(weight, minThreads, maxThreads > 0 ? maxThreads : size);
+    }
+
+    /**
+     * Stop the pool threads. Queued tasks are discarded.
+     */
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private synchronized void submit(Lane lane, Runnable task) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Dispatch pool is closed");
+        }
+        if (lane.tasks.isEmpty()) {
+            if (lane.running == 0) {
+                // Idle time doesn't count as a credit
+                lane.pass = Math.max(lane.pass, virtualTime);
+            }
+            readyLanes.add(lane);
+        }
+        lane.tasks.add(task);
+        // Every queued task has a dispatch, which runs the task of whichever lane is next
+        executor.execute(this::dispatch);
+    }
+
+    private void dispatch() {
+        Lane lane;
+        Runnable task;
+        synchronized (this) {
+            lane = getNextLane();
+            if (lane == null) {
+                deferredDispatches++;
+                return;
+            }
+            task = lane.tasks.remove();
+            if (lane.tasks.isEmpty()) {
+                readyLanes.remove(lane);
+            }
+            lane.running++;
+            virtualTime = lane.pass;
+            lane.pass += lane.stride;
+        }
+        try {
+            task.run();
+        } finally {
+            complete(lane);
+        }
+    }
+
+    private synchronized void complete(Lane lane) {
+        lane.running--;
+        if (!lane.tasks.isEmpty() && deferredDispatches > 0 && !executor.isShutdown()) {
+            deferredDispatches--;
+            executor.execute(this::dispatch);
+        }
+    }
+
+    private Lane getNextLane() {
+        Lane next = null;
+        for (Lane lane : readyLanes) {
+            if (lane.running < lane.maxThreads && (next == null || lane.isBefore(next))) {
+                next = lane;
+            }
+        }
+        return next;
+    }
+
+    private class Lane implements Executor {
+
+        private final double stride;
+
+        private final int minThreads;
+
+        private final int maxThreads;
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        private double pass;
+
+        private int running;
+
+        Lane(int weight, int minThreads, int maxThreads) {
+            this.stride = 1.0 / weight;
+            this.minThreads = minThreads;
+            this.maxThreads = maxThreads;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            submit(this, task);
+        }
+
+        boolean isBefore(Lane other) {
+            boolean belowMin = running < minThreads;
+            if (belowMin != other.running < other.minThreads) {
+                return belowMin;
+            }
+            return pass < other.pass;
+        }
+
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.listener;
+
+import org.springframework.jms.listener.SimpleMessageListenerContainer;
+
+/**
+ * Listener container which registers a message listener with every consumer instead of polling it. Artemis hands
+ * messages to the listener on a thread of the connection's dispatch pool, one message at a time per consumer.
+ * <p>
+ * Unlike its parent, the container allows multiple consumers of a durable subscription, as long as the subscription
+ * is shared.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class EventDrivenMessageListenerContainer extends SimpleMessageListenerContainer {
+
+    private int concurrentConsumers = 1;
+
+    @Override
+    public void setConcurrentConsumers(int concurrentConsumers) {
+        super.setConcurrentConsumers(concurrentConsumers);
+        this.concurrentConsumers = concurrentConsumers;
+    }
+
+    public int getConcurrentConsumers() {
+        return concurrentConsumers;
+    }
+
+    @Override
+    protected void validateConfiguration() {
+        if (!isSubscriptionShared()) {
+            super.validateConfiguration();
+            return;
+        }
+        // Parent rejects concurrent consumers of any durable subscription
+        if (getDestination() == null && getDestinationName() == null) {
+            throw new IllegalArgumentException("Property 'destination' or 'destinationName' is required");
+        }
+    }
+
+}
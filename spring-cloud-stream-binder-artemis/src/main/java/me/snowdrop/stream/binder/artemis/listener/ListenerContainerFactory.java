@@ -16,6 +16,13 @@
 
 package me.snowdrop.stream.binder.artemis.listener;
 
+import me.snowdrop.stream.binder.artemis.common.VirtualThreadUtils;
+import me.snowdrop.stream.binder.artemis.properties.ArtemisConsumerProperties;
+import me.snowdrop.stream.binder.artemis.properties.ArtemisConsumerProperties.ContainerType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.stream.binder.ExtendedConsumerProperties;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.jms.listener.AbstractMessageListenerContainer;
 import org.springframework.jms.listener.DefaultMessageListenerContainer;
 
@@ -26,22 +33,142 @@ import javax.jms.ConnectionFactory;
  */
 public class ListenerContainerFactory {
 
+    // Consumer tasks have to end periodically for the container to be able to retire idle consumers
+    private static final int SCALING_MAX_MESSAGES_PER_TASK = 10;
+
+    private final Logger logger = LoggerFactory.getLogger(ListenerContainerFactory.class);
+
     private final ConnectionFactory connectionFactory;
 
     public ListenerContainerFactory(ConnectionFactory connectionFactory) {
         this.connectionFactory = connectionFactory;
     }
 
-    public AbstractMessageListenerContainer getListenerContainer(String topic, String subscriptionName) {
-        DefaultMessageListenerContainer listenerContainer = new DefaultMessageListenerContainer();
+    /**
+     * Create a listener container for a shared durable subscription.
+     *
+     * @param topic            Name of a topic to subscribe to.
+     * @param subscriptionName Name of a shared durable subscription.
+     * @param properties       Consumer properties of the binding.
+     * @return Listener container which is not yet started.
+     * @see #getListenerContainer(String, String, boolean, ExtendedConsumerProperties)
+     */
+    public AbstractMessageListenerContainer getListenerContainer(String topic, String subscriptionName,
+            ExtendedConsumerProperties<ArtemisConsumerProperties> properties) {
+        return getListenerContainer(topic, subscriptionName, true, properties);
+    }
+
+    /**
+     * Create a listener container for a shared subscription.
+     * Non-durable subscription queue is not persisted and broker deletes it once its last consumer is closed, e.g.
+     * when the application stops or its connection fails.
+     * Session is committed after every message, unless {@link ArtemisConsumerProperties#getTransactionBatchSize()} is
+     * higher than one, in which case messages are committed in batches. If batch mode is enabled, a
+     * {@link BatchReceivingMessageListenerContainer} is returned, which has to be used with a
+     * {@link BatchMessageListener}.
+     * Container starts with the number of consumers defined by the consumer concurrency. If a higher
+     * {@link ArtemisConsumerProperties#getMaxConcurrency()} is configured, consumers are added while the queue has a
+     * backlog and retired again once they become idle.
+     * If {@link ContainerType#EVENT_DRIVEN} container type is configured, an
+     * {@link EventDrivenMessageListenerContainer} is returned instead. Its consumers don't have threads of their own,
+     * but are handed messages by the connection's dispatch pool, one at a time per consumer, so idle consumers don't
+     * use any threads. Such container has a fixed number of consumers defined by the consumer concurrency, and it
+     * cannot be used with batch mode or batched commits, nor with an adaptive consumer window.
+     * If {@link ArtemisConsumerProperties#isVirtualThreads()} is enabled and the JDK supports virtual threads, every
+     * consumer of a polling container runs on a virtual thread of its own. Otherwise platform threads are used.
+     * Consumers pin their carrier threads while waiting for messages on older JDKs, so their concurrency is limited to
+     * {@link VirtualThreadUtils#getMaxBlockedThreads()}. Event driven containers don't support virtual threads.
+     * Consumers only receive messages matching {@link ArtemisConsumerProperties#getQueueFilter()}, which has to be the
+     * same as the filter of the subscription queue.
+     *
+     * @param topic            Name of a topic to subscribe to.
+     * @param subscriptionName Name of a shared subscription.
+     * @param durable          Whether the subscription is durable.
+     * @param properties       Consumer properties of the binding.
+     * @return Listener container which is not yet started.
+     */
+    public AbstractMessageListenerContainer getListenerContainer(String topic, String subscriptionName,
+            boolean durable, ExtendedConsumerProperties<ArtemisConsumerProperties> properties) {
+        AbstractMessageListenerContainer listenerContainer =
+                properties.getExtension().getContainerType() == ContainerType.EVENT_DRIVEN
+                        ? createEventDrivenListenerContainer(properties)
+                        : createPollingListenerContainer(subscriptionName, properties);
         listenerContainer.setConnectionFactory(connectionFactory);
         listenerContainer.setPubSubDomain(true);
         listenerContainer.setDestinationName(topic);
         listenerContainer.setSubscriptionName(subscriptionName);
         listenerContainer.setSessionTransacted(true);
-        listenerContainer.setSubscriptionDurable(true);
+        listenerContainer.setSubscriptionDurable(durable);
         listenerContainer.setSubscriptionShared(true);
+        // Broker rejects a subscription to an existing queue with a different filter
+        listenerContainer.setMessageSelector(properties.getExtension().getQueueFilter());
         return listenerContainer;
     }
 
+    private DefaultMessageListenerContainer createPollingListenerContainer(String subscriptionName,
+            ExtendedConsumerProperties<ArtemisConsumerProperties> properties) {
+        int concurrency = properties.getConcurrency();
+        int maxConcurrency = Math.max(concurrency, properties.getExtension().getMaxConcurrency());
+        boolean virtualThreads = properties.getExtension().isVirtualThreads() && VirtualThreadUtils.isAvailable();
+        if (properties.getExtension().isVirtualThreads() && !virtualThreads) {
+            logger.warn("Virtual threads are not supported by this JDK, consumers of '{}' will use platform threads",
+                    subscriptionName);
+        }
+        if (virtualThreads && maxConcurrency > VirtualThreadUtils.getMaxBlockedThreads()) {
+            // Consumers waiting for messages would take up all carrier threads and stall every virtual thread
+            maxConcurrency = VirtualThreadUtils.getMaxBlockedThreads();
+            concurrency = Math.min(concurrency, maxConcurrency);
+            logger.warn("Consumers of '{}' are limited to {} virtual threads, because waiting for messages pins "
+                    + "their carrier threads on this JDK", subscriptionName, maxConcurrency);
+        }
+
+        DefaultMessageListenerContainer listenerContainer = createListenerContainer(properties);
+        listenerContainer.setConcurrentConsumers(concurrency);
+        listenerContainer.setMaxConcurrentConsumers(maxConcurrency);
+        if (maxConcurrency > concurrency) {
+            listenerContainer.setMaxMessagesPerTask(SCALING_MAX_MESSAGES_PER_TASK);
+        }
+        if (virtualThreads) {
+            listenerContainer.setTaskExecutor(new TaskExecutorAdapter(VirtualThreadUtils.getExecutor()));
+        }
+        return listenerContainer;
+    }
+
+    private EventDrivenMessageListenerContainer createEventDrivenListenerContainer(
+            ExtendedConsumerProperties<ArtemisConsumerProperties> properties) {
+        if (properties.isBatchMode() || properties.getExtension().getTransactionBatchSize() > 1) {
+            throw new IllegalArgumentException(
+                    "Event driven consumers support neither batch mode nor batched commits");
+        }
+        // Messages are handled on the threads of the connection's dispatch pool
+        if (properties.getExtension().isVirtualThreads()) {
+            throw new IllegalArgumentException("Event driven consumers don't support virtual threads");
+        }
+        // Consumers are only created when the container starts, so an adapted window would never be applied
+        if (properties.getExtension().isAdaptiveConsumerWindow()) {
+            throw new IllegalArgumentException("Event driven consumers don't support an adaptive consumer window");
+        }
+        // Without a task executor messages are handled on the thread which Artemis dispatches them with
+        EventDrivenMessageListenerContainer listenerContainer = new EventDrivenMessageListenerContainer();
+        listenerContainer.setConcurrentConsumers(properties.getConcurrency());
+        return listenerContainer;
+    }
+
+    private DefaultMessageListenerContainer createListenerContainer(
+            ExtendedConsumerProperties<ArtemisConsumerProperties> properties) {
+        ArtemisConsumerProperties extension = properties.getExtension();
+        if (properties.isBatchMode()) {
+            if (extension.getTransactionBatchSize() > 1) {
+                // Every batch is already consumed in a single transaction
+                throw new IllegalArgumentException("Batch mode consumers don't support batched commits");
+            }
+            return new BatchReceivingMessageListenerContainer(extension.getBatchSize(), extension.getBatchTimeout());
+        }
+        if (extension.getTransactionBatchSize() > 1) {
+            return new BatchCommittingMessageListenerContainer(extension.getTransactionBatchSize(),
+                    extension.getTransactionBatchTimeout());
+        }
+        return new DefaultMessageListenerContainer();
+    }
+
 }
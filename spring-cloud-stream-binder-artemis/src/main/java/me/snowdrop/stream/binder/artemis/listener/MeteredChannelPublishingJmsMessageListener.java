@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.listener;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+
+import me.snowdrop.stream.binder.artemis.common.LargeMessageConverter;
+import me.snowdrop.stream.binder.artemis.metrics.ConsumerMetrics;
+import me.snowdrop.stream.binder.artemis.metrics.MessageSizes;
+import org.springframework.integration.jms.ChannelPublishingJmsMessageListener;
+import org.springframework.jms.support.converter.MessageConverter;
+
+/**
+ * Channel publishing listener recording {@link ConsumerMetrics} of every delivered message.
+ * <p>
+ * Files saved by a {@link LargeMessageConverter} are deleted once the message is handled.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class MeteredChannelPublishingJmsMessageListener extends ChannelPublishingJmsMessageListener {
+
+    private ConsumerMetrics consumerMetrics = ConsumerMetrics.NOOP;
+
+    private LargeMessageConverter largeMessageConverter;
+
+    @Override
+    public void setMessageConverter(MessageConverter messageConverter) {
+        super.setMessageConverter(decorateMessageConverter(messageConverter));
+        this.largeMessageConverter = messageConverter instanceof LargeMessageConverter
+                ? (LargeMessageConverter) messageConverter : null;
+    }
+
+    public void setConsumerMetrics(ConsumerMetrics consumerMetrics) {
+        this.consumerMetrics = consumerMetrics;
+    }
+
+    protected ConsumerMetrics getConsumerMetrics() {
+        return consumerMetrics;
+    }
+
+    @Override
+    public void onMessage(Message message, Session session) throws JMSException {
+        consumerMetrics.recordReceive(message.getJMSTimestamp());
+        long start = System.nanoTime();
+        try {
+            deliver(message, session);
+        } catch (JMSException | RuntimeException e) {
+            consumerMetrics.recordFailure(1);
+            throw e;
+        } finally {
+            if (largeMessageConverter != null) {
+                largeMessageConverter.deleteSavedFiles();
+            }
+        }
+        consumerMetrics.recordProcessing(System.nanoTime() - start, 1, MessageSizes.of(message));
+    }
+
+    /**
+     * Decorate the message converter before it is handed to the parent class.
+     *
+     * @param messageConverter Converter set on this listener.
+     * @return converter to convert messages with, the provided one by default.
+     */
+    protected MessageConverter decorateMessageConverter(MessageConverter messageConverter) {
+        return messageConverter;
+    }
+
+    /**
+     * Convert and publish the message.
+     */
+    protected void deliver(Message message, Session session) throws JMSException {
+        super.onMessage(message, session);
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.listener;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+
+import org.springframework.retry.RecoveryCallback;
+import org.springframework.retry.policy.NeverRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+/**
+ * Channel publishing listener which leaves retries of failed deliveries to the broker.
+ * <p>
+ * Failure of any but the last attempt is rethrown for the listener container to roll back the session. Broker then
+ * redelivers the message according to the redelivery delay of its address settings, while the consumer thread
+ * carries on with other messages. Number of attempts is taken from the {@value #DELIVERY_COUNT} property, and
+ * failure of the last attempt is handed to the recovery callback.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class RedeliveringChannelPublishingJmsMessageListener extends MeteredChannelPublishingJmsMessageListener {
+
+    static final String DELIVERY_COUNT = "JMSXDeliveryCount";
+
+    private final RetryTemplate lastAttemptTemplate = new RetryTemplate();
+
+    private final int maxAttempts;
+
+    private final RecoveryCallback<?> recoveryCallback;
+
+    public RedeliveringChannelPublishingJmsMessageListener(int maxAttempts, RecoveryCallback<?> recoveryCallback) {
+        this.maxAttempts = maxAttempts;
+        this.recoveryCallback = recoveryCallback;
+        this.lastAttemptTemplate.setRetryPolicy(new NeverRetryPolicy());
+    }
+
+    @Override
+    protected void deliver(Message message, Session session) throws JMSException {
+        int deliveryCount = message.getIntProperty(DELIVERY_COUNT);
+        if (deliveryCount > 1) {
+            getConsumerMetrics().recordRetry();
+        }
+        if (deliveryCount < maxAttempts) {
+            super.deliver(message, session);
+            return;
+        }
+        lastAttemptTemplate.execute(c -> {
+            if (message instanceof BytesMessage) {
+                ((BytesMessage) message).reset();
+            }
+            super.deliver(message, session);
+            return null;
+        }, c -> {
+            getConsumerMetrics().recordRecovery();
+            return recoveryCallback.recover(c);
+        });
+    }
+
+}
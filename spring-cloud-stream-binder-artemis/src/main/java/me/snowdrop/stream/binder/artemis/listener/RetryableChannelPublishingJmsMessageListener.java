@@ -16,19 +16,57 @@
 
 package me.snowdrop.stream.binder.artemis.listener;
 
-import javax.jms.BytesMessage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.Session;
 
-import org.springframework.integration.jms.ChannelPublishingJmsMessageListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.jms.DefaultJmsHeaderMapper;
+import org.springframework.integration.jms.JmsHeaderMapper;
+import org.springframework.integration.support.ErrorMessageUtils;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.jms.support.converter.SimpleMessageConverter;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.MessagingException;
 import org.springframework.retry.RecoveryCallback;
 import org.springframework.retry.support.RetryTemplate;
 
 /**
+ * Channel publishing listener retrying failed deliveries with a {@link RetryTemplate}.
+ * <p>
+ * Every attempt is published through the regular channel publishing of the parent class, but the JMS message is
+ * converted and its headers are mapped only once per delivery. The resulting Spring message is cached, and the
+ * following attempts publish it again with only the {@link IntegrationMessageHeaderAccessor#DELIVERY_ATTEMPT} header
+ * replaced. Conversion is retried as well until it succeeds once.
+ * <p>
+ * {@link InputStream} payloads can only be read once, so they are saved to a temporary file when the message is
+ * converted, and every attempt reads a new stream of that file. The file is deleted once the delivery is over.
+ *
  * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
  */
-public class RetryableChannelPublishingJmsMessageListener extends ChannelPublishingJmsMessageListener {
+public class RetryableChannelPublishingJmsMessageListener extends MeteredChannelPublishingJmsMessageListener {
+
+    private static final String FILE_PREFIX = "artemis-";
+
+    private static final String FILE_SUFFIX = ".msg";
+
+    private final Logger logger = LoggerFactory.getLogger(RetryableChannelPublishingJmsMessageListener.class);
+
+    private final ThreadLocal<Delivery> currentDelivery = new ThreadLocal<>();
 
     private final RetryTemplate retryTemplate;
 
@@ -38,18 +76,194 @@ public class RetryableChannelPublishingJmsMessageListener extends ChannelPublish
             RecoveryCallback<?> recoveryCallback) {
         this.retryTemplate = retryTemplate;
         this.recoveryCallback = recoveryCallback;
+        // Decorate the defaults of the parent class
+        setMessageConverter(new SimpleMessageConverter());
+        setHeaderMapper(new DefaultJmsHeaderMapper());
     }
 
     @Override
-    public void onMessage(Message message, Session session) throws JMSException {
-        retryTemplate.execute(c -> {
-            if (message instanceof BytesMessage) {
-                // Make sure byte message is readable in every iteration.
-                ((BytesMessage) message).reset();
+    public void setHeaderMapper(JmsHeaderMapper headerMapper) {
+        super.setHeaderMapper(new DeliveryAttemptHeaderMapper(headerMapper));
+    }
+
+    @Override
+    protected MessageConverter decorateMessageConverter(MessageConverter messageConverter) {
+        return new OncePerDeliveryMessageConverter(messageConverter);
+    }
+
+    @Override
+    protected void deliver(Message message, Session session) throws JMSException {
+        Delivery delivery = new Delivery();
+        currentDelivery.set(delivery);
+        try {
+            retryTemplate.execute(c -> {
+                if (c.getRetryCount() > 0) {
+                    getConsumerMetrics().recordRetry();
+                }
+                delivery.attempt = c.getRetryCount() + 1;
+                try {
+                    super.deliver(message, session);
+                } catch (MessagingException e) {
+                    c.setAttribute(ErrorMessageUtils.FAILED_MESSAGE_CONTEXT_KEY, e.getFailedMessage());
+                    throw e;
+                }
+                return null;
+            }, c -> {
+                getConsumerMetrics().recordRecovery();
+                return recoveryCallback.recover(c);
+            });
+        } finally {
+            currentDelivery.remove();
+            close(delivery);
+        }
+    }
+
+    private Path save(InputStream payload) {
+        Path file = null;
+        try (InputStream input = payload) {
+            file = Files.createTempFile(FILE_PREFIX, FILE_SUFFIX);
+            Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+            return file;
+        } catch (IOException e) {
+            delete(file);
+            throw new MessageConversionException("Failed to save streamed payload for delivery attempts", e);
+        }
+    }
+
+    private InputStream open(Delivery delivery) {
+        closeStream(delivery);
+        try {
+            delivery.stream = Files.newInputStream(delivery.savedPayload);
+            return delivery.stream;
+        } catch (IOException e) {
+            throw new MessageConversionException(
+                    String.format("Failed to read saved payload '%s'", delivery.savedPayload), e);
+        }
+    }
+
+    private void close(Delivery delivery) {
+        closeStream(delivery);
+        delete(delivery.savedPayload);
+    }
+
+    private void closeStream(Delivery delivery) {
+        if (delivery.stream == null) {
+            return;
+        }
+        try {
+            delivery.stream.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close saved payload stream", e);
+        }
+        delivery.stream = null;
+    }
+
+    private void delete(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete saved payload '{}'", file, e);
+        }
+    }
+
+    private static final class Delivery {
+
+        private int attempt;
+
+        // Converted payload waiting for its headers to be mapped during the first attempt
+        private Object payload;
+
+        private org.springframework.messaging.Message<?> message;
+
+        private Path savedPayload;
+
+        private InputStream stream;
+
+    }
+
+    private final class OncePerDeliveryMessageConverter implements MessageConverter {
+
+        private final MessageConverter delegate;
+
+        private OncePerDeliveryMessageConverter(MessageConverter delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Message toMessage(Object object, Session session) throws JMSException {
+            return delegate.toMessage(object, session);
+        }
+
+        @Override
+        public Object fromMessage(Message message) throws JMSException {
+            Delivery delivery = currentDelivery.get();
+            if (delivery == null) {
+                return delegate.fromMessage(message);
+            }
+            if (delivery.message != null) {
+                if (delivery.savedPayload == null) {
+                    return delivery.message;
+                }
+                return MessageBuilder.withPayload(open(delivery))
+                        .copyHeaders(delivery.message.getHeaders())
+                        .build();
             }
-            super.onMessage(message, session);
-            return null;
-        }, recoveryCallback);
+
+            Object payload = delegate.fromMessage(message);
+            if (payload instanceof InputStream) {
+                // Previous attempt might have saved the payload before its headers failed to be mapped
+                close(delivery);
+                delivery.savedPayload = save((InputStream) payload);
+                payload = open(delivery);
+            }
+            delivery.payload = payload;
+            return payload;
+        }
+
+    }
+
+    private final class DeliveryAttemptHeaderMapper extends JmsHeaderMapper {
+
+        private final JmsHeaderMapper delegate;
+
+        private DeliveryAttemptHeaderMapper(JmsHeaderMapper delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void fromHeaders(MessageHeaders headers, Message target) {
+            delegate.fromHeaders(headers, target);
+        }
+
+        @Override
+        public Map<String, Object> toHeaders(Message source) {
+            Delivery delivery = currentDelivery.get();
+            if (delivery == null) {
+                return delegate.toHeaders(source);
+            }
+            AtomicInteger attempt = new AtomicInteger(delivery.attempt);
+            if (delivery.message != null) {
+                // Mapped headers are already in the cached message
+                return Collections.singletonMap(IntegrationMessageHeaderAccessor.DELIVERY_ATTEMPT, attempt);
+            }
+
+            Map<String, Object> headers = delegate.toHeaders(source);
+            delivery.message = delivery.payload instanceof org.springframework.messaging.Message
+                    ? MessageBuilder.fromMessage((org.springframework.messaging.Message<?>) delivery.payload)
+                            .copyHeaders(headers)
+                            .build()
+                    : MessageBuilder.withPayload(delivery.payload)
+                            .copyHeaders(headers)
+                            .build();
+            delivery.payload = null;
+            Map<String, Object> attemptHeaders = new HashMap<>(headers);
+            attemptHeaders.put(IntegrationMessageHeaderAccessor.DELIVERY_ATTEMPT, attempt);
+            return attemptHeaders;
+        }
+
     }
 
 }
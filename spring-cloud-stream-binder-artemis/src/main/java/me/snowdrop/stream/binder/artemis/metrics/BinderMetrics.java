@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.metrics;
+
+/**
+ * Factory of metrics recorded by the binder for its bindings and provisioning.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public interface BinderMetrics {
+
+    /**
+     * Metrics implementation which doesn't record anything. Used when Micrometer is not available.
+     */
+    BinderMetrics NOOP = new BinderMetrics() {
+        @Override
+        public ProducerMetrics getProducerMetrics(String destination) {
+            return ProducerMetrics.NOOP;
+        }
+
+        @Override
+        public ConsumerMetrics getConsumerMetrics(String destination, String group, Integer partition) {
+            return ConsumerMetrics.NOOP;
+        }
+
+        @Override
+        public void removeProducerMetrics(ProducerMetrics producerMetrics) {
+        }
+
+        @Override
+        public void removeConsumerMetrics(ConsumerMetrics consumerMetrics) {
+        }
+
+        @Override
+        public void recordProvisioning(String destination, String group, long durationNanos) {
+        }
+
+        @Override
+        public void registerQueueStatistics(String destination, String group, Integer partition,
+                QueueStatistics statistics) {
+        }
+
+        @Override
+        public void removeQueueStatistics(QueueStatistics statistics) {
+        }
+    };
+
+    /**
+     * @param destination Name of the producer destination.
+     * @return metrics of a producer binding.
+     */
+    ProducerMetrics getProducerMetrics(String destination);
+
+    /**
+     * @param destination Name of the consumer destination.
+     * @param group       Name of the consumer group or null for anonymous consumers.
+     * @param partition   Partition the binding consumes from or null if the binding is not partitioned.
+     * @return metrics of a consumer binding.
+     */
+    ConsumerMetrics getConsumerMetrics(String destination, String group, Integer partition);
+
+    /**
+     * @param producerMetrics Metrics of an unbound producer binding.
+     */
+    void removeProducerMetrics(ProducerMetrics producerMetrics);
+
+    /**
+     * @param consumerMetrics Metrics of an unbound consumer binding.
+     */
+    void removeConsumerMetrics(ConsumerMetrics consumerMetrics);
+
+    /**
+     * @param destination   Name of the provisioned destination.
+     * @param group         Name of the consumer group or null for producer and anonymous consumer destinations.
+     * @param durationNanos Time it took to provision the destination.
+     */
+    void recordProvisioning(String destination, String group, long durationNanos);
+
+    /**
+     * Expose statistics of a consumer binding queue.
+     *
+     * @param destination Name of the consumer destination.
+     * @param group       Name of the consumer group or null for anonymous consumers.
+     * @param partition   Partition the binding consumes from or null if the binding is not partitioned.
+     * @param statistics  Statistics of the binding queue.
+     */
+    void registerQueueStatistics(String destination, String group, Integer partition, QueueStatistics statistics);
+
+    /**
+     * @param statistics Statistics which should no longer be exposed.
+     */
+    void removeQueueStatistics(QueueStatistics statistics);
+
+}
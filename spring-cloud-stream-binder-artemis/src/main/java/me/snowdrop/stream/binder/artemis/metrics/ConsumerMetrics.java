@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.metrics;
+
+/**
+ * Metrics of a single consumer binding.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public interface ConsumerMetrics {
+
+    ConsumerMetrics NOOP = new ConsumerMetrics() {
+        @Override
+        public void recordReceive(long timestamp) {
+        }
+
+        @Override
+        public void recordProcessing(long durationNanos, int messages, long bytes) {
+        }
+
+        @Override
+        public void recordFailure(int messages) {
+        }
+
+        @Override
+        public void recordRetry() {
+        }
+
+        @Override
+        public void recordRecovery() {
+        }
+    };
+
+    /**
+     * @param timestamp Time in milliseconds at which the received message was sent or 0 if it is unknown.
+     */
+    void recordReceive(long timestamp);
+
+    /**
+     * @param durationNanos Time it took to process the messages.
+     * @param messages      Number of processed messages. Higher than one in batch mode.
+     * @param bytes         Payload size of the processed messages, see {@link MessageSizes}.
+     */
+    void recordProcessing(long durationNanos, int messages, long bytes);
+
+    /**
+     * @param messages Number of messages which failed to be processed and will be redelivered by the broker.
+     */
+    void recordFailure(int messages);
+
+    /**
+     * Record a delivery attempt following a failed one.
+     */
+    void recordRetry();
+
+    /**
+     * Record a delivery which was published to the error channel once the retries were exhausted.
+     */
+    void recordRecovery();
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.metrics;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.TextMessage;
+
+/**
+ * Payload sizes recorded by the binder metrics. {@code byte[]} payloads and bytes messages are counted in bytes, while
+ * {@code String} payloads and text messages are counted in characters to avoid encoding them. Other payloads, such as
+ * streamed large messages, are not counted.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public final class MessageSizes {
+
+    private MessageSizes() {
+    }
+
+    public static long of(Object payload) {
+        if (payload instanceof byte[]) {
+            return ((byte[]) payload).length;
+        }
+        if (payload instanceof String) {
+            return ((String) payload).length();
+        }
+        return 0;
+    }
+
+    public static long of(Message message) throws JMSException {
+        if (message instanceof BytesMessage) {
+            return ((BytesMessage) message).getBodyLength();
+        }
+        if (message instanceof TextMessage) {
+            String text = ((TextMessage) message).getText();
+            return text == null ? 0 : text.length();
+        }
+        return 0;
+    }
+
+}
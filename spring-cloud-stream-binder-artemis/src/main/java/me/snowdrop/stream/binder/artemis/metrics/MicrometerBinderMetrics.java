@@ -0,0 +1,300 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.metrics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Binder metrics recorded with Micrometer.
+ * <p>
+ * Producer meters are tagged with a destination name. Consumer meters are tagged with a destination name, a group and
+ * a partition. Anonymous groups are tagged as {@value #ANONYMOUS} instead of their generated names, and unpartitioned
+ * bindings as {@value #NONE}. Queue gauges are additionally tagged with a queue name, because anonymous bindings of the
+ * same destination have queues of their own.
+ * <p>
+ * Bindings with the same tags share their meters, which are removed from the registry once all of those bindings are
+ * removed.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class MicrometerBinderMetrics implements BinderMetrics {
+
+    public static final String PREFIX = "artemis.binder.";
+
+    public static final String DESTINATION_TAG = "destination";
+
+    public static final String GROUP_TAG = "group";
+
+    public static final String PARTITION_TAG = "partition";
+
+    public static final String QUEUE_TAG = "queue";
+
+    static final String ANONYMOUS = "anonymous";
+
+    static final String NONE = "none";
+
+    private static final String BYTES = "bytes";
+
+    private final MeterRegistry meterRegistry;
+
+    // Keyed by metrics and statistics instances given to bindings
+    private final Map<Object, List<Meter>> bindingMeters = new IdentityHashMap<>();
+
+    private final Map<Meter.Id, Integer> meterReferences = new HashMap<>();
+
+    public MicrometerBinderMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public synchronized ProducerMetrics getProducerMetrics(String destination) {
+        MicrometerProducerMetrics producerMetrics =
+                new MicrometerProducerMetrics(Tags.of(DESTINATION_TAG, destination));
+        addBindingMeters(producerMetrics, producerMetrics.getMeters());
+        return producerMetrics;
+    }
+
+    @Override
+    public synchronized ConsumerMetrics getConsumerMetrics(String destination, String group, Integer partition) {
+        MicrometerConsumerMetrics consumerMetrics =
+                new MicrometerConsumerMetrics(getConsumerTags(destination, group, partition));
+        addBindingMeters(consumerMetrics, consumerMetrics.getMeters());
+        return consumerMetrics;
+    }
+
+    @Override
+    public synchronized void removeProducerMetrics(ProducerMetrics producerMetrics) {
+        removeBindingMeters(producerMetrics);
+    }
+
+    @Override
+    public synchronized void removeConsumerMetrics(ConsumerMetrics consumerMetrics) {
+        removeBindingMeters(consumerMetrics);
+    }
+
+    @Override
+    public void recordProvisioning(String destination, String group, long durationNanos) {
+        Timer.builder(PREFIX + "provisioning")
+                .description("Time to provision a destination")
+                .tags(DESTINATION_TAG, destination, GROUP_TAG, group == null ? NONE : group)
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized void registerQueueStatistics(String destination, String group, Integer partition,
+            QueueStatistics statistics) {
+        Tags tags = getConsumerTags(destination, group, partition).and(QUEUE_TAG, statistics.getQueueName());
+        addBindingMeters(statistics, Arrays.asList(
+                registerQueueGauge("consumer.queue.messages", "Number of messages in the binding queue", tags,
+                        statistics, QueueStatistics::getMessageCount),
+                registerQueueGauge("consumer.queue.delivering",
+                        "Number of binding queue messages delivered and not yet acknowledged", tags, statistics,
+                        QueueStatistics::getDeliveringCount),
+                registerQueueGauge("consumer.queue.added.rate",
+                        "Number of messages added to the binding queue per second", tags, statistics,
+                        QueueStatistics::getMessagesAddedRate),
+                registerQueueGauge("consumer.queue.consumers", "Number of binding queue consumers", tags,
+                        statistics, QueueStatistics::getConsumerCount)));
+    }
+
+    @Override
+    public synchronized void removeQueueStatistics(QueueStatistics statistics) {
+        removeBindingMeters(statistics);
+    }
+
+    private void addBindingMeters(Object binding, List<Meter> meters) {
+        meters.forEach(meter -> meterReferences.merge(meter.getId(), 1, Integer::sum));
+        bindingMeters.put(binding, meters);
+    }
+
+    private void removeBindingMeters(Object binding) {
+        List<Meter> meters = bindingMeters.remove(binding);
+        if (meters == null) {
+            return;
+        }
+        for (Meter meter : meters) {
+            int references = meterReferences.merge(meter.getId(), -1, Integer::sum);
+            if (references == 0) {
+                meterReferences.remove(meter.getId());
+                meterRegistry.remove(meter);
+            }
+        }
+    }
+
+    private Gauge registerQueueGauge(String name, String description, Tags tags, QueueStatistics statistics,
+            ToDoubleFunction<QueueStatistics> value) {
+        return Gauge.builder(PREFIX + name, statistics, value)
+                .description(description)
+                .tags(tags)
+                .strongReference(true)
+                .register(meterRegistry);
+    }
+
+    private Tags getConsumerTags(String destination, String group, Integer partition) {
+        return Tags.of(DESTINATION_TAG, destination)
+                .and(GROUP_TAG, group == null ? ANONYMOUS : group)
+                .and(PARTITION_TAG, partition == null ? NONE : String.valueOf(partition));
+    }
+
+    private class MicrometerProducerMetrics implements ProducerMetrics {
+
+        private final Timer sendTimer;
+
+        private final Counter messagesCounter;
+
+        private final Counter bytesCounter;
+
+        private final Counter failuresCounter;
+
+        MicrometerProducerMetrics(Tags tags) {
+            this.sendTimer = Timer.builder(PREFIX + "producer.send")
+                    .description("Time to send a message")
+                    .tags(tags)
+                    .register(meterRegistry);
+            this.messagesCounter = Counter.builder(PREFIX + "producer.messages")
+                    .description("Number of sent messages")
+                    .tags(tags)
+                    .register(meterRegistry);
+            this.bytesCounter = Counter.builder(PREFIX + "producer.bytes")
+                    .description("Payload size of sent messages")
+                    .baseUnit(BYTES)
+                    .tags(tags)
+                    .register(meterRegistry);
+            this.failuresCounter = Counter.builder(PREFIX + "producer.failures")
+                    .description("Number of messages which failed to be sent")
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+
+        List<Meter> getMeters() {
+            return Arrays.asList(sendTimer, messagesCounter, bytesCounter, failuresCounter);
+        }
+
+        @Override
+        public void recordSend(long durationNanos, long bytes) {
+            sendTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+            messagesCounter.increment();
+            bytesCounter.increment(bytes);
+        }
+
+        @Override
+        public void recordFailure() {
+            failuresCounter.increment();
+        }
+
+    }
+
+    private class MicrometerConsumerMetrics implements ConsumerMetrics {
+
+        private final Timer receiveTimer;
+
+        private final Timer processingTimer;
+
+        private final Counter messagesCounter;
+
+        private final Counter bytesCounter;
+
+        private final Counter failuresCounter;
+
+        private final Counter retriesCounter;
+
+        private final Counter recoveriesCounter;
+
+        MicrometerConsumerMetrics(Tags tags) {
+            this.receiveTimer = Timer.builder(PREFIX + "consumer.receive")
+                    .description("Time from sending a message until it is received by the consumer")
+                    .tags(tags)
+                    .register(meterRegistry);
+            this.processingTimer = Timer.builder(PREFIX + "consumer.processing")
+                    .description("Time to process a message or a batch of messages")
+                    .tags(tags)
+                    .register(meterRegistry);
+            this.messagesCounter = Counter.builder(PREFIX + "consumer.messages")
+                    .description("Number of processed messages")
+                    .tags(tags)
+                    .register(meterRegistry);
+            this.bytesCounter = Counter.builder(PREFIX + "consumer.bytes")
+                    .description("Payload size of processed messages")
+                    .baseUnit(BYTES)
+                    .tags(tags)
+                    .register(meterRegistry);
+            this.failuresCounter = Counter.builder(PREFIX + "consumer.failures")
+                    .description("Number of messages which failed to be processed")
+                    .tags(tags)
+                    .register(meterRegistry);
+            this.retriesCounter = Counter.builder(PREFIX + "consumer.retries")
+                    .description("Number of delivery retry attempts")
+                    .tags(tags)
+                    .register(meterRegistry);
+            this.recoveriesCounter = Counter.builder(PREFIX + "consumer.recoveries")
+                    .description("Number of deliveries published to the error channel")
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+
+        List<Meter> getMeters() {
+            return Arrays.asList(receiveTimer, processingTimer, messagesCounter, bytesCounter, failuresCounter,
+                    retriesCounter, recoveriesCounter);
+        }
+
+        @Override
+        public void recordReceive(long timestamp) {
+            if (timestamp > 0) {
+                // Clocks of different hosts might be out of sync
+                receiveTimer.record(Math.max(0, System.currentTimeMillis() - timestamp), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        @Override
+        public void recordProcessing(long durationNanos, int messages, long bytes) {
+            processingTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+            messagesCounter.increment(messages);
+            bytesCounter.increment(bytes);
+        }
+
+        @Override
+        public void recordFailure(int messages) {
+            failuresCounter.increment(messages);
+        }
+
+        @Override
+        public void recordRetry() {
+            retriesCounter.increment();
+        }
+
+        @Override
+        public void recordRecovery() {
+            recoveriesCounter.increment();
+        }
+
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.metrics;
+
+/**
+ * Metrics of a single producer binding.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public interface ProducerMetrics {
+
+    ProducerMetrics NOOP = new ProducerMetrics() {
+        @Override
+        public void recordSend(long durationNanos, long bytes) {
+        }
+
+        @Override
+        public void recordFailure() {
+        }
+    };
+
+    /**
+     * @param durationNanos Time it took to send a message.
+     * @param bytes         Payload size of the sent message, see {@link MessageSizes}.
+     */
+    void recordSend(long durationNanos, long bytes);
+
+    /**
+     * Record a message which failed to be sent, either immediately or once its confirmation or transaction failed.
+     */
+    void recordFailure();
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.metrics;
+
+/**
+ * Latest statistics of a consumer binding queue collected by {@link QueueStatisticsCollector}. Values are
+ * {@link Double#NaN} until they are collected for the first time, or if the last collection failed.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class QueueStatistics {
+
+    private final String managementAddress;
+
+    private final String queueName;
+
+    private volatile double messageCount = Double.NaN;
+
+    private volatile double deliveringCount = Double.NaN;
+
+    private volatile double messagesAddedRate = Double.NaN;
+
+    private volatile double consumerCount = Double.NaN;
+
+    private long lastMessagesAdded = -1;
+
+    private long lastUpdateTime;
+
+    QueueStatistics(String managementAddress, String queueName) {
+        this.managementAddress = managementAddress;
+        this.queueName = queueName;
+    }
+
+    public String getQueueName() {
+        return queueName;
+    }
+
+    /**
+     * @return number of messages in the queue, including the ones which are being delivered.
+     */
+    public double getMessageCount() {
+        return messageCount;
+    }
+
+    /**
+     * @return number of messages delivered to consumers and not yet acknowledged.
+     */
+    public double getDeliveringCount() {
+        return deliveringCount;
+    }
+
+    /**
+     * @return number of messages added to the queue per second since the previous collection.
+     */
+    public double getMessagesAddedRate() {
+        return messagesAddedRate;
+    }
+
+    /**
+     * @return number of consumers of the queue across all application instances.
+     */
+    public double getConsumerCount() {
+        return consumerCount;
+    }
+
+    String getManagementAddress() {
+        return managementAddress;
+    }
+
+    void update(long messageCount, long deliveringCount, long messagesAdded, long consumerCount, long time) {
+        this.messageCount = messageCount;
+        this.deliveringCount = deliveringCount;
+        this.consumerCount = consumerCount;
+        if (lastMessagesAdded >= 0 && time > lastUpdateTime) {
+            this.messagesAddedRate = (messagesAdded - lastMessagesAdded) * 1000.0 / (time - lastUpdateTime);
+        }
+        this.lastMessagesAdded = messagesAdded;
+        this.lastUpdateTime = time;
+    }
+
+    void reset() {
+        this.messageCount = Double.NaN;
+        this.deliveringCount = Double.NaN;
+        this.messagesAddedRate = Double.NaN;
+        this.consumerCount = Double.NaN;
+        this.lastMessagesAdded = -1;
+    }
+
+}
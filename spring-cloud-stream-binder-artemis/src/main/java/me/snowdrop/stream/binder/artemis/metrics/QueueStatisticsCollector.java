@@ -0,0 +1,203 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import me.snowdrop.stream.binder.artemis.common.CoreSessionFactory;
+import org.apache.activemq.artemis.api.core.ActiveMQException;
+import org.apache.activemq.artemis.api.core.client.ClientMessage;
+import org.apache.activemq.artemis.api.core.client.ClientRequestor;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
+import org.apache.activemq.artemis.api.core.management.ManagementHelper;
+import org.apache.activemq.artemis.api.core.management.ResourceNames;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically collects {@link QueueStatistics} of consumer binding queues from the broker management address.
+ * <p>
+ * A single management session is shared by all queues and is only open while at least one queue is registered. The
+ * session is recreated for the next queue if it fails. Statistics of a queue which cannot be queried, e.g. because
+ * it is not created yet, are reset until the next successful collection.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class QueueStatisticsCollector {
+
+    private static final String MESSAGE_COUNT = "messageCount";
+
+    private static final String DELIVERING_COUNT = "deliveringCount";
+
+    private static final String MESSAGES_ADDED = "messagesAdded";
+
+    private static final String CONSUMER_COUNT = "consumerCount";
+
+    private static final long REQUEST_TIMEOUT = 5000;
+
+    private final Logger logger = LoggerFactory.getLogger(QueueStatisticsCollector.class);
+
+    private final CoreSessionFactory sessionFactory;
+
+    private final long interval;
+
+    private final Set<QueueStatistics> queues = ConcurrentHashMap.newKeySet();
+
+    // Management session and requestors are only used by the collector thread
+    private final Map<String, ClientRequestor> requestors = new HashMap<>();
+
+    private ClientSessionFactory clientSessionFactory;
+
+    private ClientSession session;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * @param sessionFactory Factory of a management session.
+     * @param interval       Time (in ms) between collections.
+     */
+    public QueueStatisticsCollector(CoreSessionFactory sessionFactory, long interval) {
+        this.sessionFactory = sessionFactory;
+        this.interval = interval;
+    }
+
+    /**
+     * Start collecting statistics of a queue.
+     *
+     * @param managementAddress Broker management address.
+     * @param queueName         Name of the queue.
+     * @return statistics which are updated on every collection.
+     */
+    public synchronized QueueStatistics register(String managementAddress, String queueName) {
+        QueueStatistics statistics = new QueueStatistics(managementAddress, queueName);
+        queues.add(statistics);
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "artemis-queue-statistics");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(this::collect, 0, interval, TimeUnit.MILLISECONDS);
+        }
+        return statistics;
+    }
+
+    /**
+     * Stop collecting statistics of a queue. Collection is stopped once no queues are registered.
+     *
+     * @param statistics Statistics returned when registering the queue.
+     */
+    public synchronized void unregister(QueueStatistics statistics) {
+        queues.remove(statistics);
+        if (queues.isEmpty()) {
+            close();
+        }
+    }
+
+    public synchronized void close() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(REQUEST_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+        closeSession();
+    }
+
+    void collect() {
+        for (QueueStatistics statistics : queues) {
+            try {
+                collect(statistics);
+            } catch (ActiveMQException e) {
+                logger.debug("Failed to collect statistics of queue '{}'", statistics.getQueueName(), e);
+                statistics.reset();
+                // Other queues are collected with a new session rather than left with stale statistics
+                closeSession();
+            } catch (Exception e) {
+                logger.debug("Failed to collect statistics of queue '{}'", statistics.getQueueName(), e);
+                statistics.reset();
+            }
+        }
+    }
+
+    private void collect(QueueStatistics statistics) throws Exception {
+        ClientRequestor requestor = getRequestor(statistics.getManagementAddress());
+        String resourceName = ResourceNames.QUEUE + statistics.getQueueName();
+        long messageCount = getAttribute(requestor, resourceName, MESSAGE_COUNT);
+        long deliveringCount = getAttribute(requestor, resourceName, DELIVERING_COUNT);
+        long messagesAdded = getAttribute(requestor, resourceName, MESSAGES_ADDED);
+        long consumerCount = getAttribute(requestor, resourceName, CONSUMER_COUNT);
+        statistics.update(messageCount, deliveringCount, messagesAdded, consumerCount, System.currentTimeMillis());
+    }
+
+    private long getAttribute(ClientRequestor requestor, String resourceName, String attribute) throws Exception {
+        ClientMessage request = session.createMessage(false);
+        ManagementHelper.putAttribute(request, resourceName, attribute);
+        ClientMessage reply = requestor.request(request, REQUEST_TIMEOUT);
+        if (reply == null) {
+            throw new ActiveMQException(String.format("Timed out reading '%s' of '%s'", attribute, resourceName));
+        }
+        if (!ManagementHelper.hasOperationSucceeded(reply)) {
+            throw new IllegalStateException(String.format("Failed to read '%s' of '%s': %s", attribute, resourceName,
+                    ManagementHelper.getResult(reply)));
+        }
+        return ((Number) ManagementHelper.getResult(reply)).longValue();
+    }
+
+    private ClientRequestor getRequestor(String managementAddress) throws Exception {
+        if (session == null) {
+            clientSessionFactory = sessionFactory.createSessionFactory();
+            session = sessionFactory.createSession(clientSessionFactory, true, true);
+            session.start();
+        }
+        ClientRequestor requestor = requestors.get(managementAddress);
+        if (requestor == null) {
+            requestor = new ClientRequestor(session, managementAddress);
+            requestors.put(managementAddress, requestor);
+        }
+        return requestor;
+    }
+
+    private void closeSession() {
+        requestors.clear();
+        if (session != null) {
+            try {
+                // Closes requestors as well
+                session.close();
+            } catch (ActiveMQException e) {
+                logger.debug("Failed to close management session", e);
+            }
+            session = null;
+        }
+        if (clientSessionFactory != null) {
+            clientSessionFactory.close();
+            clientSessionFactory = null;
+        }
+    }
+
+}
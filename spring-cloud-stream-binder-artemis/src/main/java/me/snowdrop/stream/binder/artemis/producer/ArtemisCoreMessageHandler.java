@@ -0,0 +1,573 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.producer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import me.snowdrop.stream.binder.artemis.codec.PayloadCodec;
+import me.snowdrop.stream.binder.artemis.common.CoreSessionFactory;
+import me.snowdrop.stream.binder.artemis.metrics.MessageSizes;
+import me.snowdrop.stream.binder.artemis.metrics.ProducerMetrics;
+import org.apache.activemq.artemis.api.core.ActiveMQException;
+import org.apache.activemq.artemis.api.core.RoutingType;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.api.core.client.ClientMessage;
+import org.apache.activemq.artemis.api.core.client.ClientProducer;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
+import org.apache.activemq.artemis.api.core.client.SendAcknowledgementHandler;
+import org.apache.activemq.artemis.reader.TextMessageUtil;
+import org.springframework.context.Lifecycle;
+import org.springframework.integration.handler.AbstractMessageHandler;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.ErrorMessage;
+
+import static me.snowdrop.stream.binder.artemis.common.ArtemisHeaders.COMPRESSION;
+import static me.snowdrop.stream.binder.artemis.producer.StreamingPayloads.closeQuietly;
+import static me.snowdrop.stream.binder.artemis.producer.StreamingPayloads.isStreaming;
+import static me.snowdrop.stream.binder.artemis.producer.StreamingPayloads.openStream;
+
+/**
+ * Message handler sending messages with an Artemis core client instead of a JMS template.
+ * <p>
+ * A single session is kept open while the handler is running, and a producer is created once for every address the
+ * handler sends to. {@code byte[]} payloads are written directly into a bytes message body and {@code String} payloads
+ * into a text message body, so JMS consumers receive the same message types they would receive from a JMS producer.
+ * {@link InputStream}, {@link java.nio.file.Path} and {@link org.springframework.core.io.Resource} payloads are streamed
+ * into a bytes message body, which the client sends as a large message if needed. Their streams are closed once sent.
+ * Header mapping follows {@link org.springframework.integration.jms.DefaultJmsHeaderMapper} conventions.
+ * <p>
+ * Core sessions are not thread safe, therefore sends are serialized.
+ * <p>
+ * In asynchronous mode the caller doesn't wait for the broker to acknowledge a message. Instead, acknowledged messages
+ * are published to a confirm ack channel and failed ones to a send failure channel. The number of unconfirmed messages
+ * is bounded and the caller blocks once the limit is reached.
+ * <p>
+ * With transactional batching messages are sent in a transacted session, which is committed once a
+ * {@link ProducerTransactionBatch} is full or expired. Only a commit waits for the broker. Messages of a batch which
+ * fails to commit are published to a send failure channel.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class ArtemisCoreMessageHandler extends AbstractMessageHandler implements Lifecycle {
+
+    private static final String CONTENT_TYPE_PROPERTY = "content_type";
+
+    private static final String JMS_HEADER_PREFIX = "jms_";
+
+    private static final String JMSX_PROPERTY_PREFIX = "JMSX";
+
+    private static final String PRIORITY_HEADER = "priority";
+
+    // Send acknowledgements are only delivered if confirmation window is enabled
+    private static final int DEFAULT_CONFIRMATION_WINDOW_SIZE = 1024 * 1024;
+
+    private static final long CONFIRMATIONS_TIMEOUT = 10000;
+
+    private final CoreSessionFactory sessionFactory;
+
+    private final Function<Message<?>, String> addressResolver;
+
+    private final Map<String, ClientProducer> producers = new HashMap<>();
+
+    private final Set<ConfirmationHandler> pendingConfirmations = ConcurrentHashMap.newKeySet();
+
+    private boolean asyncSend = false;
+
+    private int maxInFlight = 1000;
+
+    private String confirmAckChannelName;
+
+    private volatile MessageChannel confirmAckChannel;
+
+    private MessageChannel sendFailureChannel;
+
+    private ProducerMetrics producerMetrics = ProducerMetrics.NOOP;
+
+    private Semaphore inFlight;
+
+    private ProducerTransactionBatch transactionBatch;
+
+    private PayloadCodec compressionCodec;
+
+    private int compressionThreshold;
+
+    private ScheduledFuture<?> transactionBatchTimeout;
+
+    private CoreSessionFactory activeSessionFactory;
+
+    private ClientSessionFactory clientSessionFactory;
+
+    private ClientSession session;
+
+    private volatile boolean running;
+
+    /**
+     * @param sessionFactory  Factory to create a core session with.
+     * @param addressResolver Function resolving a target address of each message.
+     */
+    public ArtemisCoreMessageHandler(CoreSessionFactory sessionFactory,
+            Function<Message<?>, String> addressResolver) {
+        this.sessionFactory = sessionFactory;
+        this.addressResolver = addressResolver;
+        this.activeSessionFactory = sessionFactory;
+    }
+
+    /**
+     * @param asyncSend Whether messages should be sent without waiting for broker acknowledgements.
+     */
+    public void setAsyncSend(boolean asyncSend) {
+        this.asyncSend = asyncSend;
+    }
+
+    /**
+     * @param maxInFlight Maximum number of unconfirmed messages in asynchronous mode.
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * @param confirmAckChannelName Name of a channel to be resolved lazily and used as a confirm ack channel.
+     */
+    public void setConfirmAckChannelName(String confirmAckChannelName) {
+        this.confirmAckChannelName = confirmAckChannelName;
+    }
+
+    /**
+     * @param confirmAckChannel Channel to publish messages acknowledged by the broker in asynchronous mode.
+     */
+    public void setConfirmAckChannel(MessageChannel confirmAckChannel) {
+        this.confirmAckChannel = confirmAckChannel;
+    }
+
+    /**
+     * Enable transactional batching.
+     *
+     * @param maxSize  Maximum number of messages sent in a single transaction.
+     * @param maxBytes Maximum encoded size of messages sent in a single transaction. Non-positive means unlimited.
+     * @param timeout  Maximum time (in ms) since the first message in a transaction after which it has to be committed.
+     * @param adaptive Whether batch size should grow under load and shrink when idle.
+     */
+    public void setTransactionBatch(int maxSize, long maxBytes, long timeout, boolean adaptive) {
+        this.transactionBatch = new ProducerTransactionBatch(maxSize, maxBytes, timeout, adaptive);
+    }
+
+    /**
+     * Enable compression of {@code byte[]} payloads.
+     *
+     * @param codec     Codec to compress payloads with.
+     * @param threshold Minimum payload size (in bytes) to be compressed.
+     */
+    public void setCompression(PayloadCodec codec, int threshold) {
+        this.compressionCodec = codec;
+        this.compressionThreshold = threshold;
+    }
+
+    /**
+     * @param sendFailureChannel Channel to publish error messages for failed asynchronous sends and batch commits.
+     */
+    public void setSendFailureChannel(MessageChannel sendFailureChannel) {
+        this.sendFailureChannel = sendFailureChannel;
+    }
+
+    public void setProducerMetrics(ProducerMetrics producerMetrics) {
+        this.producerMetrics = producerMetrics;
+    }
+
+    @Override
+    public String getComponentType() {
+        return "artemis:outbound-channel-adapter";
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (asyncSend) {
+            inFlight = new Semaphore(maxInFlight);
+            activeSessionFactory = sessionFactory.copy(locator -> {
+                if (locator.getConfirmationWindowSize() <= 0) {
+                    locator.setConfirmationWindowSize(DEFAULT_CONFIRMATION_WINDOW_SIZE);
+                }
+            });
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (asyncSend && running) {
+            awaitConfirmations();
+        }
+
+        synchronized (this) {
+            running = false;
+            if (transactionBatch != null && !transactionBatch.isEmpty()) {
+                commitTransactionBatch(false);
+            }
+            close();
+            if (activeSessionFactory != sessionFactory) {
+                activeSessionFactory.close();
+                activeSessionFactory = sessionFactory;
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    protected void handleMessageInternal(Message<?> message) {
+        long start = System.nanoTime();
+        try {
+            send(message);
+        } catch (RuntimeException e) {
+            producerMetrics.recordFailure();
+            throw e;
+        }
+        producerMetrics.recordSend(System.nanoTime() - start, MessageSizes.of(message.getPayload()));
+    }
+
+    private void send(Message<?> message) {
+        if (!isStreaming(message.getPayload())) {
+            send(message, null);
+            return;
+        }
+
+        InputStream bodyStream = openStream(message);
+        try {
+            send(message, bodyStream);
+        } finally {
+            closeQuietly(bodyStream);
+        }
+    }
+
+    private void send(Message<?> message, InputStream bodyStream) {
+        String address = addressResolver.apply(message);
+
+        if (asyncSend) {
+            acquireInFlightPermit(message);
+        }
+
+        synchronized (this) {
+            ConfirmationHandler confirmationHandler = null;
+            try {
+                ClientSession session = getSession();
+                ClientProducer producer = getProducer(session, address);
+                ClientMessage clientMessage = toClientMessage(session, message, bodyStream);
+                if (asyncSend) {
+                    confirmationHandler = new ConfirmationHandler(message);
+                    pendingConfirmations.add(confirmationHandler);
+                    producer.send(clientMessage, confirmationHandler);
+                } else {
+                    producer.send(clientMessage);
+                }
+                if (transactionBatch != null) {
+                    addToTransactionBatch(message, clientMessage);
+                }
+            } catch (ActiveMQException e) {
+                discardConfirmation(confirmationHandler);
+                close();
+                throw new MessageDeliveryException(message,
+                        String.format("Failed to send message to address '%s'", address), e);
+            } catch (RuntimeException e) {
+                discardConfirmation(confirmationHandler);
+                throw e;
+            }
+        }
+    }
+
+    private void addToTransactionBatch(Message<?> message, ClientMessage clientMessage) {
+        boolean first = transactionBatch.isEmpty();
+        transactionBatch.add(message, clientMessage.getEncodeSize());
+
+        if (transactionBatch.isFull()) {
+            commitTransactionBatch(true);
+        } else if (first) {
+            transactionBatchTimeout = getTaskScheduler().schedule(this::commitExpiredTransactionBatch,
+                    new Date(System.currentTimeMillis() + transactionBatch.getTimeout()));
+        }
+    }
+
+    private synchronized void commitExpiredTransactionBatch() {
+        if (transactionBatch.isExpired(System.currentTimeMillis())) {
+            commitTransactionBatch(false);
+        }
+    }
+
+    private void commitTransactionBatch(boolean full) {
+        if (transactionBatchTimeout != null) {
+            transactionBatchTimeout.cancel(false);
+            transactionBatchTimeout = null;
+        }
+
+        List<Message<?>> messages = transactionBatch.complete(full);
+        try {
+            session.commit();
+        } catch (ActiveMQException e) {
+            close();
+            messages.forEach(message -> publishFailure(message, e));
+        }
+        logger.trace(() -> "Committed " + messages.size() + " messages, next batch size is "
+                + transactionBatch.getTargetSize());
+    }
+
+    private void acquireInFlightPermit(Message<?> message) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessageDeliveryException(message, "Interrupted while waiting for in-flight messages", e);
+        }
+    }
+
+    private void discardConfirmation(ConfirmationHandler confirmationHandler) {
+        if (confirmationHandler == null) {
+            if (asyncSend) {
+                // Permit was acquired but the message never reached the producer
+                inFlight.release();
+            }
+        } else if (pendingConfirmations.remove(confirmationHandler)) {
+            inFlight.release();
+        }
+    }
+
+    private void awaitConfirmations() {
+        try {
+            if (inFlight.tryAcquire(maxInFlight, CONFIRMATIONS_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                inFlight.release(maxInFlight);
+            } else {
+                logger.warn(() -> "Timed out waiting for " + pendingConfirmations.size()
+                        + " messages to be confirmed");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publishConfirmation(Message<?> message) {
+        MessageChannel channel = getConfirmAckChannel();
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.send(message);
+        } catch (RuntimeException e) {
+            logger.error(e, "Failed to publish send confirmation");
+        }
+    }
+
+    private void publishFailure(Message<?> message, Exception cause) {
+        producerMetrics.recordFailure();
+        MessageDeliveryException exception = new MessageDeliveryException(message, "Failed to send message", cause);
+        if (sendFailureChannel == null) {
+            logger.error(exception, "Send failed and no send failure channel is configured");
+            return;
+        }
+        try {
+            sendFailureChannel.send(new ErrorMessage(exception, message));
+        } catch (RuntimeException e) {
+            logger.error(e, "Failed to publish send failure");
+        }
+    }
+
+    private MessageChannel getConfirmAckChannel() {
+        if (confirmAckChannel == null && confirmAckChannelName != null) {
+            confirmAckChannel = getChannelResolver().resolveDestination(confirmAckChannelName);
+        }
+        return confirmAckChannel;
+    }
+
+    private ClientSession getSession() throws ActiveMQException {
+        if (session != null && !session.isClosed()) {
+            return session;
+        }
+
+        close();
+        try {
+            clientSessionFactory = activeSessionFactory.createSessionFactory();
+            session = activeSessionFactory.createSession(clientSessionFactory, transactionBatch == null, true);
+        } catch (ActiveMQException e) {
+            close();
+            throw e;
+        } catch (Exception e) {
+            close();
+            throw new IllegalStateException("Failed to create core session", e);
+        }
+
+        return session;
+    }
+
+    private ClientProducer getProducer(ClientSession session, String address) throws ActiveMQException {
+        ClientProducer producer = producers.get(address);
+        if (producer == null || producer.isClosed()) {
+            producer = session.createProducer(SimpleString.toSimpleString(address));
+            producers.put(address, producer);
+        }
+
+        return producer;
+    }
+
+    private ClientMessage toClientMessage(ClientSession session, Message<?> message, InputStream bodyStream) {
+        Object payload = message.getPayload();
+        ClientMessage clientMessage;
+
+        if (bodyStream != null) {
+            clientMessage = session.createMessage(org.apache.activemq.artemis.api.core.Message.BYTES_TYPE, true);
+            clientMessage.setBodyInputStream(bodyStream);
+        } else if (payload instanceof byte[]) {
+            clientMessage = session.createMessage(org.apache.activemq.artemis.api.core.Message.BYTES_TYPE, true);
+            byte[] bytes = (byte[]) payload;
+            if (compressionCodec != null && bytes.length >= compressionThreshold) {
+                bytes = compress(message, bytes);
+                clientMessage.putStringProperty(COMPRESSION, compressionCodec.getName());
+            }
+            clientMessage.getBodyBuffer()
+                    .writeBytes(bytes);
+        } else if (payload instanceof String) {
+            clientMessage = session.createMessage(org.apache.activemq.artemis.api.core.Message.TEXT_TYPE, true);
+            TextMessageUtil.writeBodyText(clientMessage.getBodyBuffer(), SimpleString.toSimpleString((String) payload));
+        } else {
+            throw new MessageHandlingException(message,
+                    "Unsupported payload type " + payload.getClass().getName()
+                            + ". Expected byte[], String, InputStream, Path or Resource");
+        }
+
+        clientMessage.setRoutingType(RoutingType.MULTICAST);
+        clientMessage.setTimestamp(System.currentTimeMillis());
+        mapHeaders(message.getHeaders(), clientMessage);
+
+        return clientMessage;
+    }
+
+    private byte[] compress(Message<?> message, byte[] payload) {
+        try {
+            return compressionCodec.encode(payload);
+        } catch (IOException e) {
+            throw new MessageHandlingException(message,
+                    String.format("Failed to compress payload with '%s' codec", compressionCodec.getName()), e);
+        }
+    }
+
+    private void mapHeaders(MessageHeaders headers, ClientMessage clientMessage) {
+        headers.forEach((name, value) -> {
+            if (value == null || MessageHeaders.ID.equals(name) || MessageHeaders.TIMESTAMP.equals(name)
+                    || COMPRESSION.equals(name) || name.startsWith(JMS_HEADER_PREFIX)
+                    || name.startsWith(JMSX_PROPERTY_PREFIX)) {
+                return;
+            }
+            if (PRIORITY_HEADER.equals(name)) {
+                if (value instanceof Number) {
+                    clientMessage.setPriority(((Number) value).byteValue());
+                }
+                return;
+            }
+            if (MessageHeaders.CONTENT_TYPE.equals(name)) {
+                clientMessage.putStringProperty(CONTENT_TYPE_PROPERTY, value.toString());
+                return;
+            }
+            if (isSupportedPropertyType(value)) {
+                clientMessage.putObjectProperty(name, value);
+            } else {
+                logger.debug(() -> "Skipping header '" + name + "' of unsupported type " + value.getClass().getName());
+            }
+        });
+    }
+
+    private boolean isSupportedPropertyType(Object value) {
+        return value instanceof String || value instanceof Boolean || value instanceof Byte || value instanceof Short
+                || value instanceof Integer || value instanceof Long || value instanceof Float
+                || value instanceof Double;
+    }
+
+    private void close() {
+        producers.clear();
+        // Confirmations of messages sent with a closed session would never arrive
+        pendingConfirmations.forEach(handler -> handler.sendFailed(null,
+                new IllegalStateException("Session was closed before the message was confirmed")));
+        // Uncommitted messages are discarded together with a session
+        if (transactionBatch != null && !transactionBatch.isEmpty()) {
+            Exception cause = new IllegalStateException("Session was closed before the transaction was committed");
+            transactionBatch.complete(false)
+                    .forEach(message -> publishFailure(message, cause));
+        }
+        if (session != null) {
+            try {
+                session.close();
+            } catch (ActiveMQException e) {
+                logger.debug(e, "Failed to close core session");
+            }
+            session = null;
+        }
+        if (clientSessionFactory != null) {
+            clientSessionFactory.close();
+            clientSessionFactory = null;
+        }
+    }
+
+    private final class ConfirmationHandler implements SendAcknowledgementHandler {
+
+        private final Message<?> message;
+
+        private ConfirmationHandler(Message<?> message) {
+            this.message = message;
+        }
+
+        @Override
+        public void sendAcknowledged(org.apache.activemq.artemis.api.core.Message clientMessage) {
+            if (complete()) {
+                publishConfirmation(message);
+            }
+        }
+
+        @Override
+        public void sendFailed(org.apache.activemq.artemis.api.core.Message clientMessage, Exception exception) {
+            if (complete()) {
+                publishFailure(message, exception);
+            }
+        }
+
+        private boolean complete() {
+            if (pendingConfirmations.remove(this)) {
+                inFlight.release();
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+}
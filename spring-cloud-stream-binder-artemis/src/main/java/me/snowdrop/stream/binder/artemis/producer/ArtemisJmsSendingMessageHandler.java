@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.producer;
+
+import java.io.InputStream;
+
+import me.snowdrop.stream.binder.artemis.metrics.MessageSizes;
+import me.snowdrop.stream.binder.artemis.metrics.ProducerMetrics;
+import org.springframework.integration.jms.JmsSendingMessageHandler;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.messaging.Message;
+
+import static me.snowdrop.stream.binder.artemis.producer.StreamingPayloads.closeQuietly;
+import static me.snowdrop.stream.binder.artemis.producer.StreamingPayloads.isStreaming;
+import static me.snowdrop.stream.binder.artemis.producer.StreamingPayloads.openStream;
+
+/**
+ * JMS sending message handler which supports {@link InputStream}, {@link java.nio.file.Path} and
+ * {@link org.springframework.core.io.Resource} payloads. Such payloads are passed to the message converter as an
+ * input stream, which is closed once the message is sent. Every send is recorded in {@link ProducerMetrics}.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class ArtemisJmsSendingMessageHandler extends JmsSendingMessageHandler {
+
+    private ProducerMetrics producerMetrics = ProducerMetrics.NOOP;
+
+    public ArtemisJmsSendingMessageHandler(JmsTemplate jmsTemplate) {
+        super(jmsTemplate);
+    }
+
+    public void setProducerMetrics(ProducerMetrics producerMetrics) {
+        this.producerMetrics = producerMetrics;
+    }
+
+    @Override
+    protected void handleMessageInternal(Message<?> message) {
+        long start = System.nanoTime();
+        try {
+            send(message);
+        } catch (RuntimeException e) {
+            producerMetrics.recordFailure();
+            throw e;
+        }
+        producerMetrics.recordSend(System.nanoTime() - start, MessageSizes.of(message.getPayload()));
+    }
+
+    private void send(Message<?> message) {
+        if (!isStreaming(message.getPayload())) {
+            super.handleMessageInternal(message);
+            return;
+        }
+
+        InputStream stream = openStream(message);
+        try {
+            if (stream == message.getPayload()) {
+                super.handleMessageInternal(message);
+            } else {
+                super.handleMessageInternal(MessageBuilder.withPayload(stream)
+                        .copyHeaders(message.getHeaders())
+                        .build());
+            }
+        } finally {
+            closeQuietly(stream);
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.producer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.messaging.Message;
+
+/**
+ * Messages sent in the current producer transaction.
+ * <p>
+ * Batch is full once it reaches its target size or byte budget, and expired once its first message is older than the
+ * timeout. In adaptive mode target size starts at one, doubles every time a batch fills up before the timeout and is
+ * halved every time a batch expires, so batches grow under load and shrink when traffic slows down.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+class ProducerTransactionBatch {
+
+    private final int maxSize;
+
+    private final long maxBytes;
+
+    private final long timeout;
+
+    private final boolean adaptive;
+
+    private final List<Message<?>> messages = new ArrayList<>();
+
+    private long bytes;
+
+    private long firstMessageTime;
+
+    private int targetSize;
+
+    /**
+     * @param maxSize  Maximum number of messages in a batch.
+     * @param maxBytes Maximum encoded size of messages in a batch. Non-positive value means unlimited.
+     * @param timeout  Maximum time (in ms) since the first message after which a batch has to be committed.
+     * @param adaptive Whether batch size should be adjusted to the traffic.
+     */
+    ProducerTransactionBatch(int maxSize, long maxBytes, long timeout, boolean adaptive) {
+        this.maxSize = maxSize;
+        this.maxBytes = maxBytes;
+        this.timeout = timeout;
+        this.adaptive = adaptive;
+        this.targetSize = adaptive ? 1 : maxSize;
+    }
+
+    void add(Message<?> message, long size) {
+        if (messages.isEmpty()) {
+            firstMessageTime = System.currentTimeMillis();
+        }
+        messages.add(message);
+        bytes += size;
+    }
+
+    boolean isEmpty() {
+        return messages.isEmpty();
+    }
+
+    boolean isFull() {
+        return messages.size() >= targetSize || (maxBytes > 0 && bytes >= maxBytes);
+    }
+
+    boolean isExpired(long now) {
+        return !messages.isEmpty() && now - firstMessageTime >= timeout;
+    }
+
+    long getTimeout() {
+        return timeout;
+    }
+
+    int getTargetSize() {
+        return targetSize;
+    }
+
+    /**
+     * Complete the batch, adjust the target size if needed and start a new batch.
+     *
+     * @param full Whether batch is completed because it is full rather than expired or flushed.
+     * @return messages of the completed batch.
+     */
+    List<Message<?>> complete(boolean full) {
+        if (adaptive) {
+            targetSize = full ? Math.min(maxSize, targetSize * 2) : Math.max(1, targetSize / 2);
+        }
+
+        List<Message<?>> completed = new ArrayList<>(messages);
+        messages.clear();
+        bytes = 0;
+
+        return completed;
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.producer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.springframework.core.io.Resource;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
+
+/**
+ * Helpers for payloads which are streamed to the broker as large messages instead of being loaded into memory.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+final class StreamingPayloads {
+
+    private StreamingPayloads() {
+    }
+
+    static boolean isStreaming(Object payload) {
+        return payload instanceof InputStream || payload instanceof Path || payload instanceof Resource;
+    }
+
+    /**
+     * Open a stream of the message payload.
+     *
+     * @param message Message with a streaming payload.
+     * @return payload stream, which has to be closed by the caller.
+     * @throws MessageHandlingException if stream cannot be opened.
+     */
+    static InputStream openStream(Message<?> message) {
+        Object payload = message.getPayload();
+        try {
+            if (payload instanceof Path) {
+                return Files.newInputStream((Path) payload);
+            }
+            if (payload instanceof Resource) {
+                return ((Resource) payload).getInputStream();
+            }
+            return (InputStream) payload;
+        } catch (IOException e) {
+            throw new MessageHandlingException(message, "Failed to open payload stream", e);
+        }
+    }
+
+    static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+            // Stream is usually closed by the Artemis client once it's fully sent
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.properties;
+
+import me.snowdrop.stream.binder.artemis.provisioning.ArtemisBrokerManager;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Binder wide properties, which are not specific to a single binding.
+ *
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@ConfigurationProperties("spring.cloud.stream.artemis.binder")
+public class ArtemisBinderConfigurationProperties {
+
+    private boolean queueMetricsEnabled = false;
+
+    private long queueMetricsInterval = 10000;
+
+    private int provisioningConcurrency = 8;
+
+    private int provisioningCacheSize = ArtemisBrokerManager.DEFAULT_CACHE_SIZE;
+
+    private long provisioningCacheTtl = ArtemisBrokerManager.DEFAULT_CACHE_TTL;
+
+    private Integer dispatchPoolSize;
+
+    public boolean isQueueMetricsEnabled() {
+        return queueMetricsEnabled;
+    }
+
+    public void setQueueMetricsEnabled(boolean queueMetricsEnabled) {
+        this.queueMetricsEnabled = queueMetricsEnabled;
+    }
+
+    public long getQueueMetricsInterval() {
+        return queueMetricsInterval;
+    }
+
+    public void setQueueMetricsInterval(long queueMetricsInterval) {
+        this.queueMetricsInterval = queueMetricsInterval;
+    }
+
+    public int getProvisioningConcurrency() {
+        return provisioningConcurrency;
+    }
+
+    public void setProvisioningConcurrency(int provisioningConcurrency) {
+        this.provisioningConcurrency = provisioningConcurrency;
+    }
+
+    public int getProvisioningCacheSize() {
+        return provisioningCacheSize;
+    }
+
+    public void setProvisioningCacheSize(int provisioningCacheSize) {
+        this.provisioningCacheSize = provisioningCacheSize;
+    }
+
+    public long getProvisioningCacheTtl() {
+        return provisioningCacheTtl;
+    }
+
+    public void setProvisioningCacheTtl(long provisioningCacheTtl) {
+        this.provisioningCacheTtl = provisioningCacheTtl;
+    }
+
+    public Integer getDispatchPoolSize() {
+        return dispatchPoolSize;
+    }
+
+    public void setDispatchPoolSize(Integer dispatchPoolSize) {
+        this.dispatchPoolSize = dispatchPoolSize;
+    }
+
+}
@@ -41,6 +41,44 @@ public class ArtemisCommonProperties {
 
     private boolean brokerSendToDlaOnNoRoute = false;
 
+    // Following broker settings are only modified if set
+
+    private Long brokerMaxSizeBytes;
+
+    private Integer brokerPageSizeBytes;
+
+    private Integer brokerPageCacheMaxSize;
+
+    private AddressFullMessagePolicy brokerAddressFullMessagePolicy;
+
+    private Long brokerRedistributionDelay;
+
+    private Long brokerSlowConsumerThreshold;
+
+    private Long brokerSlowConsumerCheckPeriod;
+
+    private SlowConsumerPolicy brokerSlowConsumerPolicy;
+
+    // Following queue settings use broker defaults if not set
+
+    private Integer queueMaxConsumers;
+
+    private Boolean queueExclusive;
+
+    private Integer queueConsumersBeforeDispatch;
+
+    private Long queueDelayBeforeDispatch;
+
+    private String queueLastValueKey;
+
+    private Boolean queueNonDestructive;
+
+    private Long queueRingSize;
+
+    private String queueFilter;
+
+    private boolean queueDurable = true;
+
     public String getManagementAddress() {
         return managementAddress;
     }
@@ -124,4 +162,154 @@ public class ArtemisCommonProperties {
         this.brokerSendToDlaOnNoRoute = brokerSendToDlaOnNoRoute;
     }
 
+    public Long getBrokerMaxSizeBytes() {
+        return brokerMaxSizeBytes;
+    }
+
+    public void setBrokerMaxSizeBytes(Long brokerMaxSizeBytes) {
+        this.brokerMaxSizeBytes = brokerMaxSizeBytes;
+    }
+
+    public Integer getBrokerPageSizeBytes() {
+        return brokerPageSizeBytes;
+    }
+
+    public void setBrokerPageSizeBytes(Integer brokerPageSizeBytes) {
+        this.brokerPageSizeBytes = brokerPageSizeBytes;
+    }
+
+    public Integer getBrokerPageCacheMaxSize() {
+        return brokerPageCacheMaxSize;
+    }
+
+    public void setBrokerPageCacheMaxSize(Integer brokerPageCacheMaxSize) {
+        this.brokerPageCacheMaxSize = brokerPageCacheMaxSize;
+    }
+
+    public AddressFullMessagePolicy getBrokerAddressFullMessagePolicy() {
+        return brokerAddressFullMessagePolicy;
+    }
+
+    public void setBrokerAddressFullMessagePolicy(AddressFullMessagePolicy brokerAddressFullMessagePolicy) {
+        this.brokerAddressFullMessagePolicy = brokerAddressFullMessagePolicy;
+    }
+
+    public Long getBrokerRedistributionDelay() {
+        return brokerRedistributionDelay;
+    }
+
+    public void setBrokerRedistributionDelay(Long brokerRedistributionDelay) {
+        this.brokerRedistributionDelay = brokerRedistributionDelay;
+    }
+
+    public Long getBrokerSlowConsumerThreshold() {
+        return brokerSlowConsumerThreshold;
+    }
+
+    public void setBrokerSlowConsumerThreshold(Long brokerSlowConsumerThreshold) {
+        this.brokerSlowConsumerThreshold = brokerSlowConsumerThreshold;
+    }
+
+    public Long getBrokerSlowConsumerCheckPeriod() {
+        return brokerSlowConsumerCheckPeriod;
+    }
+
+    public void setBrokerSlowConsumerCheckPeriod(Long brokerSlowConsumerCheckPeriod) {
+        this.brokerSlowConsumerCheckPeriod = brokerSlowConsumerCheckPeriod;
+    }
+
+    public SlowConsumerPolicy getBrokerSlowConsumerPolicy() {
+        return brokerSlowConsumerPolicy;
+    }
+
+    public void setBrokerSlowConsumerPolicy(SlowConsumerPolicy brokerSlowConsumerPolicy) {
+        this.brokerSlowConsumerPolicy = brokerSlowConsumerPolicy;
+    }
+
+    public Integer getQueueMaxConsumers() {
+        return queueMaxConsumers;
+    }
+
+    public void setQueueMaxConsumers(Integer queueMaxConsumers) {
+        this.queueMaxConsumers = queueMaxConsumers;
+    }
+
+    public Boolean getQueueExclusive() {
+        return queueExclusive;
+    }
+
+    public void setQueueExclusive(Boolean queueExclusive) {
+        this.queueExclusive = queueExclusive;
+    }
+
+    public Integer getQueueConsumersBeforeDispatch() {
+        return queueConsumersBeforeDispatch;
+    }
+
+    public void setQueueConsumersBeforeDispatch(Integer queueConsumersBeforeDispatch) {
+        this.queueConsumersBeforeDispatch = queueConsumersBeforeDispatch;
+    }
+
+    public Long getQueueDelayBeforeDispatch() {
+        return queueDelayBeforeDispatch;
+    }
+
+    public void setQueueDelayBeforeDispatch(Long queueDelayBeforeDispatch) {
+        this.queueDelayBeforeDispatch = queueDelayBeforeDispatch;
+    }
+
+    public String getQueueLastValueKey() {
+        return queueLastValueKey;
+    }
+
+    public void setQueueLastValueKey(String queueLastValueKey) {
+        this.queueLastValueKey = queueLastValueKey;
+    }
+
+    public Boolean getQueueNonDestructive() {
+        return queueNonDestructive;
+    }
+
+    public void setQueueNonDestructive(Boolean queueNonDestructive) {
+        this.queueNonDestructive = queueNonDestructive;
+    }
+
+    public Long getQueueRingSize() {
+        return queueRingSize;
+    }
+
+    public void setQueueRingSize(Long queueRingSize) {
+        this.queueRingSize = queueRingSize;
+    }
+
+    public String getQueueFilter() {
+        return queueFilter;
+    }
+
+    public void setQueueFilter(String queueFilter) {
+        this.queueFilter = queueFilter;
+    }
+
+    public boolean isQueueDurable() {
+        return queueDurable;
+    }
+
+    public void setQueueDurable(boolean queueDurable) {
+        this.queueDurable = queueDurable;
+    }
+
+    /**
+     * What broker should do with messages sent to an address which reached its max size.
+     */
+    public enum AddressFullMessagePolicy {
+        PAGE, BLOCK, DROP, FAIL
+    }
+
+    /**
+     * What broker should do with consumers which are slower than the slow consumer threshold.
+     */
+    public enum SlowConsumerPolicy {
+        KILL, NOTIFY
+    }
+
 }
@@ -20,4 +20,193 @@ package me.snowdrop.stream.binder.artemis.properties;
  * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
  */
 public class ArtemisConsumerProperties extends ArtemisCommonProperties {
+
+    private int maxConcurrency = 1;
+
+    private int transactionBatchSize = 1;
+
+    private long transactionBatchTimeout = 1000;
+
+    private int batchSize = 100;
+
+    private long batchTimeout = 1000;
+
+    private boolean streamPayload = false;
+
+    private String largeMessageDirectory;
+
+    private RetryStrategy retryStrategy = RetryStrategy.BLOCKING;
+
+    private Integer consumerWindowSize;
+
+    private boolean adaptiveConsumerWindow = false;
+
+    private ContainerType containerType = ContainerType.POLLING;
+
+    private Integer dispatchPoolSize;
+
+    private int dispatchWeight = 1;
+
+    private int dispatchMinThreads = 0;
+
+    private int dispatchMaxThreads = 0;
+
+    private boolean virtualThreads = false;
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getTransactionBatchSize() {
+        return transactionBatchSize;
+    }
+
+    public void setTransactionBatchSize(int transactionBatchSize) {
+        this.transactionBatchSize = transactionBatchSize;
+    }
+
+    public long getTransactionBatchTimeout() {
+        return transactionBatchTimeout;
+    }
+
+    public void setTransactionBatchTimeout(long transactionBatchTimeout) {
+        this.transactionBatchTimeout = transactionBatchTimeout;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getBatchTimeout() {
+        return batchTimeout;
+    }
+
+    public void setBatchTimeout(long batchTimeout) {
+        this.batchTimeout = batchTimeout;
+    }
+
+    public boolean isStreamPayload() {
+        return streamPayload;
+    }
+
+    public void setStreamPayload(boolean streamPayload) {
+        this.streamPayload = streamPayload;
+    }
+
+    public String getLargeMessageDirectory() {
+        return largeMessageDirectory;
+    }
+
+    public void setLargeMessageDirectory(String largeMessageDirectory) {
+        this.largeMessageDirectory = largeMessageDirectory;
+    }
+
+    public RetryStrategy getRetryStrategy() {
+        return retryStrategy;
+    }
+
+    public void setRetryStrategy(RetryStrategy retryStrategy) {
+        this.retryStrategy = retryStrategy;
+    }
+
+    public Integer getConsumerWindowSize() {
+        return consumerWindowSize;
+    }
+
+    public void setConsumerWindowSize(Integer consumerWindowSize) {
+        this.consumerWindowSize = consumerWindowSize;
+    }
+
+    public boolean isAdaptiveConsumerWindow() {
+        return adaptiveConsumerWindow;
+    }
+
+    public void setAdaptiveConsumerWindow(boolean adaptiveConsumerWindow) {
+        this.adaptiveConsumerWindow = adaptiveConsumerWindow;
+    }
+
+    public ContainerType getContainerType() {
+        return containerType;
+    }
+
+    public void setContainerType(ContainerType containerType) {
+        this.containerType = containerType;
+    }
+
+    public Integer getDispatchPoolSize() {
+        return dispatchPoolSize;
+    }
+
+    public void setDispatchPoolSize(Integer dispatchPoolSize) {
+        this.dispatchPoolSize = dispatchPoolSize;
+    }
+
+    public int getDispatchWeight() {
+        return dispatchWeight;
+    }
+
+    public void setDispatchWeight(int dispatchWeight) {
+        this.dispatchWeight = dispatchWeight;
+    }
+
+    public int getDispatchMinThreads() {
+        return dispatchMinThreads;
+    }
+
+    public void setDispatchMinThreads(int dispatchMinThreads) {
+        this.dispatchMinThreads = dispatchMinThreads;
+    }
+
+    public int getDispatchMaxThreads() {
+        return dispatchMaxThreads;
+    }
+
+    public void setDispatchMaxThreads(int dispatchMaxThreads) {
+        this.dispatchMaxThreads = dispatchMaxThreads;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * How failed deliveries are retried.
+     */
+    public enum RetryStrategy {
+        /**
+         * Retry on the consumer thread, sleeping between the attempts.
+         */
+        BLOCKING,
+        /**
+         * Roll back the session and let broker redeliver the message after its redelivery delay.
+         */
+        REDELIVERY
+    }
+
+    /**
+     * How consumers of a binding receive messages.
+     */
+    public enum ContainerType {
+        /**
+         * Every consumer has its own thread which waits for messages in a receive loop.
+         */
+        POLLING,
+        /**
+         * Broker pushes messages to the consumers, which handle them on a thread of the connection's dispatch pool.
+         */
+        EVENT_DRIVEN
+    }
+
 }
@@ -20,4 +20,105 @@ package me.snowdrop.stream.binder.artemis.properties;
  * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
  */
 public class ArtemisProducerProperties extends ArtemisCommonProperties {
+
+    private boolean nativeProducer = false;
+
+    private boolean asyncSend = false;
+
+    private int maxInFlight = 1000;
+
+    private String confirmAckChannel;
+
+    private int transactionBatchSize = 1;
+
+    private long transactionBatchMaxBytes = 0;
+
+    private long transactionBatchTimeout = 100;
+
+    private boolean adaptiveTransactionBatch = false;
+
+    private String compression;
+
+    private int compressionThreshold = 1024;
+
+    public boolean isNativeProducer() {
+        return nativeProducer;
+    }
+
+    public void setNativeProducer(boolean nativeProducer) {
+        this.nativeProducer = nativeProducer;
+    }
+
+    public boolean isAsyncSend() {
+        return asyncSend;
+    }
+
+    public void setAsyncSend(boolean asyncSend) {
+        this.asyncSend = asyncSend;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public String getConfirmAckChannel() {
+        return confirmAckChannel;
+    }
+
+    public void setConfirmAckChannel(String confirmAckChannel) {
+        this.confirmAckChannel = confirmAckChannel;
+    }
+
+    public int getTransactionBatchSize() {
+        return transactionBatchSize;
+    }
+
+    public void setTransactionBatchSize(int transactionBatchSize) {
+        this.transactionBatchSize = transactionBatchSize;
+    }
+
+    public long getTransactionBatchMaxBytes() {
+        return transactionBatchMaxBytes;
+    }
+
+    public void setTransactionBatchMaxBytes(long transactionBatchMaxBytes) {
+        this.transactionBatchMaxBytes = transactionBatchMaxBytes;
+    }
+
+    public long getTransactionBatchTimeout() {
+        return transactionBatchTimeout;
+    }
+
+    public void setTransactionBatchTimeout(long transactionBatchTimeout) {
+        this.transactionBatchTimeout = transactionBatchTimeout;
+    }
+
+    public boolean isAdaptiveTransactionBatch() {
+        return adaptiveTransactionBatch;
+    }
+
+    public void setAdaptiveTransactionBatch(boolean adaptiveTransactionBatch) {
+        this.adaptiveTransactionBatch = adaptiveTransactionBatch;
+    }
+
+    public String getCompression() {
+        return compression;
+    }
+
+    public void setCompression(String compression) {
+        this.compression = compression;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
 }
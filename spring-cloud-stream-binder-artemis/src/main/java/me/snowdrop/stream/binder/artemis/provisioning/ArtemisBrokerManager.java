@@ -16,8 +16,13 @@
 
 package me.snowdrop.stream.binder.artemis.provisioning;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+
 import me.snowdrop.stream.binder.artemis.properties.ArtemisCommonProperties;
 import org.apache.activemq.artemis.api.core.ActiveMQException;
+import org.apache.activemq.artemis.api.core.ActiveMQExceptionType;
+import org.apache.activemq.artemis.api.core.QueueConfiguration;
 import org.apache.activemq.artemis.api.core.RoutingType;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.api.core.client.ClientMessage;
@@ -28,15 +33,30 @@ import org.apache.activemq.artemis.api.core.client.ServerLocator;
 import org.apache.activemq.artemis.api.core.management.AddressSettingsInfo;
 import org.apache.activemq.artemis.api.core.management.ManagementHelper;
 import org.apache.activemq.artemis.api.core.management.ResourceNames;
+import org.apache.activemq.artemis.utils.SelectorTranslator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.stream.provisioning.ProvisioningException;
 
 /**
+ * Provisions addresses and queues on the broker.
+ * <p>
+ * All operations share a single session factory, and therefore a single connection, which is created on first use.
+ * Sessions are pooled and reused by subsequent operations. A session is discarded if an operation fails, and if the
+ * failure was caused by a lost connection, the session factory is recreated and the operation is retried once.
+ * <p>
+ * Addresses and queues which were provisioned or found on the broker are cached for a limited time, so that bindings
+ * of the same destination do not query the broker again. Cache entries of a resource are invalidated if its
+ * provisioning fails.
+ *
  * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
  */
 public class ArtemisBrokerManager {
 
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
+    public static final long DEFAULT_CACHE_TTL = 60000;
+
     private static final String DLQ_SUFFIX = "dlq";
 
     private static final String EXP_SUFFIX = "exp";
@@ -53,10 +73,35 @@ public class ArtemisBrokerManager {
 
     private final String password;
 
+    private final Deque<ClientSession> idleSessions = new ArrayDeque<>();
+
+    // Names of known addresses
+    private final ProvisioningCache<Boolean> addresses;
+
+    // Addresses of known queues by queue name
+    private final ProvisioningCache<String> queues;
+
+    private ClientSessionFactory sessionFactory;
+
     public ArtemisBrokerManager(ServerLocator serverLocator, String username, String password) {
+        this(serverLocator, username, password, DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL);
+    }
+
+    /**
+     * @param serverLocator Locator of the broker.
+     * @param username      Username or null if authentication is not needed.
+     * @param password      Password or null if authentication is not needed.
+     * @param cacheSize     Maximum number of cached addresses and, separately, queues. Cache is disabled if 0.
+     * @param cacheTtl      Time (in ms) after which a cached address or queue is queried from the broker again. Cache
+     *                      is disabled if 0.
+     */
+    public ArtemisBrokerManager(ServerLocator serverLocator, String username, String password, int cacheSize,
+            long cacheTtl) {
         this.serverLocator = serverLocator;
         this.username = username;
         this.password = password;
+        this.addresses = new ProvisioningCache<>(cacheSize, cacheTtl);
+        this.queues = new ProvisioningCache<>(cacheSize, cacheTtl);
     }
 
     /**
@@ -68,25 +113,31 @@ public class ArtemisBrokerManager {
      * @throws ProvisioningException if address creation fails for some reason.
      */
     public void createAddress(String name, ArtemisCommonProperties properties) {
+        if (addresses.get(name) != null) {
+            logger.debug("Address '{}' is already provisioned, ignoring", name);
+            return;
+        }
+
         logger.debug("Creating address '{}'", name);
 
         SimpleString nameString = SimpleString.toSimpleString(name);
 
-        try (ClientSessionFactory sessionFactory = serverLocator.createSessionFactory();
-             ClientSession session = getClientSession(sessionFactory)) {
-            session.start();
-            if (!session.addressQuery(nameString).isExists()) {
-                session.createAddress(nameString, RoutingType.MULTICAST, true);
-                if (properties.isModifyAddressSettings()) {
-                    configureAddress(session, name, properties);
+        try {
+            execute(session -> {
+                if (!session.addressQuery(nameString).isExists()) {
+                    session.createAddress(nameString, RoutingType.MULTICAST, true);
+                    if (properties.isModifyAddressSettings()) {
+                        configureAddress(session, name, properties);
+                    }
+                } else {
+                    logger.debug("Address '{}' already exists, ignoring", name);
                 }
-            } else {
-                logger.debug("Address '{}' already exists, ignoring", name);
-            }
-            session.stop();
+            });
         } catch (Exception e) {
+            addresses.invalidate(name);
             throw new ProvisioningException(String.format("Failed to create address '%s'", name), e);
         }
+        addresses.put(name, true);
     }
 
     /**
@@ -99,33 +150,186 @@ public class ArtemisBrokerManager {
      *                               for some other reason.
      */
     public void createQueue(String address, String name) {
-        try (ClientSessionFactory sessionFactory = serverLocator.createSessionFactory();
-             ClientSession session = getClientSession(sessionFactory)) {
-            createQueueInternal(session, address, name);
+        createQueue(address, name, null);
+    }
+
+    /**
+     * Create Artemis broker queue with provided address, name, multicast routing type and queue settings.
+     * If queue with provided name already exists under provided address method does nothing, i.e. settings of an
+     * existing queue are not changed.
+     *
+     * @param address    Name of an address with which queue should be associated.
+     * @param name       Name of a new queue.
+     * @param properties Properties with queue settings or null to use broker defaults.
+     * @throws ProvisioningException if queue with provided name exists under another address or queue creation fails
+     *                               for some other reason.
+     */
+    public void createQueue(String address, String name, ArtemisCommonProperties properties) {
+        if (address.equals(queues.get(name))) {
+            logger.debug("Queue '{}' is already provisioned, ignoring", name);
+            return;
+        }
+
+        try {
+            execute(session -> createQueueInternal(session, getQueueConfiguration(address, name, properties)));
         } catch (ProvisioningException e) {
+            queues.invalidate(name);
             throw e;
         } catch (Exception e) {
+            queues.invalidate(name);
             throw new ProvisioningException(
                     String.format("Failed to create queue '%s' with address '%s'", name, address), e);
         }
     }
 
-    private void createQueueInternal(ClientSession session, String address, String name) throws ActiveMQException {
+    /**
+     * Forget all cached addresses and queues, so that they are queried from the broker on the next provisioning.
+     */
+    public void clearCache() {
+        addresses.clear();
+        queues.clear();
+    }
+
+    /**
+     * Close pooled sessions and their session factory. Server locator is not closed, because it is not owned by the
+     * manager.
+     */
+    public synchronized void close() {
+        idleSessions.forEach(this::closeQuietly);
+        idleSessions.clear();
+        if (sessionFactory != null) {
+            sessionFactory.close();
+            sessionFactory = null;
+        }
+    }
+
+    private void execute(SessionCallback callback) throws Exception {
+        try {
+            executeOnce(callback);
+        } catch (ActiveMQException e) {
+            if (!isConnectionFailure(e)) {
+                throw e;
+            }
+            logger.debug("Provisioning connection failed, retrying with a new connection", e);
+            executeOnce(callback);
+        }
+    }
+
+    private void executeOnce(SessionCallback callback) throws Exception {
+        ClientSession session = borrowSession();
+        try {
+            callback.execute(session);
+        } catch (ProvisioningException e) {
+            releaseSession(session);
+            throw e;
+        } catch (Exception e) {
+            discardSession(session, e);
+            throw e;
+        }
+        releaseSession(session);
+    }
+
+    private ClientSession borrowSession() throws Exception {
+        ClientSessionFactory currentSessionFactory;
+        synchronized (this) {
+            ClientSession session = idleSessions.poll();
+            if (session != null) {
+                return session;
+            }
+            if (sessionFactory == null || sessionFactory.isClosed()) {
+                sessionFactory = serverLocator.createSessionFactory();
+            }
+            currentSessionFactory = sessionFactory;
+        }
+
+        ClientSession session = getClientSession(currentSessionFactory);
+        // Management replies are only received by a started session
+        session.start();
+        return session;
+    }
+
+    private synchronized void releaseSession(ClientSession session) {
+        if (session.getSessionFactory() == sessionFactory && !session.isClosed()) {
+            idleSessions.push(session);
+        } else {
+            closeQuietly(session);
+        }
+    }
+
+    private void discardSession(ClientSession session, Exception cause) {
+        closeQuietly(session);
+        if (isConnectionFailure(cause)) {
+            closeSessionFactory(session.getSessionFactory());
+        }
+    }
+
+    private synchronized void closeSessionFactory(ClientSessionFactory failedSessionFactory) {
+        if (failedSessionFactory != null && failedSessionFactory == sessionFactory) {
+            close();
+        }
+    }
+
+    private boolean isConnectionFailure(Exception e) {
+        if (!(e instanceof ActiveMQException)) {
+            return false;
+        }
+        ActiveMQExceptionType type = ((ActiveMQException) e).getType();
+        return type == ActiveMQExceptionType.NOT_CONNECTED || type == ActiveMQExceptionType.DISCONNECTED
+                || type == ActiveMQExceptionType.CONNECTION_TIMEDOUT || type == ActiveMQExceptionType.OBJECT_CLOSED;
+    }
+
+    private void closeQuietly(ClientSession session) {
+        try {
+            session.close();
+        } catch (ActiveMQException e) {
+            logger.debug("Failed to close provisioning session", e);
+        }
+    }
+
+    /**
+     * Get configuration of a multicast queue. Queue settings which are not set in the properties are left for the
+     * broker to default. Queue filter is expected in a JMS message selector syntax, same as the one used by consumers.
+     */
+    QueueConfiguration getQueueConfiguration(String address, String name, ArtemisCommonProperties properties) {
+        QueueConfiguration configuration = new QueueConfiguration(name)
+                .setAddress(address)
+                .setRoutingType(RoutingType.MULTICAST)
+                .setDurable(true);
+        if (properties == null) {
+            return configuration;
+        }
+
+        return configuration.setDurable(properties.isQueueDurable())
+                .setMaxConsumers(properties.getQueueMaxConsumers())
+                .setExclusive(properties.getQueueExclusive())
+                .setConsumersBeforeDispatch(properties.getQueueConsumersBeforeDispatch())
+                .setDelayBeforeDispatch(properties.getQueueDelayBeforeDispatch())
+                .setLastValueKey(properties.getQueueLastValueKey())
+                .setNonDestructive(properties.getQueueNonDestructive())
+                .setRingSize(properties.getQueueRingSize())
+                .setFilterString(SelectorTranslator.convertToActiveMQFilterString(properties.getQueueFilter()));
+    }
+
+    private void createQueueInternal(ClientSession session, QueueConfiguration configuration)
+            throws ActiveMQException {
+        String address = configuration.getAddress().toString();
+        String name = configuration.getName().toString();
         logger.debug("Creating queue '{}' with address '{}", name, address);
 
-        SimpleString addressString = SimpleString.toSimpleString(address);
-        SimpleString nameString = SimpleString.toSimpleString(name);
+        SimpleString addressString = configuration.getAddress();
+        SimpleString nameString = configuration.getName();
         ClientSession.QueueQuery queueQuery = session.queueQuery(nameString);
         if (!queueQuery.isExists()) {
-            session.createSharedQueue(addressString, RoutingType.MULTICAST, nameString, true);
+            session.createSharedQueue(configuration);
         } else if (!addressString.equals(queueQuery.getAddress())) {
             logger.debug("Queue '{}' already exists under another address '{}', failing", name, queueQuery.getAddress());
             throw new ProvisioningException(String.format(
                     "Failed to create queue '%s' with address '%s'. Queue already exists under another address '%s'",
                     name, address, queueQuery.getAddress()));
         } else {
-            logger.debug("Queue '{}' already exists, ignoring");
+            logger.debug("Queue '{}' already exists, ignoring", name);
         }
+        queues.put(name, address);
     }
 
     private void configureAddress(ClientSession session, String address, ArtemisCommonProperties properties)
@@ -134,12 +338,12 @@ public class ArtemisBrokerManager {
 
         if (properties.isAutoBindDeadLetterAddress()) {
             String dlqAddress = String.format("%s.%s", address, DLQ_SUFFIX);
-            createQueueInternal(session, dlqAddress, dlqAddress);
+            createQueueInternal(session, getQueueConfiguration(dlqAddress, dlqAddress, null));
         }
 
         if (properties.isAutoBindExpiryAddress()) {
             String expAddress = String.format("%s.%s", address, EXP_SUFFIX);
-            createQueueInternal(session, expAddress, expAddress);
+            createQueueInternal(session, getQueueConfiguration(expAddress, expAddress, null));
         }
     }
 
@@ -150,41 +354,58 @@ public class ArtemisBrokerManager {
         try (ClientRequestor requestor = new ClientRequestor(session, properties.getManagementAddress())) {
             AddressSettingsInfo currentSettings = getCurrentAddressSettings(session, requestor, address);
             ClientMessage request = session.createMessage(false);
-            Object[] updateParameters = new Object[]{
-                    address,
-                    properties.isAutoBindDeadLetterAddress()
-                            ? String.format("%s.%s", address, DLQ_SUFFIX)
-                            : currentSettings.getDeadLetterAddress(),
-                    properties.isAutoBindExpiryAddress()
-                            ? String.format("%s.%s", address, EXP_SUFFIX)
-                            : currentSettings.getExpiryAddress(),
-                    properties.getBrokerExpiryDelay(),
-                    currentSettings.isLastValueQueue(),
-                    properties.getBrokerMaxDeliveryAttempts(),
-                    currentSettings.getMaxSizeBytes(),
-                    currentSettings.getPageSizeBytes(),
-                    currentSettings.getPageCacheMaxSize(),
-                    properties.getBrokerRedeliveryDelay(),
-                    properties.getBrokerRedeliveryDelayMultiplier(),
-                    properties.getBrokerMaxRedeliveryDelay(),
-                    currentSettings.getRedistributionDelay(),
-                    properties.isBrokerSendToDlaOnNoRoute(),
-                    currentSettings.getAddressFullMessagePolicy(),
-                    currentSettings.getSlowConsumerThreshold(),
-                    currentSettings.getSlowConsumerCheckPeriod(),
-                    currentSettings.getSlowConsumerPolicy(),
-                    currentSettings.isAutoCreateJmsQueues(),
-                    currentSettings.isAutoDeleteJmsQueues(),
-                    currentSettings.isAutoCreateJmsTopics(),
-                    currentSettings.isAutoDeleteJmsTopics()
-            };
-
             ManagementHelper.putOperationInvocation(request, ResourceNames.BROKER, ADD_SETTINGS_OPERATION,
-                    updateParameters);
+                    getAddressSettingsParameters(address, properties, currentSettings));
             requestor.request(request);
         }
     }
 
+    /**
+     * Get parameters of the address settings update operation. Broker settings which are not set in the properties
+     * keep their current values.
+     */
+    Object[] getAddressSettingsParameters(String address, ArtemisCommonProperties properties,
+            AddressSettingsInfo currentSettings) {
+        return new Object[]{
+                address,
+                properties.isAutoBindDeadLetterAddress()
+                        ? String.format("%s.%s", address, DLQ_SUFFIX)
+                        : currentSettings.getDeadLetterAddress(),
+                properties.isAutoBindExpiryAddress()
+                        ? String.format("%s.%s", address, EXP_SUFFIX)
+                        : currentSettings.getExpiryAddress(),
+                properties.getBrokerExpiryDelay(),
+                currentSettings.isLastValueQueue(),
+                properties.getBrokerMaxDeliveryAttempts(),
+                getOrDefault(properties.getBrokerMaxSizeBytes(), currentSettings.getMaxSizeBytes()),
+                getOrDefault(properties.getBrokerPageSizeBytes(), currentSettings.getPageSizeBytes()),
+                getOrDefault(properties.getBrokerPageCacheMaxSize(), currentSettings.getPageCacheMaxSize()),
+                properties.getBrokerRedeliveryDelay(),
+                properties.getBrokerRedeliveryDelayMultiplier(),
+                properties.getBrokerMaxRedeliveryDelay(),
+                getOrDefault(properties.getBrokerRedistributionDelay(), currentSettings.getRedistributionDelay()),
+                properties.isBrokerSendToDlaOnNoRoute(),
+                getNameOrDefault(properties.getBrokerAddressFullMessagePolicy(),
+                        currentSettings.getAddressFullMessagePolicy()),
+                getOrDefault(properties.getBrokerSlowConsumerThreshold(), currentSettings.getSlowConsumerThreshold()),
+                getOrDefault(properties.getBrokerSlowConsumerCheckPeriod(),
+                        currentSettings.getSlowConsumerCheckPeriod()),
+                getNameOrDefault(properties.getBrokerSlowConsumerPolicy(), currentSettings.getSlowConsumerPolicy()),
+                currentSettings.isAutoCreateJmsQueues(),
+                currentSettings.isAutoDeleteJmsQueues(),
+                currentSettings.isAutoCreateJmsTopics(),
+                currentSettings.isAutoDeleteJmsTopics()
+        };
+    }
+
+    private <T> T getOrDefault(T value, T defaultValue) {
+        return value == null ? defaultValue : value;
+    }
+
+    private String getNameOrDefault(Enum<?> value, String defaultValue) {
+        return value == null ? defaultValue : value.name();
+    }
+
     private AddressSettingsInfo getCurrentAddressSettings(ClientSession session, ClientRequestor requestor,
             String address) throws Exception {
         ClientMessage request = session.createMessage(false);
@@ -204,4 +425,11 @@ public class ArtemisBrokerManager {
                 serverLocator.isPreAcknowledge(), serverLocator.getAckBatchSize());
     }
 
+    @FunctionalInterface
+    private interface SessionCallback {
+
+        void execute(ClientSession session) throws Exception;
+
+    }
+
 }
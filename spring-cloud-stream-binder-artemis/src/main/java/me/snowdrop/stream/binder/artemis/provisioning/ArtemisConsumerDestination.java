@@ -16,17 +16,26 @@
 
 package me.snowdrop.stream.binder.artemis.provisioning;
 
+import me.snowdrop.stream.binder.artemis.common.NamingUtils;
 import org.springframework.cloud.stream.provisioning.ConsumerDestination;
 
 /**
+ * Consumer destination of a single binding.
+ * <p>
+ * A group name is generated for each destination instance, so that all resources of an anonymous binding, including
+ * the ones released after it is unbound, are named consistently.
+ *
  * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
  */
 public class ArtemisConsumerDestination implements ConsumerDestination {
 
     private final String name;
 
+    private final String anonymousGroupName;
+
     public ArtemisConsumerDestination(String name) {
         this.name = name;
+        this.anonymousGroupName = NamingUtils.getAnonymousGroupName();
     }
 
     @Override
@@ -34,6 +43,13 @@ public class ArtemisConsumerDestination implements ConsumerDestination {
         return name;
     }
 
+    /**
+     * @return group name to be used by the binding of this destination if its group is anonymous.
+     */
+    public String getAnonymousGroupName() {
+        return anonymousGroupName;
+    }
+
     @Override
     public String toString() {
         return String.format("%s{name='%s'}", ArtemisConsumerDestination.class.getSimpleName(), name);
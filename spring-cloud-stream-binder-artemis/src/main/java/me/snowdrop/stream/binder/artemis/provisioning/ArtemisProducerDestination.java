@@ -16,19 +16,38 @@
 
 package me.snowdrop.stream.binder.artemis.provisioning;
 
+import org.apache.activemq.artemis.jms.client.ActiveMQTopic;
 import org.springframework.cloud.stream.provisioning.ProducerDestination;
 
 import static me.snowdrop.stream.binder.artemis.common.NamingUtils.getPartitionAddress;
 
 /**
+ * Producer destination with topics resolved upfront, so that routing a message doesn't require building
+ * and resolving destination names.
+ *
  * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
  */
 public class ArtemisProducerDestination implements ProducerDestination {
 
+    private static final ActiveMQTopic[] NO_PARTITIONS = new ActiveMQTopic[0];
+
     private final String name;
 
+    private final ActiveMQTopic topic;
+
+    private final ActiveMQTopic[] partitionTopics;
+
     public ArtemisProducerDestination(String name) {
+        this(name, 0);
+    }
+
+    public ArtemisProducerDestination(String name, int partitionCount) {
         this.name = name;
+        this.topic = new ActiveMQTopic(name);
+        this.partitionTopics = partitionCount > 0 ? new ActiveMQTopic[partitionCount] : NO_PARTITIONS;
+        for (int i = 0; i < partitionCount; i++) {
+            partitionTopics[i] = new ActiveMQTopic(getPartitionAddress(name, i));
+        }
     }
 
     @Override
@@ -38,9 +57,31 @@ public class ArtemisProducerDestination implements ProducerDestination {
 
     @Override
     public String getNameForPartition(int i) {
+        if (i >= 0 && i < partitionTopics.length) {
+            return partitionTopics[i].getAddress();
+        }
         return getPartitionAddress(name, i);
     }
 
+    public ActiveMQTopic getTopic() {
+        return topic;
+    }
+
+    /**
+     * Get a topic of the provided partition.
+     *
+     * @param partition Partition index.
+     * @return topic of the partition.
+     * @throws IllegalArgumentException if destination doesn't have such partition.
+     */
+    public ActiveMQTopic getPartitionTopic(int partition) {
+        if (partition < 0 || partition >= partitionTopics.length) {
+            throw new IllegalArgumentException(String.format("Partition '%d' is out of range, destination '%s' has %d "
+                    + "partitions", partition, name, partitionTopics.length));
+        }
+        return partitionTopics[partition];
+    }
+
     @Override
     public String toString() {
         return String.format("%s{name='%s'}", ArtemisProducerDestination.class.getSimpleName(), name);
@@ -16,9 +16,21 @@
 
 package me.snowdrop.stream.binder.artemis.provisioning;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+import me.snowdrop.stream.binder.artemis.metrics.BinderMetrics;
 import me.snowdrop.stream.binder.artemis.properties.ArtemisConsumerProperties;
 import me.snowdrop.stream.binder.artemis.properties.ArtemisProducerProperties;
 import org.slf4j.Logger;
@@ -29,11 +41,19 @@ import org.springframework.cloud.stream.provisioning.ConsumerDestination;
 import org.springframework.cloud.stream.provisioning.ProducerDestination;
 import org.springframework.cloud.stream.provisioning.ProvisioningException;
 import org.springframework.cloud.stream.provisioning.ProvisioningProvider;
+import org.springframework.util.StringUtils;
 
 import static me.snowdrop.stream.binder.artemis.common.NamingUtils.getPartitionAddress;
 import static me.snowdrop.stream.binder.artemis.common.NamingUtils.getQueueName;
 
 /**
+ * Provisions binding destinations.
+ * <p>
+ * Addresses of a partitioned producer destination, and queues of its required groups, are provisioned by up to
+ * {@link #setProvisioningConcurrency(int)} concurrent broker operations. All operations are completed even if some of
+ * them fail, and their failures are reported together. Operations run on a pool of daemon threads, which is shared by
+ * all destinations, created when it is first needed and stopped by {@link #close()}.
+ *
  * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
  */
 public class ArtemisProvisioningProvider implements ProvisioningProvider<
@@ -43,10 +63,40 @@ public class ArtemisProvisioningProvider implements ProvisioningProvider<
 
     private final ArtemisBrokerManager artemisBrokerManager;
 
+    private BinderMetrics binderMetrics = BinderMetrics.NOOP;
+
+    private int provisioningConcurrency = 1;
+
+    private ExecutorService executor;
+
     public ArtemisProvisioningProvider(ArtemisBrokerManager artemisBrokerManager) {
         this.artemisBrokerManager = artemisBrokerManager;
     }
 
+    public void setBinderMetrics(BinderMetrics binderMetrics) {
+        this.binderMetrics = binderMetrics;
+    }
+
+    /**
+     * @param provisioningConcurrency Maximum number of concurrent broker operations when provisioning destinations.
+     */
+    public void setProvisioningConcurrency(int provisioningConcurrency) {
+        if (provisioningConcurrency < 1) {
+            throw new IllegalArgumentException("Provisioning concurrency must be greater than 0");
+        }
+        this.provisioningConcurrency = provisioningConcurrency;
+    }
+
+    /**
+     * Stop the provisioning threads.
+     */
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
     /**
      * Provision all addresses and queues required for the producer.
      * If destination is unpartitioned, Artemis address is created with a value provided in an address argument. For
@@ -64,15 +114,21 @@ public class ArtemisProvisioningProvider implements ProvisioningProvider<
     @Override
     public ProducerDestination provisionProducerDestination(String address,
             ExtendedProducerProperties<ArtemisProducerProperties> properties) throws ProvisioningException {
+        long start = System.nanoTime();
+        ProducerDestination destination;
         if (properties.isPartitioned()) {
-            return provisionPartitionedProducerDestination(address, properties);
+            destination = provisionPartitionedProducerDestination(address, properties);
+        } else {
+            destination = provisionUnpartitionedProducerDestination(address, properties);
         }
 
-        return provisionUnpartitionedProducerDestination(address, properties);
+        binderMetrics.recordProvisioning(address, null, System.nanoTime() - start);
+        return destination;
     }
 
     /**
-     * Provision address required for the consumer. Queue will be created later when registering consumer listener.
+     * Provision address and, unless the group is anonymous, a queue required for the consumer. Queue of an anonymous
+     * group will be created later when registering consumer listener.
      * If destination is unpartitioned, Artemis address is created with a value provided in an address argument. If
      * destination is partitioned, Artemis address is created using the following naming scheme:
      * {address}-{instanceIndex}.
@@ -86,6 +142,7 @@ public class ArtemisProvisioningProvider implements ProvisioningProvider<
     @Override
     public ConsumerDestination provisionConsumerDestination(String address, String group,
             ExtendedConsumerProperties<ArtemisConsumerProperties> properties) throws ProvisioningException {
+        long start = System.nanoTime();
         ArtemisConsumerDestination destination;
 
         if (properties.isPartitioned()) {
@@ -98,7 +155,13 @@ public class ArtemisProvisioningProvider implements ProvisioningProvider<
         }
 
         artemisBrokerManager.createAddress(destination.getName(), properties.getExtension());
+        if (StringUtils.hasText(group)) {
+            // Queue would otherwise be created by the consumer subscription without the configured queue settings
+            artemisBrokerManager.createQueue(destination.getName(), getQueueName(destination.getName(), group),
+                    properties.getExtension());
+        }
 
+        binderMetrics.recordProvisioning(destination.getName(), group, System.nanoTime() - start);
         return destination;
     }
 
@@ -109,7 +172,7 @@ public class ArtemisProvisioningProvider implements ProvisioningProvider<
         // Create address to send messages to
         artemisBrokerManager.createAddress(address, properties.getExtension());
         // Create queues for each group so that messages could be persisted until consumer register
-        provisionGroups(address, properties.getRequiredGroups());
+        provisionGroups(address, properties.getRequiredGroups(), properties.getExtension());
         return new ArtemisProducerDestination(address);
     }
 
@@ -118,20 +181,93 @@ public class ArtemisProvisioningProvider implements ProvisioningProvider<
         logger.debug("Provisioning partitioned producer destination with address '{}' and '{}' partitions", address,
                 properties.getPartitionCount());
 
-        IntStream.range(0, properties.getPartitionCount())
+        List<String> partitionAddresses = IntStream.range(0, properties.getPartitionCount())
                 .mapToObj(i -> getPartitionAddress(address, i))
-                .peek(partitionAddress -> artemisBrokerManager.createAddress(partitionAddress,
+                .collect(Collectors.toList());
+
+        // Queues can only be created once all of their addresses exist
+        execute(partitionAddresses.stream()
+                .map(partitionAddress -> (Runnable) () -> artemisBrokerManager.createAddress(partitionAddress,
                         properties.getExtension()))
-                .forEach(partitionAddress -> provisionGroups(partitionAddress, properties.getRequiredGroups()));
-        return new ArtemisProducerDestination(address);
+                .collect(Collectors.toList()));
+        execute(partitionAddresses.stream()
+                .flatMap(partitionAddress -> getGroupTasks(partitionAddress, properties.getRequiredGroups(),
+                        properties.getExtension()))
+                .collect(Collectors.toList()));
+        return new ArtemisProducerDestination(address, properties.getPartitionCount());
+    }
+
+    private void provisionGroups(String address, String[] groups, ArtemisProducerProperties properties) {
+        execute(getGroupTasks(address, groups, properties).collect(Collectors.toList()));
     }
 
-    private void provisionGroups(String address, String[] groups) {
+    private Stream<Runnable> getGroupTasks(String address, String[] groups, ArtemisProducerProperties properties) {
         logger.debug("Provisioning required groups '{}' at address '{}'", groups, address);
 
-        Arrays.stream(groups)
+        return Arrays.stream(groups)
                 .map(group -> getQueueName(address, group))
-                .forEach(queueName -> artemisBrokerManager.createQueue(address, queueName));
+                .map(queueName -> () -> artemisBrokerManager.createQueue(address, queueName, properties));
+    }
+
+    private void execute(List<Runnable> tasks) {
+        if (provisioningConcurrency == 1 || tasks.size() < 2) {
+            tasks.forEach(Runnable::run);
+            return;
+        }
+
+        ExecutorService executor = getExecutor();
+        List<Future<?>> futures = tasks.stream()
+                .map(executor::submit)
+                .collect(Collectors.toList());
+        try {
+            List<Throwable> failures = new ArrayList<>();
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                }
+            }
+            throwFailures(failures);
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ProvisioningException("Interrupted while provisioning destination", e);
+        }
+    }
+
+    private void throwFailures(List<Throwable> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        if (failures.size() == 1 && failures.get(0) instanceof ProvisioningException) {
+            throw (ProvisioningException) failures.get(0);
+        }
+
+        String message = failures.size() == 1
+                ? "Failed to provision a resource"
+                : String.format("Failed to provision %d resources", failures.size());
+        ProvisioningException exception = new ProvisioningException(message, failures.get(0));
+        failures.stream()
+                .skip(1)
+                .forEach(exception::addSuppressed);
+        throw exception;
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(provisioningConcurrency,
+                    provisioningConcurrency, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "artemis-provisioning-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            // Destinations are mostly provisioned at startup, so threads shouldn't be kept afterwards
+            threadPoolExecutor.allowCoreThreadTimeOut(true);
+            executor = threadPoolExecutor;
+        }
+        return executor;
     }
 
 }
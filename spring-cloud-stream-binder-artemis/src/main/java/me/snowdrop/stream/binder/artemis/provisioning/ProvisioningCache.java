@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016-2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.snowdrop.stream.binder.artemis.provisioning;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of broker resources provisioned by this JVM. Entries expire after a time-to-live, so that resources
+ * deleted outside of the binder are eventually provisioned again. Expired entries are removed when read, and once the
+ * cache is full, least recently used entries are evicted.
+ *
+ * @param <V> Type of the cached resource description.
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+class ProvisioningCache<V> {
+
+    private final int maxSize;
+
+    private final long ttl;
+
+    private final LongSupplier clock;
+
+    private final Map<String, Entry<V>> entries;
+
+    /**
+     * @param maxSize Maximum number of entries. Cache is disabled if 0.
+     * @param ttl     Time (in ms) after which an entry expires. Cache is disabled if 0.
+     */
+    ProvisioningCache(int maxSize, long ttl) {
+        this(maxSize, ttl, System::currentTimeMillis);
+    }
+
+    ProvisioningCache(int maxSize, long ttl, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                return size() > ProvisioningCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return cached value or null if there is no such entry or it has expired.
+     */
+    synchronized V get(String name) {
+        Entry<V> entry = entries.get(name);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(clock.getAsLong())) {
+            entries.remove(name);
+            return null;
+        }
+        return entry.value;
+    }
+
+    synchronized void put(String name, V value) {
+        if (maxSize < 1 || ttl < 1) {
+            return;
+        }
+        entries.put(name, new Entry<>(value, clock.getAsLong() + ttl));
+    }
+
+    synchronized void invalidate(String name) {
+        entries.remove(name);
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+
+        private final long expiration;
+
+        private Entry(V value, long expiration) {
+            this.value = value;
+            this.expiration = expiration;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiration;
+        }
+
+    }
+
+}
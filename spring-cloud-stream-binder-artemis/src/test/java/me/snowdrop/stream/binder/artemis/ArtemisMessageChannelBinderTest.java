@@ -1,24 +1,49 @@
 package me.snowdrop.stream.binder.artemis;
 
+import javax.jms.ConnectionFactory;
+
+import me.snowdrop.stream.binder.artemis.common.CoreSessionFactory;
+import me.snowdrop.stream.binder.artemis.listener.AdaptiveConsumerWindowConnectionFactory;
+import me.snowdrop.stream.binder.artemis.listener.BatchMessageDrivenEndpoint;
+import me.snowdrop.stream.binder.artemis.listener.DispatchPool;
+import me.snowdrop.stream.binder.artemis.listener.EventDrivenMessageListenerContainer;
+import me.snowdrop.stream.binder.artemis.listener.RedeliveringChannelPublishingJmsMessageListener;
 import me.snowdrop.stream.binder.artemis.listener.RetryableChannelPublishingJmsMessageListener;
+import me.snowdrop.stream.binder.artemis.metrics.BinderMetrics;
+import me.snowdrop.stream.binder.artemis.metrics.ConsumerMetrics;
+import me.snowdrop.stream.binder.artemis.metrics.ProducerMetrics;
+import me.snowdrop.stream.binder.artemis.producer.ArtemisCoreMessageHandler;
+import me.snowdrop.stream.binder.artemis.producer.ArtemisJmsSendingMessageHandler;
 import me.snowdrop.stream.binder.artemis.properties.ArtemisConsumerProperties;
+import me.snowdrop.stream.binder.artemis.properties.ArtemisProducerProperties;
 import me.snowdrop.stream.binder.artemis.provisioning.ArtemisConsumerDestination;
+import me.snowdrop.stream.binder.artemis.provisioning.ArtemisProducerDestination;
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.apache.activemq.artemis.jms.client.ActiveMQTopic;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.beans.DirectFieldAccessor;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.stream.binder.BinderHeaders;
 import org.springframework.cloud.stream.binder.ExtendedConsumerProperties;
+import org.springframework.cloud.stream.binder.ExtendedProducerProperties;
+import org.springframework.cloud.stream.provisioning.ProducerDestination;
 import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.integration.core.MessageProducer;
+import org.springframework.integration.handler.MessageProcessor;
 import org.springframework.integration.jms.ChannelPublishingJmsMessageListener;
 import org.springframework.integration.jms.JmsMessageDrivenEndpoint;
-import org.springframework.integration.jms.JmsSendingMessageHandler;
+import org.springframework.jms.listener.AbstractMessageListenerContainer;
 import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.MessageBuilder;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 /**
  * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
@@ -32,19 +57,74 @@ public class ArtemisMessageChannelBinderTest {
     @Mock
     private DefaultListableBeanFactory mockBeanFactory;
 
+    @Mock
+    private CoreSessionFactory mockCoreSessionFactory;
+
+    @Mock
+    private ConnectionFactory mockConnectionFactory;
+
     private ArtemisMessageChannelBinder binder;
 
     @Before
     public void before() {
-        binder = new ArtemisMessageChannelBinder(null, null, null);
+        binder = new ArtemisMessageChannelBinder(null, mockConnectionFactory, mockCoreSessionFactory, null);
         binder.setApplicationContext(new GenericApplicationContext(mockBeanFactory));
+        given(mockConsumerProperties.getConcurrency()).willReturn(1);
+        given(mockConsumerProperties.getExtension()).willReturn(new ArtemisConsumerProperties());
     }
 
     @Test
     public void shouldCreateProducerMessageHandler() {
-        MessageHandler handler = binder.createProducerMessageHandler(null, null, null);
+        ExtendedProducerProperties<ArtemisProducerProperties> properties =
+                new ExtendedProducerProperties<>(new ArtemisProducerProperties());
+        ArtemisProducerDestination destination = new ArtemisProducerDestination("test-destination");
+
+        MessageHandler handler = binder.createProducerMessageHandler(destination, properties, null);
+
+        assertThat(handler).isInstanceOf(ArtemisJmsSendingMessageHandler.class);
+    }
+
+    @Test
+    public void shouldCreateNativeProducerMessageHandler() {
+        ArtemisProducerProperties artemisProperties = new ArtemisProducerProperties();
+        artemisProperties.setNativeProducer(true);
+        ExtendedProducerProperties<ArtemisProducerProperties> properties =
+                new ExtendedProducerProperties<>(artemisProperties);
+        ArtemisProducerDestination destination = new ArtemisProducerDestination("test-destination");
+
+        MessageHandler handler = binder.createProducerMessageHandler(destination, properties, null);
+
+        assertThat(handler).isInstanceOf(ArtemisCoreMessageHandler.class);
+    }
+
+    @Test
+    public void shouldRouteMessagesOfOtherProducerDestinationsByName() {
+        ExtendedProducerProperties<ArtemisProducerProperties> properties =
+                new ExtendedProducerProperties<>(new ArtemisProducerProperties());
+        ProducerDestination mockDestination = mock(ProducerDestination.class);
+        given(mockDestination.getName()).willReturn("test-destination");
+        given(mockDestination.getNameForPartition(1)).willReturn("test-destination-1");
+
+        MessageHandler handler = binder.createProducerMessageHandler(mockDestination, properties, null);
+        MessageProcessor<?> destinationProcessor = (MessageProcessor<?>) new DirectFieldAccessor(handler)
+                .getPropertyValue("destinationExpressionProcessor");
+
+        assertThat(destinationProcessor.processMessage(MessageBuilder.withPayload("test").build()))
+                .isEqualTo(new ActiveMQTopic("test-destination"));
+        assertThat(destinationProcessor.processMessage(MessageBuilder.withPayload("test")
+                .setHeader(BinderHeaders.PARTITION_HEADER, 1)
+                .build()))
+                .isEqualTo(new ActiveMQTopic("test-destination-1"));
+    }
 
-        assertThat(handler).isInstanceOf(JmsSendingMessageHandler.class);
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotCreateNativeProducerMessageHandlerWithoutCoreSessionFactory() {
+        ArtemisProducerProperties artemisProperties = new ArtemisProducerProperties();
+        artemisProperties.setNativeProducer(true);
+        ExtendedProducerProperties<ArtemisProducerProperties> properties =
+                new ExtendedProducerProperties<>(artemisProperties);
+
+        new ArtemisMessageChannelBinder(null, null, null).createProducerMessageHandler(null, properties, null);
     }
 
     @Test
@@ -58,6 +138,32 @@ public class ArtemisMessageChannelBinderTest {
 
         JmsMessageDrivenEndpoint endpoint = (JmsMessageDrivenEndpoint) producer;
         assertThat(endpoint.getListener()).isNotInstanceOf(RetryableChannelPublishingJmsMessageListener.class);
+        assertThat(getListenerContainer(endpoint).isSubscriptionDurable()).isTrue();
+    }
+
+    @Test
+    public void shouldCreateNonDurableAnonymousConsumerEndpoint() {
+        given(mockConsumerProperties.getMaxAttempts()).willReturn(1);
+
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        MessageProducer producer = binder.createConsumerEndpoint(destination, null, mockConsumerProperties);
+
+        AbstractMessageListenerContainer container = getListenerContainer((JmsMessageDrivenEndpoint) producer);
+        assertThat(container.isSubscriptionDurable()).isFalse();
+        assertThat(container.getSubscriptionName())
+                .isEqualTo("test-destination-" + destination.getAnonymousGroupName());
+    }
+
+    @Test
+    public void shouldUseSameErrorsBaseNameForAnonymousGroup() {
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        String registeredName = binder.errorsBaseName(destination, destination.getAnonymousGroupName(),
+                mockConsumerProperties);
+        String destroyedName = binder.errorsBaseName(destination, null, mockConsumerProperties);
+
+        assertThat(destroyedName)
+                .isEqualTo(registeredName)
+                .isEqualTo("test-destination-" + destination.getAnonymousGroupName() + ".errors");
     }
 
     @Test
@@ -73,4 +179,271 @@ public class ArtemisMessageChannelBinderTest {
         assertThat(listener).isInstanceOf(RetryableChannelPublishingJmsMessageListener.class);
         assertThat(listener.getComponentType()).isEqualTo("jms:message-driven-channel-adapter");
     }
+
+    @Test
+    public void shouldCreateRedeliveringConsumerEndpoint() {
+        ArtemisConsumerProperties artemisProperties = new ArtemisConsumerProperties();
+        artemisProperties.setRetryStrategy(ArtemisConsumerProperties.RetryStrategy.REDELIVERY);
+        given(mockConsumerProperties.getExtension()).willReturn(artemisProperties);
+        given(mockConsumerProperties.getMaxAttempts()).willReturn(2);
+
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        MessageProducer producer = binder.createConsumerEndpoint(destination, "test-group", mockConsumerProperties);
+
+        JmsMessageDrivenEndpoint endpoint = (JmsMessageDrivenEndpoint) producer;
+        assertThat(endpoint.getListener()).isInstanceOf(RedeliveringChannelPublishingJmsMessageListener.class);
+        assertThat(getListenerContainer(endpoint).getErrorHandler()).isNotNull();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotRedeliverMoreTimesThanBrokerAllows() {
+        ArtemisConsumerProperties artemisProperties = new ArtemisConsumerProperties();
+        artemisProperties.setRetryStrategy(ArtemisConsumerProperties.RetryStrategy.REDELIVERY);
+        artemisProperties.setModifyAddressSettings(true);
+        artemisProperties.setBrokerRedeliveryDelay(100);
+        artemisProperties.setBrokerMaxDeliveryAttempts(2);
+        given(mockConsumerProperties.getExtension()).willReturn(artemisProperties);
+        given(mockConsumerProperties.getMaxAttempts()).willReturn(3);
+
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        binder.createConsumerEndpoint(destination, "test-group", mockConsumerProperties);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotRedeliverWithoutBrokerRedeliveryDelay() {
+        ArtemisConsumerProperties artemisProperties = new ArtemisConsumerProperties();
+        artemisProperties.setRetryStrategy(ArtemisConsumerProperties.RetryStrategy.REDELIVERY);
+        artemisProperties.setModifyAddressSettings(true);
+        given(mockConsumerProperties.getExtension()).willReturn(artemisProperties);
+        given(mockConsumerProperties.getMaxAttempts()).willReturn(3);
+
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        binder.createConsumerEndpoint(destination, "test-group", mockConsumerProperties);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotRedeliverBatchedCommits() {
+        ArtemisConsumerProperties artemisProperties = new ArtemisConsumerProperties();
+        artemisProperties.setRetryStrategy(ArtemisConsumerProperties.RetryStrategy.REDELIVERY);
+        artemisProperties.setModifyAddressSettings(true);
+        artemisProperties.setBrokerRedeliveryDelay(100);
+        artemisProperties.setTransactionBatchSize(10);
+        given(mockConsumerProperties.getExtension()).willReturn(artemisProperties);
+        given(mockConsumerProperties.getMaxAttempts()).willReturn(3);
+
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        binder.createConsumerEndpoint(destination, "test-group", mockConsumerProperties);
+    }
+
+    @Test
+    public void shouldRedeliverWithBrokerRedeliveryDelay() {
+        ArtemisConsumerProperties artemisProperties = new ArtemisConsumerProperties();
+        artemisProperties.setRetryStrategy(ArtemisConsumerProperties.RetryStrategy.REDELIVERY);
+        artemisProperties.setModifyAddressSettings(true);
+        artemisProperties.setBrokerRedeliveryDelay(100);
+        artemisProperties.setBrokerMaxDeliveryAttempts(3);
+        given(mockConsumerProperties.getExtension()).willReturn(artemisProperties);
+        given(mockConsumerProperties.getMaxAttempts()).willReturn(3);
+
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        JmsMessageDrivenEndpoint endpoint = (JmsMessageDrivenEndpoint) binder
+                .createConsumerEndpoint(destination, "test-group", mockConsumerProperties);
+
+        assertThat(endpoint.getListener()).isInstanceOf(RedeliveringChannelPublishingJmsMessageListener.class);
+    }
+
+    @Test
+    public void shouldCreateBatchConsumerEndpoint() {
+        given(mockConsumerProperties.isBatchMode()).willReturn(true);
+        given(mockConsumerProperties.getMaxAttempts()).willReturn(1);
+
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        MessageProducer producer = binder.createConsumerEndpoint(destination, "test-group", mockConsumerProperties);
+
+        assertThat(producer).isInstanceOf(BatchMessageDrivenEndpoint.class);
+    }
+
+    @Test
+    public void shouldCreateConsumerEndpointWithOwnConsumerWindow() {
+        ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory("vm://0");
+        binder = new ArtemisMessageChannelBinder(null, connectionFactory, mockCoreSessionFactory, null);
+        binder.setApplicationContext(new GenericApplicationContext(mockBeanFactory));
+        ArtemisConsumerProperties artemisProperties = new ArtemisConsumerProperties();
+        artemisProperties.setConsumerWindowSize(0);
+        given(mockConsumerProperties.getExtension()).willReturn(artemisProperties);
+        given(mockConsumerProperties.getMaxAttempts()).willReturn(1);
+
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        MessageProducer producer = binder.createConsumerEndpoint(destination, "test-group", mockConsumerProperties);
+
+        ConnectionFactory consumerConnectionFactory =
+                getListenerContainer((JmsMessageDrivenEndpoint) producer).getConnectionFactory();
+        assertThat(consumerConnectionFactory).isNotSameAs(connectionFactory);
+        assertThat(((ActiveMQConnectionFactory) consumerConnectionFactory).getConsumerWindowSize()).isEqualTo(0);
+        connectionFactory.close();
+    }
+
+    @Test
+    public void shouldCreateConsumerEndpointWithAdaptiveConsumerWindow() {
+        ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory("vm://0");
+        binder = new ArtemisMessageChannelBinder(null, connectionFactory, mockCoreSessionFactory, null);
+        binder.setApplicationContext(new GenericApplicationContext(mockBeanFactory));
+        ArtemisConsumerProperties artemisProperties = new ArtemisConsumerProperties();
+        artemisProperties.setAdaptiveConsumerWindow(true);
+        given(mockConsumerProperties.getExtension()).willReturn(artemisProperties);
+        given(mockConsumerProperties.getMaxAttempts()).willReturn(1);
+
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        MessageProducer producer = binder.createConsumerEndpoint(destination, "test-group", mockConsumerProperties);
+
+        assertThat(getListenerContainer((JmsMessageDrivenEndpoint) producer).getConnectionFactory())
+                .isInstanceOf(AdaptiveConsumerWindowConnectionFactory.class);
+        connectionFactory.close();
+    }
+
+    @Test
+    public void shouldCreateEventDrivenConsumerEndpointWithOwnDispatchPool() {
+        ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory("vm://0");
+        binder = new ArtemisMessageChannelBinder(null, connectionFactory, mockCoreSessionFactory, null);
+        binder.setApplicationContext(new GenericApplicationContext(mockBeanFactory));
+        ArtemisConsumerProperties artemisProperties = new ArtemisConsumerProperties();
+        artemisProperties.setContainerType(ArtemisConsumerProperties.ContainerType.EVENT_DRIVEN);
+        artemisProperties.setDispatchPoolSize(4);
+        given(mockConsumerProperties.getExtension()).willReturn(artemisProperties);
+        given(mockConsumerProperties.getMaxAttempts()).willReturn(1);
+
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        MessageProducer producer = binder.createConsumerEndpoint(destination, "test-group", mockConsumerProperties);
+
+        AbstractMessageListenerContainer container = getListenerContainer((JmsMessageDrivenEndpoint) producer);
+        assertThat(container).isInstanceOf(EventDrivenMessageListenerContainer.class);
+        ActiveMQConnectionFactory consumerConnectionFactory =
+                (ActiveMQConnectionFactory) container.getConnectionFactory();
+        assertThat(consumerConnectionFactory).isNotSameAs(connectionFactory);
+        assertThat(consumerConnectionFactory.isUseGlobalPools()).isFalse();
+        assertThat(consumerConnectionFactory.getThreadPoolMaxSize()).isEqualTo(4);
+        connectionFactory.close();
+    }
+
+    @Test
+    public void shouldCreateEventDrivenConsumerEndpointWithSharedDispatchPool() {
+        ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory("vm://0");
+        DispatchPool dispatchPool = new DispatchPool(2);
+        binder = new ArtemisMessageChannelBinder(null, connectionFactory, mockCoreSessionFactory, null);
+        binder.setApplicationContext(new GenericApplicationContext(mockBeanFactory));
+        binder.setDispatchPool(dispatchPool);
+        ArtemisConsumerProperties artemisProperties = new ArtemisConsumerProperties();
+        artemisProperties.setContainerType(ArtemisConsumerProperties.ContainerType.EVENT_DRIVEN);
+        artemisProperties.setDispatchWeight(2);
+        given(mockConsumerProperties.getExtension()).willReturn(artemisProperties);
+        given(mockConsumerProperties.getMaxAttempts()).willReturn(1);
+
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        MessageProducer producer = binder.createConsumerEndpoint(destination, "test-group", mockConsumerProperties);
+
+        ActiveMQConnectionFactory consumerConnectionFactory = (ActiveMQConnectionFactory)
+                getListenerContainer((JmsMessageDrivenEndpoint) producer).getConnectionFactory();
+        assertThat(consumerConnectionFactory).isNotSameAs(connectionFactory);
+        assertThat(consumerConnectionFactory.isUseGlobalPools()).isFalse();
+        assertThat(new DirectFieldAccessor(consumerConnectionFactory.getServerLocator()).getPropertyValue("threadPool"))
+                .isNotNull();
+        dispatchPool.close();
+        connectionFactory.close();
+    }
+
+    @Test
+    public void shouldNotUseSharedDispatchPoolForPollingConsumerEndpoint() {
+        DispatchPool dispatchPool = new DispatchPool(2);
+        binder.setDispatchPool(dispatchPool);
+        given(mockConsumerProperties.getMaxAttempts()).willReturn(1);
+
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        MessageProducer producer = binder.createConsumerEndpoint(destination, "test-group", mockConsumerProperties);
+
+        assertThat(getListenerContainer((JmsMessageDrivenEndpoint) producer).getConnectionFactory())
+                .isSameAs(mockConnectionFactory);
+        dispatchPool.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotSetConsumerWindowOfUnknownConnectionFactory() {
+        ArtemisConsumerProperties artemisProperties = new ArtemisConsumerProperties();
+        artemisProperties.setConsumerWindowSize(0);
+        given(mockConsumerProperties.getExtension()).willReturn(artemisProperties);
+
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        binder.createConsumerEndpoint(destination, "test-group", mockConsumerProperties);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotCreatePolledConsumerResourcesWithAdaptiveConsumerWindow() {
+        ArtemisConsumerProperties artemisProperties = new ArtemisConsumerProperties();
+        artemisProperties.setAdaptiveConsumerWindow(true);
+        given(mockConsumerProperties.getExtension()).willReturn(artemisProperties);
+
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        binder.createPolledConsumerResources("test", "test-group", destination, mockConsumerProperties);
+    }
+
+    @Test
+    public void shouldCreatePolledConsumerResources() {
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        Object resources = binder.createPolledConsumerResources("test", null, destination, mockConsumerProperties);
+
+        DirectFieldAccessor sourceAccessor =
+                new DirectFieldAccessor(new DirectFieldAccessor(resources).getPropertyValue("source"));
+        assertThat(sourceAccessor.getPropertyValue("subscriptionName"))
+                .isEqualTo("test-destination-" + destination.getAnonymousGroupName());
+        assertThat(sourceAccessor.getPropertyValue("durable")).isEqualTo(false);
+    }
+
+    @Test
+    public void shouldGetConsumerMetricsOfAnonymousPartitionedBinding() {
+        BinderMetrics mockBinderMetrics = mock(BinderMetrics.class);
+        given(mockConsumerProperties.getMaxAttempts()).willReturn(1);
+        given(mockConsumerProperties.isPartitioned()).willReturn(true);
+        given(mockConsumerProperties.getInstanceIndex()).willReturn(1);
+        binder.setBinderMetrics(mockBinderMetrics);
+
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination-1");
+        binder.createConsumerEndpoint(destination, null, mockConsumerProperties);
+
+        verify(mockBinderMetrics).getConsumerMetrics("test-destination-1", null, 1);
+    }
+
+    @Test
+    public void shouldRemoveProducerMetricsWhenUnbinding() {
+        BinderMetrics mockBinderMetrics = mock(BinderMetrics.class);
+        ProducerMetrics mockProducerMetrics = mock(ProducerMetrics.class);
+        given(mockBinderMetrics.getProducerMetrics("test-destination")).willReturn(mockProducerMetrics);
+        binder.setBinderMetrics(mockBinderMetrics);
+        ExtendedProducerProperties<ArtemisProducerProperties> properties =
+                new ExtendedProducerProperties<>(new ArtemisProducerProperties());
+        ArtemisProducerDestination destination = new ArtemisProducerDestination("test-destination");
+
+        binder.createProducerMessageHandler(destination, properties, null);
+        binder.afterUnbindProducer(destination, properties);
+
+        verify(mockBinderMetrics).removeProducerMetrics(mockProducerMetrics);
+    }
+
+    @Test
+    public void shouldRemoveConsumerMetricsWhenUnbinding() {
+        BinderMetrics mockBinderMetrics = mock(BinderMetrics.class);
+        ConsumerMetrics mockConsumerMetrics = mock(ConsumerMetrics.class);
+        given(mockBinderMetrics.getConsumerMetrics("test-destination", null, null)).willReturn(mockConsumerMetrics);
+        given(mockConsumerProperties.getMaxAttempts()).willReturn(1);
+        binder.setBinderMetrics(mockBinderMetrics);
+
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-destination");
+        binder.createConsumerEndpoint(destination, null, mockConsumerProperties);
+        binder.afterUnbindConsumer(destination, null, mockConsumerProperties);
+
+        verify(mockBinderMetrics).removeConsumerMetrics(mockConsumerMetrics);
+    }
+
+    private AbstractMessageListenerContainer getListenerContainer(JmsMessageDrivenEndpoint endpoint) {
+        return (AbstractMessageListenerContainer) new DirectFieldAccessor(endpoint)
+                .getPropertyValue("listenerContainer");
+    }
 }
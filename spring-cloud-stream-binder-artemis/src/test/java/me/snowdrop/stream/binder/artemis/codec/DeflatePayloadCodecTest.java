@@ -0,0 +1,35 @@
+package me.snowdrop.stream.binder.artemis.codec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DeflatePayloadCodecTest {
+
+    private final DeflatePayloadCodec codec = new DeflatePayloadCodec();
+
+    @Test
+    public void shouldEncodeAndDecode() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.append("{\"key\":\"value\"}");
+        }
+        byte[] payload = builder.toString()
+                .getBytes(StandardCharsets.UTF_8);
+
+        byte[] encoded = codec.encode(payload);
+
+        assertThat(encoded.length).isLessThan(payload.length);
+        assertThat(codec.decode(encoded)).isEqualTo(payload);
+    }
+
+    @Test
+    public void shouldFailToDecodeInvalidPayload() {
+        assertThatThrownBy(() -> codec.decode("invalid".getBytes())).isInstanceOf(IOException.class);
+    }
+
+}
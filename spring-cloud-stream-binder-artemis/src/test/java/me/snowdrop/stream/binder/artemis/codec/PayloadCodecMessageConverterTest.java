@@ -0,0 +1,110 @@
+package me.snowdrop.stream.binder.artemis.codec;
+
+import javax.jms.BytesMessage;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.jms.support.converter.MessageConversionException;
+
+import static java.util.Collections.singletonList;
+import static me.snowdrop.stream.binder.artemis.common.ArtemisHeaders.COMPRESSION;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PayloadCodecMessageConverterTest {
+
+    private final byte[] payload = "test payload".getBytes();
+
+    private final byte[] encodedPayload = "encoded payload".getBytes();
+
+    @Mock
+    private PayloadCodec mockCodec;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private BytesMessage mockBytesMessage;
+
+    @Mock
+    private TextMessage mockTextMessage;
+
+    private PayloadCodecMessageConverter converter;
+
+    @Before
+    public void before() {
+        given(mockCodec.getName()).willReturn("test");
+        converter = new PayloadCodecMessageConverter(new PayloadCodecRegistry(singletonList(mockCodec)));
+    }
+
+    @Test
+    public void shouldCompressPayloadAboveThreshold() throws Exception {
+        given(mockSession.createBytesMessage()).willReturn(mockBytesMessage);
+        given(mockCodec.encode(payload)).willReturn(encodedPayload);
+        converter.setCompression(mockCodec, payload.length);
+
+        assertThat(converter.toMessage(payload, mockSession)).isSameAs(mockBytesMessage);
+
+        verify(mockBytesMessage).writeBytes(encodedPayload);
+        verify(mockBytesMessage).setStringProperty(COMPRESSION, "test");
+    }
+
+    @Test
+    public void shouldNotCompressPayloadBelowThreshold() throws Exception {
+        given(mockSession.createBytesMessage()).willReturn(mockBytesMessage);
+        converter.setCompression(mockCodec, payload.length + 1);
+
+        converter.toMessage(payload, mockSession);
+
+        verify(mockBytesMessage).writeBytes(payload);
+        verify(mockBytesMessage, never()).setStringProperty(anyString(), anyString());
+    }
+
+    @Test
+    public void shouldNotCompressIfDisabled() throws Exception {
+        given(mockSession.createBytesMessage()).willReturn(mockBytesMessage);
+
+        converter.toMessage(payload, mockSession);
+
+        verify(mockBytesMessage).writeBytes(payload);
+        verify(mockCodec, never()).encode(any());
+    }
+
+    @Test
+    public void shouldDecompressPayload() throws Exception {
+        given(mockBytesMessage.getStringProperty(COMPRESSION)).willReturn("test");
+        given(mockBytesMessage.getBodyLength()).willReturn((long) encodedPayload.length);
+        given(mockCodec.decode(any())).willReturn(payload);
+
+        assertThat(converter.fromMessage(mockBytesMessage)).isEqualTo(payload);
+    }
+
+    @Test
+    public void shouldNotDecompressUnmarkedPayload() throws Exception {
+        given(mockTextMessage.getText()).willReturn("test");
+
+        assertThat(converter.fromMessage(mockTextMessage)).isEqualTo("test");
+        verify(mockCodec, never()).decode(any());
+    }
+
+    @Test
+    public void shouldFailToDecompressWithUnknownCodec() throws Exception {
+        given(mockBytesMessage.getStringProperty(COMPRESSION)).willReturn("unknown");
+        given(mockBytesMessage.getBodyLength()).willReturn((long) encodedPayload.length);
+
+        assertThatThrownBy(() -> converter.fromMessage(mockBytesMessage))
+                .isInstanceOf(MessageConversionException.class);
+    }
+
+}
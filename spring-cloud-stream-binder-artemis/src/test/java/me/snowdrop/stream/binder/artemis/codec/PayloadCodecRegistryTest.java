@@ -0,0 +1,42 @@
+package me.snowdrop.stream.binder.artemis.codec;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PayloadCodecRegistryTest {
+
+    @Mock
+    private PayloadCodec mockCodec;
+
+    @Test
+    public void shouldContainDeflateCodec() {
+        PayloadCodecRegistry registry = new PayloadCodecRegistry();
+
+        assertThat(registry.getCodec(DeflatePayloadCodec.NAME)).isInstanceOf(DeflatePayloadCodec.class);
+    }
+
+    @Test
+    public void shouldContainCustomCodec() {
+        given(mockCodec.getName()).willReturn("custom");
+        PayloadCodecRegistry registry = new PayloadCodecRegistry(singletonList(mockCodec));
+
+        assertThat(registry.getCodec("custom")).isSameAs(mockCodec);
+        assertThat(registry.getCodec(DeflatePayloadCodec.NAME)).isInstanceOf(DeflatePayloadCodec.class);
+    }
+
+    @Test
+    public void shouldFailToGetUnknownCodec() {
+        PayloadCodecRegistry registry = new PayloadCodecRegistry();
+
+        assertThatThrownBy(() -> registry.getCodec("unknown")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
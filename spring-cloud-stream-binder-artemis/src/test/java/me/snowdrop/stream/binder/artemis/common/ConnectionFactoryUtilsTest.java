@@ -0,0 +1,71 @@
+package me.snowdrop.stream.binder.artemis.common;
+
+import javax.jms.ConnectionFactory;
+
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jms.connection.CachingConnectionFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class ConnectionFactoryUtilsTest {
+
+    private ActiveMQConnectionFactory connectionFactory;
+
+    private ActiveMQConnectionFactory copy;
+
+    @Before
+    public void before() {
+        connectionFactory = new ActiveMQConnectionFactory("vm://0", "test-user", "test-password");
+        connectionFactory.setConsumerWindowSize(2048);
+    }
+
+    @After
+    public void after() {
+        if (copy != null) {
+            copy.close();
+        }
+        connectionFactory.close();
+    }
+
+    @Test
+    public void shouldCopyConnectionFactory() {
+        copy = ConnectionFactoryUtils.copyConnectionFactory(connectionFactory);
+
+        assertThat(copy).isNotSameAs(connectionFactory);
+        assertThat(copy.getServerLocator()).isNotSameAs(connectionFactory.getServerLocator());
+        assertThat(copy.getUser()).isEqualTo("test-user");
+        assertThat(copy.getPassword()).isEqualTo("test-password");
+        assertThat(copy.getConsumerWindowSize()).isEqualTo(2048);
+    }
+
+    @Test
+    public void shouldNotChangeOriginalConnectionFactory() {
+        copy = ConnectionFactoryUtils.copyConnectionFactory(connectionFactory);
+
+        copy.setConsumerWindowSize(0);
+
+        assertThat(connectionFactory.getConsumerWindowSize()).isEqualTo(2048);
+    }
+
+    @Test
+    public void shouldUnwrapSingleConnectionFactory() {
+        copy = ConnectionFactoryUtils.copyConnectionFactory(new CachingConnectionFactory(connectionFactory));
+
+        assertThat(copy.getUser()).isEqualTo("test-user");
+    }
+
+    @Test
+    public void shouldNotCopyOtherConnectionFactories() {
+        assertThatThrownBy(() -> ConnectionFactoryUtils.copyConnectionFactory(mock(ConnectionFactory.class)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
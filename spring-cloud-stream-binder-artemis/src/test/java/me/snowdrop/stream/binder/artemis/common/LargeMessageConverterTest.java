@@ -0,0 +1,184 @@
+package me.snowdrop.stream.binder.artemis.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.jms.BytesMessage;
+import javax.jms.MessageEOFException;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import static me.snowdrop.stream.binder.artemis.common.ArtemisHeaders.COMPRESSION;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LargeMessageConverterTest {
+
+    private final byte[] payload = "test payload".getBytes();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private MessageConverter mockDelegate;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private BytesMessage mockBytesMessage;
+
+    @Mock
+    private TextMessage mockTextMessage;
+
+    private LargeMessageConverter converter;
+
+    @Before
+    public void before() {
+        converter = new LargeMessageConverter(mockDelegate);
+    }
+
+    @Test
+    public void shouldStreamInputStreamPayload() throws Exception {
+        InputStream input = new ByteArrayInputStream(payload);
+        given(mockSession.createBytesMessage()).willReturn(mockBytesMessage);
+
+        assertThat(converter.toMessage(input, mockSession)).isSameAs(mockBytesMessage);
+
+        verify(mockBytesMessage).setObjectProperty("JMS_AMQ_InputStream", input);
+        verifyNoInteractions(mockDelegate);
+    }
+
+    @Test
+    public void shouldDelegateOtherPayloads() throws Exception {
+        given(mockDelegate.toMessage(payload, mockSession)).willReturn(mockBytesMessage);
+
+        assertThat(converter.toMessage(payload, mockSession)).isSameAs(mockBytesMessage);
+    }
+
+    @Test
+    public void shouldDelegateIfStreamingIsDisabled() throws Exception {
+        given(mockDelegate.fromMessage(mockBytesMessage)).willReturn(payload);
+
+        assertThat(converter.fromMessage(mockBytesMessage)).isEqualTo(payload);
+    }
+
+    @Test
+    public void shouldDelegateNonBytesMessages() throws Exception {
+        given(mockDelegate.fromMessage(mockTextMessage)).willReturn("test");
+        converter.setStreamPayload(true);
+
+        assertThat(converter.fromMessage(mockTextMessage)).isEqualTo("test");
+    }
+
+    @Test
+    public void shouldDeliverInputStream() throws Exception {
+        given(mockBytesMessage.readUnsignedByte()).willReturn(1, 2).willThrow(new MessageEOFException("eof"));
+        converter.setStreamPayload(true);
+
+        Object result = converter.fromMessage(mockBytesMessage);
+
+        assertThat(result).isInstanceOf(InputStream.class);
+        try (InputStream input = (InputStream) result) {
+            assertThat(input.read()).isEqualTo(1);
+            assertThat(input.read()).isEqualTo(2);
+            assertThat(input.read()).isEqualTo(-1);
+        }
+        verifyNoInteractions(mockDelegate);
+    }
+
+    @Test
+    public void shouldSaveToFile() throws Exception {
+        willAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write(payload);
+            return null;
+        }).given(mockBytesMessage).setObjectProperty(eq("JMS_AMQ_SaveStream"), any());
+        converter.setDirectory(temporaryFolder.getRoot().toPath());
+
+        Object result = converter.fromMessage(mockBytesMessage);
+
+        assertThat(result).isInstanceOf(Path.class);
+        assertThat((Path) result).hasParent(temporaryFolder.getRoot().toPath());
+        assertThat(Files.readAllBytes((Path) result)).isEqualTo(payload);
+    }
+
+    @Test
+    public void shouldTakeSavedFiles() throws Exception {
+        converter.setDirectory(temporaryFolder.getRoot().toPath());
+
+        Path first = (Path) converter.fromMessage(mockBytesMessage);
+        Path second = (Path) converter.fromMessage(mockBytesMessage);
+
+        assertThat(converter.takeSavedFiles()).containsExactly(first, second);
+        assertThat(converter.takeSavedFiles()).isEmpty();
+        assertThat(first).exists();
+        assertThat(second).exists();
+    }
+
+    @Test
+    public void shouldDeleteSavedFiles() throws Exception {
+        converter.setDirectory(temporaryFolder.getRoot().toPath());
+
+        Path file = (Path) converter.fromMessage(mockBytesMessage);
+        converter.deleteSavedFiles();
+
+        assertThat(file).doesNotExist();
+        assertThat(converter.takeSavedFiles()).isEmpty();
+    }
+
+    @Test
+    public void shouldNotTrackSavedFilesOfOtherThreads() throws Exception {
+        converter.setDirectory(temporaryFolder.getRoot().toPath());
+        converter.fromMessage(mockBytesMessage);
+
+        Thread thread = new Thread(converter::deleteSavedFiles);
+        thread.start();
+        thread.join();
+
+        assertThat(converter.takeSavedFiles()).hasSize(1);
+    }
+
+    @Test
+    public void shouldDecodeCompressedPayloadBeforeStreaming() throws Exception {
+        given(mockBytesMessage.propertyExists(COMPRESSION)).willReturn(true);
+        given(mockDelegate.fromMessage(mockBytesMessage)).willReturn(payload);
+        converter.setStreamPayload(true);
+
+        Object result = converter.fromMessage(mockBytesMessage);
+
+        assertThat(result).isInstanceOf(InputStream.class);
+        byte[] buffer = new byte[payload.length];
+        assertThat(((InputStream) result).read(buffer)).isEqualTo(payload.length);
+        assertThat(buffer).isEqualTo(payload);
+    }
+
+    @Test
+    public void shouldSaveCompressedPayloadToFile() throws Exception {
+        given(mockBytesMessage.propertyExists(COMPRESSION)).willReturn(true);
+        given(mockDelegate.fromMessage(mockBytesMessage)).willReturn(payload);
+        converter.setDirectory(temporaryFolder.getRoot().toPath());
+
+        Object result = converter.fromMessage(mockBytesMessage);
+
+        assertThat(Files.readAllBytes((Path) result)).isEqualTo(payload);
+    }
+
+}
@@ -0,0 +1,66 @@
+package me.snowdrop.stream.binder.artemis.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class VirtualThreadUtilsTest {
+
+    @Test
+    public void shouldNotBeAvailableBeforeJdk19() {
+        assumeTrue(getJavaVersion() < 19);
+
+        assertThat(VirtualThreadUtils.isAvailable()).isFalse();
+        assertThat(VirtualThreadUtils.getExecutor()).isNull();
+    }
+
+    @Test
+    public void shouldBeAvailableSinceJdk21() {
+        assumeTrue(getJavaVersion() >= 21);
+
+        assertThat(VirtualThreadUtils.isAvailable()).isTrue();
+    }
+
+    @Test
+    public void shouldExecuteTasksOnVirtualThreads() throws Exception {
+        assumeTrue(VirtualThreadUtils.isAvailable());
+
+        CompletableFuture<Object> isVirtual = new CompletableFuture<>();
+        VirtualThreadUtils.getExecutor().execute(() -> {
+            try {
+                isVirtual.complete(Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()));
+            } catch (ReflectiveOperationException e) {
+                isVirtual.completeExceptionally(e);
+            }
+        });
+
+        assertThat(isVirtual.get(5, TimeUnit.SECONDS)).isEqualTo(true);
+    }
+
+    @Test
+    public void shouldLimitBlockedThreadsBeforeJdk24() {
+        assumeTrue(getJavaVersion() < 24);
+
+        assertThat(VirtualThreadUtils.getMaxBlockedThreads()).isBetween(1, 256);
+    }
+
+    @Test
+    public void shouldNotLimitBlockedThreadsSinceJdk24() {
+        assumeTrue(getJavaVersion() >= 24);
+
+        assertThat(VirtualThreadUtils.getMaxBlockedThreads()).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    private int getJavaVersion() {
+        String version = System.getProperty("java.specification.version");
+        return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+    }
+
+}
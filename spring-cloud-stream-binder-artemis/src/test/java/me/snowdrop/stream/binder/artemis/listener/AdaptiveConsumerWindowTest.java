@@ -0,0 +1,114 @@
+package me.snowdrop.stream.binder.artemis.listener;
+
+import java.util.concurrent.TimeUnit;
+
+import me.snowdrop.stream.binder.artemis.metrics.ConsumerMetrics;
+import me.snowdrop.stream.binder.artemis.metrics.QueueStatistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class AdaptiveConsumerWindowTest {
+
+    @Mock
+    private ConsumerMetrics mockConsumerMetrics;
+
+    @Mock
+    private QueueStatistics mockQueueStatistics;
+
+    private AdaptiveConsumerWindow adaptiveWindow;
+
+    @Before
+    public void before() {
+        adaptiveWindow = new AdaptiveConsumerWindow(1024 * 1024, mockConsumerMetrics);
+    }
+
+    @Test
+    public void shouldUseMaxSizeUntilMessageIsProcessed() {
+        assertThat(adaptiveWindow.getSize()).isEqualTo(1024 * 1024);
+    }
+
+    @Test
+    public void shouldBufferMessagesProcessedWithinBufferedTime() {
+        // 10 messages per second, 100 bytes each
+        adaptiveWindow.recordProcessing(TimeUnit.MILLISECONDS.toNanos(100), 1, 100);
+
+        assertThat(adaptiveWindow.getSize()).isEqualTo(1024);
+        verify(mockConsumerMetrics).recordProcessing(TimeUnit.MILLISECONDS.toNanos(100), 1, 100);
+    }
+
+    @Test
+    public void shouldKeepPowerOfTwoSize() {
+        // 8 messages per second, 128 bytes each
+        adaptiveWindow.recordProcessing(TimeUnit.MILLISECONDS.toNanos(125), 1, 128);
+
+        assertThat(adaptiveWindow.getSize()).isEqualTo(1024);
+    }
+
+    @Test
+    public void shouldNotBufferMessagesOfSlowConsumer() {
+        adaptiveWindow.recordProcessing(TimeUnit.SECONDS.toNanos(2), 1, 100);
+
+        assertThat(adaptiveWindow.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldNotExceedMaxSize() {
+        adaptiveWindow.recordProcessing(TimeUnit.MICROSECONDS.toNanos(1), 1, 1024);
+
+        assertThat(adaptiveWindow.getSize()).isEqualTo(1024 * 1024);
+    }
+
+    @Test
+    public void shouldLimitBufferByBacklogShare() {
+        given(mockQueueStatistics.getMessageCount()).willReturn(20.0);
+        given(mockQueueStatistics.getConsumerCount()).willReturn(4.0);
+        adaptiveWindow.setQueueStatistics(mockQueueStatistics);
+
+        adaptiveWindow.recordProcessing(TimeUnit.MILLISECONDS.toNanos(10), 1, 100);
+
+        assertThat(adaptiveWindow.getSize()).isEqualTo(512);
+    }
+
+    @Test
+    public void shouldIgnoreUnknownBacklog() {
+        given(mockQueueStatistics.getMessageCount()).willReturn(Double.NaN);
+        given(mockQueueStatistics.getConsumerCount()).willReturn(Double.NaN);
+        adaptiveWindow.setQueueStatistics(mockQueueStatistics);
+
+        adaptiveWindow.recordProcessing(TimeUnit.MILLISECONDS.toNanos(100), 1, 100);
+
+        assertThat(adaptiveWindow.getSize()).isEqualTo(1024);
+    }
+
+    @Test
+    public void shouldAverageBatchMeasurements() {
+        adaptiveWindow.recordProcessing(TimeUnit.MILLISECONDS.toNanos(500), 5, 500);
+
+        assertThat(adaptiveWindow.getSize()).isEqualTo(1024);
+    }
+
+    @Test
+    public void shouldDelegateOtherMeasurements() {
+        adaptiveWindow.recordReceive(1);
+        adaptiveWindow.recordFailure(2);
+        adaptiveWindow.recordRetry();
+        adaptiveWindow.recordRecovery();
+
+        verify(mockConsumerMetrics).recordReceive(1);
+        verify(mockConsumerMetrics).recordFailure(2);
+        verify(mockConsumerMetrics).recordRetry();
+        verify(mockConsumerMetrics).recordRecovery();
+    }
+
+}
@@ -0,0 +1,174 @@
+package me.snowdrop.stream.binder.artemis.listener;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import javax.jms.Topic;
+
+import me.snowdrop.stream.binder.artemis.metrics.ConsumerMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.integration.StaticMessageHeaderAccessor;
+import org.springframework.integration.acks.AcknowledgmentCallback;
+import org.springframework.jms.UncategorizedJmsException;
+import org.springframework.messaging.Message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ArtemisMessageSourceTest {
+
+    @Mock
+    private ConnectionFactory mockConnectionFactory;
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Topic mockTopic;
+
+    @Mock
+    private MessageConsumer mockConsumer;
+
+    @Mock
+    private TextMessage mockMessage;
+
+    @Mock
+    private ConsumerMetrics mockConsumerMetrics;
+
+    private ArtemisMessageSource source;
+
+    @Before
+    public void before() throws JMSException {
+        given(mockConnectionFactory.createConnection()).willReturn(mockConnection);
+        given(mockConnection.createSession(true, Session.SESSION_TRANSACTED)).willReturn(mockSession);
+        given(mockSession.createTopic("test-topic")).willReturn(mockTopic);
+        given(mockSession.createSharedDurableConsumer(mockTopic, "test-subscription", "a = 1"))
+                .willReturn(mockConsumer);
+        given(mockMessage.getText()).willReturn("test");
+
+        source = new ArtemisMessageSource(mockConnectionFactory, "test-topic", "test-subscription", true);
+        source.setMessageSelector("a = 1");
+        source.setConsumerMetrics(mockConsumerMetrics);
+        source.setBeanFactory(new DefaultListableBeanFactory());
+        source.start();
+    }
+
+    @Test
+    public void shouldNotReceiveWhenStopped() {
+        source.stop();
+
+        assertThat(source.receive()).isNull();
+        verifyNoInteractions(mockConnectionFactory);
+    }
+
+    @Test
+    public void shouldReturnNullWithoutMessages() throws JMSException {
+        assertThat(source.receive()).isNull();
+        verify(mockConnection).start();
+    }
+
+    @Test
+    public void shouldKeepConsumerBetweenPolls() throws JMSException {
+        given(mockConsumer.receiveNoWait()).willReturn(mockMessage);
+
+        getAcknowledgmentCallback(source.receive()).acknowledge(AcknowledgmentCallback.Status.ACCEPT);
+        getAcknowledgmentCallback(source.receive()).acknowledge(AcknowledgmentCallback.Status.ACCEPT);
+
+        verify(mockConnectionFactory).createConnection();
+        verify(mockConsumer, times(2)).receiveNoWait();
+    }
+
+    @Test
+    public void shouldCommitAcceptedMessage() throws JMSException {
+        given(mockConsumer.receiveNoWait()).willReturn(mockMessage);
+
+        Message<?> message = source.receive();
+        assertThat(message.getPayload()).isEqualTo("test");
+
+        getAcknowledgmentCallback(message).acknowledge(AcknowledgmentCallback.Status.ACCEPT);
+
+        verify(mockSession).commit();
+        verify(mockConsumerMetrics).recordProcessing(anyLong(), eq(1), anyLong());
+    }
+
+    @Test
+    public void shouldCommitRejectedMessage() throws JMSException {
+        given(mockConsumer.receiveNoWait()).willReturn(mockMessage);
+
+        getAcknowledgmentCallback(source.receive()).acknowledge(AcknowledgmentCallback.Status.REJECT);
+
+        verify(mockSession).commit();
+        verify(mockConsumerMetrics).recordFailure(1);
+    }
+
+    @Test
+    public void shouldRollBackRequeuedMessage() throws JMSException {
+        given(mockConsumer.receiveNoWait()).willReturn(mockMessage);
+
+        getAcknowledgmentCallback(source.receive()).acknowledge(AcknowledgmentCallback.Status.REQUEUE);
+
+        verify(mockSession).rollback();
+        verify(mockSession, never()).commit();
+        verify(mockConsumerMetrics).recordFailure(1);
+    }
+
+    @Test
+    public void shouldNotReceiveBeforeAcknowledgment() throws JMSException {
+        given(mockConsumer.receiveNoWait()).willReturn(mockMessage);
+        source.receive();
+
+        assertThatThrownBy(() -> source.receive())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void shouldReconnectAfterFailure() throws JMSException {
+        given(mockConsumer.receiveNoWait())
+                .willThrow(new JMSException("test"))
+                .willReturn(null);
+
+        assertThatThrownBy(() -> source.receive())
+                .isInstanceOf(UncategorizedJmsException.class);
+        verify(mockConnection).close();
+
+        assertThat(source.receive()).isNull();
+        verify(mockConnectionFactory, times(2)).createConnection();
+    }
+
+    @Test
+    public void shouldCloseConnectionWhenStopped() throws JMSException {
+        source.receive();
+        source.stop();
+
+        verify(mockConnection).close();
+        verify(mockConsumerMetrics, never()).recordFailure(anyInt());
+    }
+
+    private AcknowledgmentCallback getAcknowledgmentCallback(Message<?> message) {
+        return StaticMessageHeaderAccessor.getAcknowledgmentCallback(message);
+    }
+
+}
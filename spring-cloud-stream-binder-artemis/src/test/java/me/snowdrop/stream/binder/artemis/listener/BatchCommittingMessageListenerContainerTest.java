@@ -0,0 +1,105 @@
+package me.snowdrop.stream.binder.artemis.listener;
+
+import javax.jms.ConnectionFactory;
+import javax.jms.Message;
+import javax.jms.Session;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchCommittingMessageListenerContainerTest {
+
+    @Mock
+    private ConnectionFactory mockConnectionFactory;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Message mockMessage;
+
+    @Before
+    public void before() throws Exception {
+        given(mockSession.getTransacted()).willReturn(true);
+    }
+
+    @Test
+    public void shouldCommitFullBatch() throws Exception {
+        BatchCommittingMessageListenerContainer container = getContainer(3, 60000);
+
+        container.commitIfNecessary(mockSession, mockMessage);
+        container.commitIfNecessary(mockSession, mockMessage);
+        verify(mockSession, times(0)).commit();
+
+        container.commitIfNecessary(mockSession, mockMessage);
+        verify(mockSession).commit();
+    }
+
+    @Test
+    public void shouldCommitExpiredBatch() throws Exception {
+        BatchCommittingMessageListenerContainer container = getContainer(3, 1);
+
+        container.commitIfNecessary(mockSession, mockMessage);
+        verify(mockSession, times(0)).commit();
+
+        Thread.sleep(10);
+        container.commitIfNecessary(mockSession, mockMessage);
+        verify(mockSession).commit();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptZeroBatchTimeout() {
+        new BatchCommittingMessageListenerContainer(3, 0);
+    }
+
+    @Test
+    public void shouldCommitIncompleteBatchWhenNoMessageIsReceived() throws Exception {
+        BatchCommittingMessageListenerContainer container = getContainer(3, 60000);
+
+        container.commitIfNecessary(mockSession, mockMessage);
+        container.commitIfNecessary(mockSession, null);
+        verify(mockSession).commit();
+    }
+
+    @Test
+    public void shouldNotCommitEmptyBatch() throws Exception {
+        BatchCommittingMessageListenerContainer container = getContainer(3, 60000);
+
+        container.commitIfNecessary(mockSession, null);
+        verify(mockSession, times(0)).commit();
+    }
+
+    @Test
+    public void shouldStartNewBatchAfterRollback() throws Exception {
+        BatchCommittingMessageListenerContainer container = getContainer(3, 60000);
+
+        container.commitIfNecessary(mockSession, mockMessage);
+        container.commitIfNecessary(mockSession, mockMessage);
+        container.rollbackOnExceptionIfNecessary(mockSession, new RuntimeException("test"));
+        verify(mockSession).rollback();
+
+        container.commitIfNecessary(mockSession, mockMessage);
+        container.commitIfNecessary(mockSession, mockMessage);
+        verify(mockSession, times(0)).commit();
+
+        container.commitIfNecessary(mockSession, mockMessage);
+        verify(mockSession).commit();
+    }
+
+    private BatchCommittingMessageListenerContainer getContainer(int batchSize, long batchTimeout) {
+        BatchCommittingMessageListenerContainer container =
+                new BatchCommittingMessageListenerContainer(batchSize, batchTimeout);
+        container.setConnectionFactory(mockConnectionFactory);
+        container.setSessionTransacted(true);
+        return container;
+    }
+
+}
@@ -0,0 +1,103 @@
+package me.snowdrop.stream.binder.artemis.listener;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.jms.ConnectionFactory;
+import javax.jms.TextMessage;
+
+import me.snowdrop.stream.binder.artemis.metrics.ConsumerMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.messaging.Message;
+
+import static me.snowdrop.stream.binder.artemis.common.ArtemisHeaders.BATCH_CONVERTED_HEADERS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchMessageDrivenEndpointTest {
+
+    @Mock
+    private ConnectionFactory mockConnectionFactory;
+
+    @Mock
+    private TextMessage mockMessage1;
+
+    @Mock
+    private TextMessage mockMessage2;
+
+    private BatchReceivingMessageListenerContainer container;
+
+    private QueueChannel outputChannel;
+
+    @Before
+    public void before() throws Exception {
+        given(mockMessage1.getText()).willReturn("first");
+        given(mockMessage1.getJMSMessageID()).willReturn("first-id");
+        given(mockMessage2.getText()).willReturn("second");
+        given(mockMessage2.getJMSMessageID()).willReturn("second-id");
+
+        container = new BatchReceivingMessageListenerContainer(2, 1000);
+        container.setConnectionFactory(mockConnectionFactory);
+        container.setDestinationName("test-destination");
+        outputChannel = new QueueChannel();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldPublishBatch() throws Exception {
+        BatchMessageDrivenEndpoint endpoint = new BatchMessageDrivenEndpoint(container);
+        endpoint.setOutputChannel(outputChannel);
+        endpoint.setBeanFactory(new DefaultListableBeanFactory());
+        endpoint.afterPropertiesSet();
+
+        ((BatchMessageListener) container.getMessageListener())
+                .onMessages(Arrays.asList(mockMessage1, mockMessage2), null);
+
+        Message<?> message = outputChannel.receive(0);
+        assertThat(message).isNotNull();
+        assertThat((List<Object>) message.getPayload()).containsExactly("first", "second");
+
+        List<Map<String, Object>> headers = (List<Map<String, Object>>) message.getHeaders()
+                .get(BATCH_CONVERTED_HEADERS);
+        assertThat(headers).hasSize(2);
+        assertThat(headers.get(0)).containsEntry("jms_messageId", "first-id");
+        assertThat(headers.get(1)).containsEntry("jms_messageId", "second-id");
+    }
+
+    @Test
+    public void shouldRecordBatchMetrics() throws Exception {
+        ConsumerMetrics mockConsumerMetrics = mock(ConsumerMetrics.class);
+        BatchMessageDrivenEndpoint endpoint = new BatchMessageDrivenEndpoint(container);
+        endpoint.setOutputChannel(outputChannel);
+        endpoint.setBeanFactory(new DefaultListableBeanFactory());
+        endpoint.setConsumerMetrics(mockConsumerMetrics);
+        endpoint.afterPropertiesSet();
+
+        ((BatchMessageListener) container.getMessageListener())
+                .onMessages(Arrays.asList(mockMessage1, mockMessage2), null);
+
+        verify(mockConsumerMetrics, times(2)).recordReceive(0);
+        verify(mockConsumerMetrics).recordProcessing(anyLong(), eq(2), eq(11L));
+    }
+
+    @Test
+    public void shouldNotStartContainerAutomatically() {
+        new BatchMessageDrivenEndpoint(container);
+
+        assertThat(container.isAutoStartup()).isFalse();
+    }
+
+}
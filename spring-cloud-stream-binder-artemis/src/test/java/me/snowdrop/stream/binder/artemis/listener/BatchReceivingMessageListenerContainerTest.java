@@ -0,0 +1,129 @@
+package me.snowdrop.stream.binder.artemis.listener;
+
+import java.util.List;
+
+import javax.jms.ConnectionFactory;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchReceivingMessageListenerContainerTest {
+
+    @Mock
+    private ConnectionFactory mockConnectionFactory;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private MessageConsumer mockConsumer;
+
+    @Mock
+    private Message mockMessage1;
+
+    @Mock
+    private Message mockMessage2;
+
+    @Mock
+    private BatchMessageListener mockListener;
+
+    private BatchReceivingMessageListenerContainer container;
+
+    @Before
+    public void before() throws Exception {
+        given(mockSession.getTransacted()).willReturn(true);
+        container = new TestBatchReceivingMessageListenerContainer();
+        container.setConnectionFactory(mockConnectionFactory);
+        container.setSessionTransacted(true);
+        container.setAcceptMessagesWhileStopping(true);
+        container.setMessageListener(mockListener);
+    }
+
+    @Test
+    public void shouldReceiveFullBatch() throws Exception {
+        given(mockConsumer.receive(anyLong())).willReturn(mockMessage1, mockMessage2);
+
+        boolean received = container.doReceiveAndExecute(null, mockSession, mockConsumer, null);
+
+        assertThat(received).isTrue();
+        assertThat(getReceivedBatch()).containsExactly(mockMessage1, mockMessage2);
+        verify(mockSession).commit();
+    }
+
+    @Test
+    public void shouldReceiveIncompleteBatch() throws Exception {
+        given(mockConsumer.receive(anyLong())).willReturn(mockMessage1, (Message) null);
+
+        boolean received = container.doReceiveAndExecute(null, mockSession, mockConsumer, null);
+
+        assertThat(received).isTrue();
+        assertThat(getReceivedBatch()).containsExactly(mockMessage1);
+        verify(mockSession).commit();
+    }
+
+    @Test
+    public void shouldNotInvokeListenerWithoutMessages() throws Exception {
+        boolean received = container.doReceiveAndExecute(null, mockSession, mockConsumer, null);
+
+        assertThat(received).isFalse();
+        verify(mockListener, times(0)).onMessages(any(), any());
+    }
+
+    @Test
+    public void shouldRollbackFailedBatch() throws Exception {
+        given(mockConsumer.receive(anyLong())).willReturn(mockMessage1, mockMessage2);
+        willThrow(new RuntimeException("test")).given(mockListener).onMessages(any(), any());
+
+        container.doReceiveAndExecute(null, mockSession, mockConsumer, null);
+
+        verify(mockSession).rollback();
+        verify(mockSession, times(0)).commit();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectRegularListener() {
+        container.setMessageListener((javax.jms.MessageListener) message -> {
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Message> getReceivedBatch() throws Exception {
+        ArgumentCaptor<List<Message>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mockListener).onMessages(captor.capture(), any());
+        return captor.getValue();
+    }
+
+    // Invoker state is managed by the real container's consumer tasks, which are not used here
+    private static class TestBatchReceivingMessageListenerContainer extends BatchReceivingMessageListenerContainer {
+
+        TestBatchReceivingMessageListenerContainer() {
+            super(2, 60000);
+        }
+
+        @Override
+        protected void messageReceived(Object invoker, Session session) {
+        }
+
+        @Override
+        protected void noMessageReceived(Object invoker, Session session) {
+        }
+
+    }
+
+}
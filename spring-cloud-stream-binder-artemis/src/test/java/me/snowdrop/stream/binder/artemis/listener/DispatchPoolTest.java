@@ -0,0 +1,157 @@
+package me.snowdrop.stream.binder.artemis.listener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class DispatchPoolTest {
+
+    private final List<String> executed = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch blockerLatch = new CountDownLatch(1);
+
+    private DispatchPool pool;
+
+    @Before
+    public void before() {
+        pool = new DispatchPool(1);
+    }
+
+    @After
+    public void after() {
+        blockerLatch.countDown();
+        pool.close();
+    }
+
+    @Test
+    public void shouldExecuteTasks() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(2);
+        Executor executor = pool.createExecutor(1, 0, 0);
+
+        executor.execute(latch::countDown);
+        executor.execute(latch::countDown);
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void shouldShareThreadsByWeight() throws InterruptedException {
+        Executor lightExecutor = pool.createExecutor(1, 0, 0);
+        Executor heavyExecutor = pool.createExecutor(2, 0, 0);
+        block(pool.createExecutor(1, 0, 0));
+        CountDownLatch latch = new CountDownLatch(60);
+        for (int i = 0; i < 30; i++) {
+            lightExecutor.execute(record("light", latch));
+            heavyExecutor.execute(record("heavy", latch));
+        }
+
+        blockerLatch.countDown();
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        // Both lanes had a backlog during the first 30 tasks
+        assertThat(executed.subList(0, 30).stream().filter("heavy"::equals).count()).isEqualTo(20);
+    }
+
+    @Test
+    public void shouldPrioritizeBindingBelowMinThreads() throws InterruptedException {
+        Executor heavyExecutor = pool.createExecutor(100, 0, 0);
+        Executor reservedExecutor = pool.createExecutor(1, 1, 0);
+        block(pool.createExecutor(1, 0, 0));
+        CountDownLatch latch = new CountDownLatch(4);
+        for (int i = 0; i < 3; i++) {
+            heavyExecutor.execute(record("heavy", latch));
+        }
+        reservedExecutor.execute(record("reserved", latch));
+
+        blockerLatch.countDown();
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executed).containsExactly("reserved", "heavy", "heavy", "heavy");
+    }
+
+    @Test
+    public void shouldLimitThreadsOfBinding() throws InterruptedException {
+        pool.close();
+        pool = new DispatchPool(4);
+        Executor executor = pool.createExecutor(1, 0, 1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep();
+                running.decrementAndGet();
+                latch.countDown();
+            });
+        }
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRejectTasksOnceClosed() {
+        Executor executor = pool.createExecutor(1, 0, 0);
+
+        pool.close();
+
+        assertThatThrownBy(() -> executor.execute(() -> { }))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    public void shouldNotCreateExecutorWithoutWeight() {
+        assertThatThrownBy(() -> pool.createExecutor(0, 0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldNotCreateEmptyPool() {
+        assertThatThrownBy(() -> new DispatchPool(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void block(Executor executor) throws InterruptedException {
+        CountDownLatch startLatch = new CountDownLatch(1);
+        executor.execute(() -> {
+            startLatch.countDown();
+            try {
+                blockerLatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(startLatch.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private Runnable record(String name, CountDownLatch latch) {
+        return () -> {
+            executed.add(name);
+            latch.countDown();
+        };
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
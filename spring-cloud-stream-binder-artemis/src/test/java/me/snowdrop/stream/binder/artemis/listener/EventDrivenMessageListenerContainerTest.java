@@ -0,0 +1,45 @@
+package me.snowdrop.stream.binder.artemis.listener;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class EventDrivenMessageListenerContainerTest {
+
+    private EventDrivenMessageListenerContainer container;
+
+    @Before
+    public void before() {
+        container = new EventDrivenMessageListenerContainer();
+        container.setDestinationName("testTopic");
+        container.setSubscriptionDurable(true);
+        container.setConcurrentConsumers(2);
+    }
+
+    @Test
+    public void shouldAllowConcurrentConsumersOfSharedDurableSubscription() {
+        container.setSubscriptionShared(true);
+
+        container.validateConfiguration();
+    }
+
+    @Test
+    public void shouldNotAllowConcurrentConsumersOfUnsharedDurableSubscription() {
+        assertThatThrownBy(container::validateConfiguration)
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldRequireDestination() {
+        container.setSubscriptionShared(true);
+        container.setDestinationName(null);
+
+        assertThatThrownBy(container::validateConfiguration)
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -2,13 +2,21 @@ package me.snowdrop.stream.binder.artemis.listener;
 
 import javax.jms.ConnectionFactory;
 
+import me.snowdrop.stream.binder.artemis.common.VirtualThreadUtils;
+import me.snowdrop.stream.binder.artemis.properties.ArtemisConsumerProperties;
+import me.snowdrop.stream.binder.artemis.properties.ArtemisConsumerProperties.ContainerType;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.cloud.stream.binder.ExtendedConsumerProperties;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.jms.listener.AbstractMessageListenerContainer;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
 
 /**
  * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
@@ -18,15 +26,19 @@ public class ListenerContainerFactoryTest {
     @Mock
     private ConnectionFactory mockConnectionFactory;
 
+    private ExtendedConsumerProperties<ArtemisConsumerProperties> consumerProperties;
+
     @Before
     public void before() {
         MockitoAnnotations.initMocks(this);
+        consumerProperties = new ExtendedConsumerProperties<>(new ArtemisConsumerProperties());
     }
 
     @Test
     public void shouldGetListenerContainer() {
         ListenerContainerFactory factory = new ListenerContainerFactory(mockConnectionFactory);
-        AbstractMessageListenerContainer container = factory.getListenerContainer("testTopic", "testSubscription");
+        AbstractMessageListenerContainer container =
+                factory.getListenerContainer("testTopic", "testSubscription", consumerProperties);
         assertThat(container.getConnectionFactory()).isEqualTo(mockConnectionFactory);
         assertThat(container.getDestinationName()).isEqualTo("testTopic");
         assertThat(container.isPubSubDomain()).isTrue();
@@ -34,6 +46,194 @@ public class ListenerContainerFactoryTest {
         assertThat(container.isSessionTransacted()).isTrue();
         assertThat(container.isSubscriptionDurable()).isTrue();
         assertThat(container.isSubscriptionShared()).isTrue();
+        assertThat(container.getMessageSelector()).isNull();
+    }
+
+    @Test
+    public void shouldGetNonDurableListenerContainer() {
+        ListenerContainerFactory factory = new ListenerContainerFactory(mockConnectionFactory);
+        AbstractMessageListenerContainer container =
+                factory.getListenerContainer("testTopic", "testSubscription", false, consumerProperties);
+
+        assertThat(container.getSubscriptionName()).isEqualTo("testSubscription");
+        assertThat(container.isSubscriptionDurable()).isFalse();
+        assertThat(container.isSubscriptionShared()).isTrue();
+    }
+
+    @Test
+    public void shouldGetListenerContainerWithQueueFilter() {
+        consumerProperties.getExtension().setQueueFilter("type = 'test'");
+
+        ListenerContainerFactory factory = new ListenerContainerFactory(mockConnectionFactory);
+        AbstractMessageListenerContainer container =
+                factory.getListenerContainer("testTopic", "testSubscription", consumerProperties);
+
+        assertThat(container.getMessageSelector()).isEqualTo("type = 'test'");
+    }
+
+    @Test
+    public void shouldGetListenerContainerWithConcurrency() {
+        consumerProperties.setConcurrency(3);
+
+        ListenerContainerFactory factory = new ListenerContainerFactory(mockConnectionFactory);
+        DefaultMessageListenerContainer container = (DefaultMessageListenerContainer) factory
+                .getListenerContainer("testTopic", "testSubscription", consumerProperties);
+        assertThat(container.getConcurrentConsumers()).isEqualTo(3);
+        assertThat(container.getMaxConcurrentConsumers()).isEqualTo(3);
+        assertThat(container.getMaxMessagesPerTask()).isNotPositive();
+    }
+
+    @Test
+    public void shouldGetListenerContainerWithMaxConcurrency() {
+        consumerProperties.setConcurrency(2);
+        consumerProperties.getExtension().setMaxConcurrency(8);
+
+        ListenerContainerFactory factory = new ListenerContainerFactory(mockConnectionFactory);
+        DefaultMessageListenerContainer container = (DefaultMessageListenerContainer) factory
+                .getListenerContainer("testTopic", "testSubscription", consumerProperties);
+        assertThat(container.getConcurrentConsumers()).isEqualTo(2);
+        assertThat(container.getMaxConcurrentConsumers()).isEqualTo(8);
+        assertThat(container.getMaxMessagesPerTask()).isPositive();
+    }
+
+    @Test
+    public void shouldGetBatchCommittingListenerContainer() {
+        consumerProperties.getExtension().setTransactionBatchSize(10);
+        consumerProperties.getExtension().setTransactionBatchTimeout(500);
+
+        ListenerContainerFactory factory = new ListenerContainerFactory(mockConnectionFactory);
+        AbstractMessageListenerContainer container =
+                factory.getListenerContainer("testTopic", "testSubscription", consumerProperties);
+        assertThat(container).isInstanceOf(BatchCommittingMessageListenerContainer.class);
+        assertThat(container.isSessionTransacted()).isTrue();
+
+        BatchCommittingMessageListenerContainer batchContainer = (BatchCommittingMessageListenerContainer) container;
+        assertThat(batchContainer.getBatchSize()).isEqualTo(10);
+        assertThat(batchContainer.getBatchTimeout()).isEqualTo(500);
+    }
+
+    @Test
+    public void shouldGetBatchReceivingListenerContainer() {
+        consumerProperties.setBatchMode(true);
+        consumerProperties.getExtension().setBatchSize(50);
+        consumerProperties.getExtension().setBatchTimeout(200);
+
+        ListenerContainerFactory factory = new ListenerContainerFactory(mockConnectionFactory);
+        AbstractMessageListenerContainer container =
+                factory.getListenerContainer("testTopic", "testSubscription", consumerProperties);
+        assertThat(container).isInstanceOf(BatchReceivingMessageListenerContainer.class);
+
+        BatchReceivingMessageListenerContainer batchContainer = (BatchReceivingMessageListenerContainer) container;
+        assertThat(batchContainer.getBatchSize()).isEqualTo(50);
+        assertThat(batchContainer.getBatchTimeout()).isEqualTo(200);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotGetBatchReceivingBatchCommittingListenerContainer() {
+        consumerProperties.setBatchMode(true);
+        consumerProperties.getExtension().setTransactionBatchSize(10);
+
+        new ListenerContainerFactory(mockConnectionFactory)
+                .getListenerContainer("testTopic", "testSubscription", consumerProperties);
+    }
+
+    @Test
+    public void shouldGetEventDrivenListenerContainer() {
+        consumerProperties.setConcurrency(3);
+        consumerProperties.getExtension().setMaxConcurrency(8);
+        consumerProperties.getExtension().setContainerType(ContainerType.EVENT_DRIVEN);
+        consumerProperties.getExtension().setQueueFilter("type = 'test'");
+
+        ListenerContainerFactory factory = new ListenerContainerFactory(mockConnectionFactory);
+        AbstractMessageListenerContainer container =
+                factory.getListenerContainer("testTopic", "testSubscription", false, consumerProperties);
+        assertThat(container).isInstanceOf(EventDrivenMessageListenerContainer.class);
+        assertThat(container.getConnectionFactory()).isEqualTo(mockConnectionFactory);
+        assertThat(container.getDestinationName()).isEqualTo("testTopic");
+        assertThat(container.isPubSubDomain()).isTrue();
+        assertThat(container.getSubscriptionName()).isEqualTo("testSubscription");
+        assertThat(container.isSessionTransacted()).isTrue();
+        assertThat(container.isSubscriptionDurable()).isFalse();
+        assertThat(container.isSubscriptionShared()).isTrue();
+        assertThat(container.getMessageSelector()).isEqualTo("type = 'test'");
+        assertThat(((EventDrivenMessageListenerContainer) container).getConcurrentConsumers()).isEqualTo(3);
+        assertThat(new DirectFieldAccessor(container).getPropertyValue("taskExecutor")).isNull();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotGetEventDrivenBatchReceivingListenerContainer() {
+        consumerProperties.setBatchMode(true);
+        consumerProperties.getExtension().setContainerType(ContainerType.EVENT_DRIVEN);
+
+        new ListenerContainerFactory(mockConnectionFactory)
+                .getListenerContainer("testTopic", "testSubscription", consumerProperties);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotGetEventDrivenBatchCommittingListenerContainer() {
+        consumerProperties.getExtension().setTransactionBatchSize(10);
+        consumerProperties.getExtension().setContainerType(ContainerType.EVENT_DRIVEN);
+
+        new ListenerContainerFactory(mockConnectionFactory)
+                .getListenerContainer("testTopic", "testSubscription", consumerProperties);
+    }
+
+    @Test
+    public void shouldGetListenerContainerWithVirtualThreads() {
+        consumerProperties.getExtension().setVirtualThreads(true);
+
+        ListenerContainerFactory factory = new ListenerContainerFactory(mockConnectionFactory);
+        AbstractMessageListenerContainer container =
+                factory.getListenerContainer("testTopic", "testSubscription", consumerProperties);
+
+        Object taskExecutor = new DirectFieldAccessor(container).getPropertyValue("taskExecutor");
+        if (VirtualThreadUtils.isAvailable()) {
+            assertThat(taskExecutor).isInstanceOf(TaskExecutorAdapter.class);
+        } else {
+            // Falls back to the default executor created when the container is initialized
+            assertThat(taskExecutor).isNull();
+        }
+    }
+
+    @Test
+    public void shouldLimitConcurrencyOfVirtualThreads() {
+        assumeTrue(VirtualThreadUtils.isAvailable() && VirtualThreadUtils.getMaxBlockedThreads() < 10000);
+        consumerProperties.setConcurrency(10000);
+        consumerProperties.getExtension().setVirtualThreads(true);
+
+        ListenerContainerFactory factory = new ListenerContainerFactory(mockConnectionFactory);
+        DefaultMessageListenerContainer container = (DefaultMessageListenerContainer)
+                factory.getListenerContainer("testTopic", "testSubscription", consumerProperties);
+
+        assertThat(container.getConcurrentConsumers()).isEqualTo(VirtualThreadUtils.getMaxBlockedThreads());
+        assertThat(container.getMaxConcurrentConsumers()).isEqualTo(VirtualThreadUtils.getMaxBlockedThreads());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotGetEventDrivenListenerContainerWithAdaptiveConsumerWindow() {
+        consumerProperties.getExtension().setAdaptiveConsumerWindow(true);
+        consumerProperties.getExtension().setContainerType(ContainerType.EVENT_DRIVEN);
+
+        new ListenerContainerFactory(mockConnectionFactory)
+                .getListenerContainer("testTopic", "testSubscription", consumerProperties);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotGetEventDrivenListenerContainerWithVirtualThreads() {
+        consumerProperties.getExtension().setVirtualThreads(true);
+        consumerProperties.getExtension().setContainerType(ContainerType.EVENT_DRIVEN);
+
+        new ListenerContainerFactory(mockConnectionFactory)
+                .getListenerContainer("testTopic", "testSubscription", consumerProperties);
+    }
+
+    @Test
+    public void shouldGetListenerContainerWithoutVirtualThreads() {
+        ListenerContainerFactory factory = new ListenerContainerFactory(mockConnectionFactory);
+        AbstractMessageListenerContainer container =
+                factory.getListenerContainer("testTopic", "testSubscription", consumerProperties);
+
+        assertThat(new DirectFieldAccessor(container).getPropertyValue("taskExecutor")).isNull();
     }
 
 }
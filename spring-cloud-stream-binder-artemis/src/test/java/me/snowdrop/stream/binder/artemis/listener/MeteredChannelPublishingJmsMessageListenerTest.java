@@ -0,0 +1,99 @@
+package me.snowdrop.stream.binder.artemis.listener;
+
+import java.nio.file.Path;
+
+import javax.jms.BytesMessage;
+import javax.jms.TextMessage;
+
+import me.snowdrop.stream.binder.artemis.common.LargeMessageConverter;
+import me.snowdrop.stream.binder.artemis.metrics.ConsumerMetrics;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.jms.support.converter.SimpleMessageConverter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MeteredChannelPublishingJmsMessageListenerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private ConsumerMetrics mockConsumerMetrics;
+
+    @Mock
+    private TextMessage mockMessage;
+
+    private MeteredChannelPublishingJmsMessageListener listener;
+
+    @Before
+    public void before() throws Exception {
+        given(mockMessage.getText()).willReturn("test");
+        given(mockMessage.getJMSTimestamp()).willReturn(1L);
+
+        listener = new MeteredChannelPublishingJmsMessageListener();
+        listener.setBeanFactory(new DefaultListableBeanFactory());
+        listener.setConsumerMetrics(mockConsumerMetrics);
+    }
+
+    @Test
+    public void shouldRecordProcessedMessage() throws Exception {
+        QueueChannel channel = new QueueChannel();
+        listener.setRequestChannel(channel);
+        listener.afterPropertiesSet();
+
+        listener.onMessage(mockMessage, null);
+
+        assertThat(channel.receive(0)).isNotNull();
+        verify(mockConsumerMetrics).recordReceive(1L);
+        verify(mockConsumerMetrics).recordProcessing(anyLong(), eq(1), eq(4L));
+    }
+
+    @Test
+    public void shouldRecordFailedMessage() throws Exception {
+        MessageChannel mockChannel = mock(MessageChannel.class);
+        given(mockChannel.send(any(), anyLong())).willThrow(new MessageDeliveryException("test"));
+        listener.setRequestChannel(mockChannel);
+        listener.afterPropertiesSet();
+
+        assertThatThrownBy(() -> listener.onMessage(mockMessage, null))
+                .isInstanceOf(MessageDeliveryException.class);
+
+        verify(mockConsumerMetrics).recordFailure(1);
+    }
+
+    @Test
+    public void shouldDeleteSavedFileOnceMessageIsHandled() throws Exception {
+        LargeMessageConverter converter = new LargeMessageConverter(new SimpleMessageConverter());
+        converter.setDirectory(temporaryFolder.getRoot().toPath());
+        QueueChannel channel = new QueueChannel();
+        listener.setMessageConverter(converter);
+        listener.setRequestChannel(channel);
+        listener.afterPropertiesSet();
+
+        listener.onMessage(mock(BytesMessage.class), null);
+
+        Message<?> message = channel.receive(0);
+        assertThat(message.getPayload()).isInstanceOf(Path.class);
+        assertThat((Path) message.getPayload()).doesNotExist();
+    }
+
+}
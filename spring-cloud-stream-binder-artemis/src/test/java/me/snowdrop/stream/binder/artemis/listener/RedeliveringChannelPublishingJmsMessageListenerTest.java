@@ -0,0 +1,98 @@
+package me.snowdrop.stream.binder.artemis.listener;
+
+import javax.jms.TextMessage;
+
+import me.snowdrop.stream.binder.artemis.metrics.ConsumerMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.retry.RecoveryCallback;
+
+import static me.snowdrop.stream.binder.artemis.listener.RedeliveringChannelPublishingJmsMessageListener.DELIVERY_COUNT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class RedeliveringChannelPublishingJmsMessageListenerTest {
+
+    @Mock
+    private ConsumerMetrics mockConsumerMetrics;
+
+    @Mock
+    private RecoveryCallback<Object> mockRecoveryCallback;
+
+    @Mock
+    private TextMessage mockMessage;
+
+    private RedeliveringChannelPublishingJmsMessageListener listener;
+
+    @Before
+    public void before() throws Exception {
+        given(mockMessage.getText()).willReturn("test");
+
+        listener = new RedeliveringChannelPublishingJmsMessageListener(3, mockRecoveryCallback);
+        listener.setBeanFactory(new DefaultListableBeanFactory());
+        listener.setConsumerMetrics(mockConsumerMetrics);
+    }
+
+    @Test
+    public void shouldDeliverMessage() throws Exception {
+        given(mockMessage.getIntProperty(DELIVERY_COUNT)).willReturn(1);
+        QueueChannel channel = new QueueChannel();
+        listener.setRequestChannel(channel);
+        listener.afterPropertiesSet();
+
+        listener.onMessage(mockMessage, null);
+
+        assertThat(channel.receive(0)).isNotNull();
+        verify(mockConsumerMetrics, never()).recordRetry();
+    }
+
+    @Test
+    public void shouldRethrowFailureForRedelivery() throws Exception {
+        given(mockMessage.getIntProperty(DELIVERY_COUNT)).willReturn(2);
+        listener.setRequestChannel(getFailingChannel());
+        listener.afterPropertiesSet();
+
+        assertThatThrownBy(() -> listener.onMessage(mockMessage, null))
+                .isInstanceOf(MessageDeliveryException.class);
+
+        verify(mockConsumerMetrics).recordRetry();
+        verify(mockRecoveryCallback, never()).recover(any());
+    }
+
+    @Test
+    public void shouldRecoverLastAttempt() throws Exception {
+        given(mockMessage.getIntProperty(DELIVERY_COUNT)).willReturn(3);
+        listener.setRequestChannel(getFailingChannel());
+        listener.afterPropertiesSet();
+
+        listener.onMessage(mockMessage, null);
+
+        verify(mockConsumerMetrics).recordRetry();
+        verify(mockConsumerMetrics).recordRecovery();
+        verify(mockRecoveryCallback).recover(any());
+    }
+
+    private MessageChannel getFailingChannel() {
+        MessageChannel mockChannel = mock(MessageChannel.class);
+        given(mockChannel.send(any(), anyLong())).willThrow(new MessageDeliveryException("test"));
+        return mockChannel;
+    }
+
+}
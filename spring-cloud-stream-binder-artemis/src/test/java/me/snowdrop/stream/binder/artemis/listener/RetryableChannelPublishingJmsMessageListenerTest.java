@@ -0,0 +1,211 @@
+package me.snowdrop.stream.binder.artemis.listener;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import javax.jms.TextMessage;
+
+import me.snowdrop.stream.binder.artemis.metrics.ConsumerMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.jms.JmsHeaderMapper;
+import org.springframework.integration.support.ErrorMessageUtils;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.retry.RecoveryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.backoff.NoBackOffPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class RetryableChannelPublishingJmsMessageListenerTest {
+
+    @Mock
+    private ConsumerMetrics mockConsumerMetrics;
+
+    @Mock
+    private RecoveryCallback<Object> mockRecoveryCallback;
+
+    @Mock
+    private MessageConverter mockMessageConverter;
+
+    @Mock
+    private JmsHeaderMapper mockHeaderMapper;
+
+    @Mock
+    private MessageChannel mockChannel;
+
+    @Mock
+    private TextMessage mockMessage;
+
+    private RetryableChannelPublishingJmsMessageListener listener;
+
+    @Before
+    public void before() throws Exception {
+        given(mockMessageConverter.fromMessage(mockMessage)).willReturn("test");
+
+        RetryTemplate retryTemplate = new RetryTemplate();
+        retryTemplate.setRetryPolicy(new SimpleRetryPolicy(3));
+        retryTemplate.setBackOffPolicy(new NoBackOffPolicy());
+
+        listener = new RetryableChannelPublishingJmsMessageListener(retryTemplate, mockRecoveryCallback);
+        listener.setBeanFactory(new DefaultListableBeanFactory());
+        listener.setConsumerMetrics(mockConsumerMetrics);
+        listener.setMessageConverter(mockMessageConverter);
+        listener.setRequestChannel(mockChannel);
+        listener.afterPropertiesSet();
+    }
+
+    @Test
+    public void shouldConvertMessageOnce() throws Exception {
+        given(mockChannel.send(any(), anyLong()))
+                .willThrow(new MessageDeliveryException("test"))
+                .willReturn(true);
+
+        listener.onMessage(mockMessage, null);
+
+        verify(mockMessageConverter).fromMessage(mockMessage);
+        List<Object> payloads = getSentMessages(2).stream()
+                .map(Message::getPayload)
+                .collect(Collectors.toList());
+        assertThat(payloads).containsExactly("test", "test");
+        verify(mockConsumerMetrics).recordRetry();
+    }
+
+    @Test
+    public void shouldMapHeadersOnce() throws Exception {
+        given(mockHeaderMapper.toHeaders(mockMessage)).willReturn(Collections.singletonMap("test-header", "test"));
+        given(mockChannel.send(any(), anyLong()))
+                .willThrow(new MessageDeliveryException("test"))
+                .willReturn(true);
+        listener.setHeaderMapper(mockHeaderMapper);
+
+        listener.onMessage(mockMessage, null);
+
+        verify(mockHeaderMapper).toHeaders(mockMessage);
+        List<Object> headers = getSentMessages(2).stream()
+                .map(m -> m.getHeaders().get("test-header"))
+                .collect(Collectors.toList());
+        assertThat(headers).containsExactly("test", "test");
+    }
+
+    @Test
+    public void shouldReadSavedStreamedPayloadForEveryAttempt() throws Exception {
+        given(mockMessageConverter.fromMessage(mockMessage)).willReturn(new ByteArrayInputStream(new byte[] { 1, 2 }));
+        List<byte[]> payloads = new ArrayList<>();
+        given(mockChannel.send(any(), anyLong()))
+                .willAnswer(i -> {
+                    payloads.add(readPayload(i.getArgument(0, Message.class)));
+                    throw new MessageDeliveryException("test");
+                })
+                .willAnswer(i -> {
+                    payloads.add(readPayload(i.getArgument(0, Message.class)));
+                    return true;
+                });
+
+        listener.onMessage(mockMessage, null);
+
+        verify(mockMessageConverter).fromMessage(mockMessage);
+        assertThat(payloads).containsExactly(new byte[] { 1, 2 }, new byte[] { 1, 2 });
+    }
+
+    @Test
+    public void shouldDeleteSavedStreamedPayload() throws Exception {
+        given(mockMessageConverter.fromMessage(mockMessage)).willReturn(new ByteArrayInputStream(new byte[] { 1 }));
+        AtomicReference<Path> savedPayload = new AtomicReference<>();
+        AtomicBoolean savedPayloadExisted = new AtomicBoolean();
+        given(mockChannel.send(any(), anyLong()))
+                .willAnswer(i -> {
+                    savedPayload.set(getSavedPayload());
+                    savedPayloadExisted.set(Files.exists(savedPayload.get()));
+                    return true;
+                });
+
+        listener.onMessage(mockMessage, null);
+
+        assertThat(savedPayloadExisted).isTrue();
+        assertThat(savedPayload.get()).doesNotExist();
+    }
+
+    @Test
+    public void shouldSetDeliveryAttempt() throws Exception {
+        given(mockChannel.send(any(), anyLong()))
+                .willThrow(new MessageDeliveryException("test"))
+                .willThrow(new MessageDeliveryException("test"))
+                .willReturn(true);
+
+        listener.onMessage(mockMessage, null);
+
+        List<Integer> attempts = getSentMessages(3).stream()
+                .map(m -> m.getHeaders().get(IntegrationMessageHeaderAccessor.DELIVERY_ATTEMPT, AtomicInteger.class))
+                .map(AtomicInteger::get)
+                .collect(Collectors.toList());
+        assertThat(attempts).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    public void shouldRecoverFailedMessage() throws Exception {
+        given(mockChannel.send(any(), anyLong()))
+                .willAnswer(i -> {
+                    throw new MessageDeliveryException(i.getArgument(0, Message.class), "test");
+                });
+
+        listener.onMessage(mockMessage, null);
+
+        ArgumentCaptor<RetryContext> contextCaptor = ArgumentCaptor.forClass(RetryContext.class);
+        verify(mockRecoveryCallback).recover(contextCaptor.capture());
+        Message<?> failedMessage =
+                (Message<?>) contextCaptor.getValue().getAttribute(ErrorMessageUtils.FAILED_MESSAGE_CONTEXT_KEY);
+        assertThat(failedMessage.getPayload()).isEqualTo("test");
+        verify(mockConsumerMetrics).recordRecovery();
+    }
+
+    private byte[] readPayload(Message<?> message) throws IOException {
+        return StreamUtils.copyToByteArray((InputStream) message.getPayload());
+    }
+
+    private Path getSavedPayload() throws Exception {
+        ThreadLocal<?> currentDelivery =
+                (ThreadLocal<?>) new DirectFieldAccessor(listener).getPropertyValue("currentDelivery");
+        return (Path) new DirectFieldAccessor(currentDelivery.get()).getPropertyValue("savedPayload");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Message<?>> getSentMessages(int count) {
+        ArgumentCaptor<Message<?>> captor = ArgumentCaptor.forClass(Message.class);
+        verify(mockChannel, times(count)).send(captor.capture(), anyLong());
+        return captor.getAllValues();
+    }
+
+}
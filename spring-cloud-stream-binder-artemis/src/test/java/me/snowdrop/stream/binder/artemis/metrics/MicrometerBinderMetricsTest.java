@@ -0,0 +1,177 @@
+package me.snowdrop.stream.binder.artemis.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MicrometerBinderMetricsTest {
+
+    private final Tags consumerTags = Tags.of("destination", "test-destination", "group", "test-group",
+            "partition", "1");
+
+    private MeterRegistry meterRegistry;
+
+    private MicrometerBinderMetrics binderMetrics;
+
+    @Before
+    public void before() {
+        meterRegistry = new SimpleMeterRegistry();
+        binderMetrics = new MicrometerBinderMetrics(meterRegistry);
+    }
+
+    @Test
+    public void shouldRecordSend() {
+        ProducerMetrics producerMetrics = binderMetrics.getProducerMetrics("test-destination");
+
+        producerMetrics.recordSend(TimeUnit.MILLISECONDS.toNanos(5), 10);
+        producerMetrics.recordSend(TimeUnit.MILLISECONDS.toNanos(15), 20);
+        producerMetrics.recordFailure();
+
+        Tags tags = Tags.of("destination", "test-destination");
+        assertThat(meterRegistry.get("artemis.binder.producer.send").tags(tags).timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("artemis.binder.producer.send").tags(tags).timer()
+                .totalTime(TimeUnit.MILLISECONDS)).isEqualTo(20);
+        assertThat(meterRegistry.get("artemis.binder.producer.messages").tags(tags).counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("artemis.binder.producer.bytes").tags(tags).counter().count()).isEqualTo(30);
+        assertThat(meterRegistry.get("artemis.binder.producer.failures").tags(tags).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRecordProcessing() {
+        ConsumerMetrics consumerMetrics = binderMetrics.getConsumerMetrics("test-destination", "test-group", 1);
+
+        consumerMetrics.recordProcessing(TimeUnit.MILLISECONDS.toNanos(5), 3, 30);
+        consumerMetrics.recordFailure(2);
+        consumerMetrics.recordRetry();
+        consumerMetrics.recordRecovery();
+
+        assertThat(meterRegistry.get("artemis.binder.consumer.processing").tags(consumerTags).timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("artemis.binder.consumer.messages").tags(consumerTags).counter().count())
+                .isEqualTo(3);
+        assertThat(meterRegistry.get("artemis.binder.consumer.bytes").tags(consumerTags).counter().count())
+                .isEqualTo(30);
+        assertThat(meterRegistry.get("artemis.binder.consumer.failures").tags(consumerTags).counter().count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get("artemis.binder.consumer.retries").tags(consumerTags).counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("artemis.binder.consumer.recoveries").tags(consumerTags).counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRecordReceiveOnlyWithTimestamp() {
+        ConsumerMetrics consumerMetrics = binderMetrics.getConsumerMetrics("test-destination", "test-group", 1);
+
+        consumerMetrics.recordReceive(0);
+        consumerMetrics.recordReceive(System.currentTimeMillis());
+
+        assertThat(meterRegistry.get("artemis.binder.consumer.receive").tags(consumerTags).timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void shouldTagAnonymousUnpartitionedConsumer() {
+        binderMetrics.getConsumerMetrics("test-destination", null, null)
+                .recordRetry();
+
+        assertThat(meterRegistry.get("artemis.binder.consumer.retries")
+                .tags("destination", "test-destination", "group", "anonymous", "partition", "none")
+                .counter()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldShareMetersOfSameBinding() {
+        binderMetrics.getProducerMetrics("test-destination").recordFailure();
+        binderMetrics.getProducerMetrics("test-destination").recordFailure();
+
+        assertThat(meterRegistry.get("artemis.binder.producer.failures").counters()).hasSize(1);
+        assertThat(meterRegistry.get("artemis.binder.producer.failures").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldRemoveSharedMetersOnceAllBindingsAreRemoved() {
+        ProducerMetrics first = binderMetrics.getProducerMetrics("test-destination");
+        ProducerMetrics second = binderMetrics.getProducerMetrics("test-destination");
+
+        binderMetrics.removeProducerMetrics(first);
+        binderMetrics.removeProducerMetrics(first);
+        assertThat(meterRegistry.find("artemis.binder.producer.send").timer()).isNotNull();
+
+        binderMetrics.removeProducerMetrics(second);
+        assertThat(meterRegistry.find("artemis.binder.producer.send").timer()).isNull();
+        assertThat(meterRegistry.find("artemis.binder.producer.failures").counter()).isNull();
+    }
+
+    @Test
+    public void shouldRemoveConsumerMeters() {
+        ConsumerMetrics consumerMetrics = binderMetrics.getConsumerMetrics("test-destination", "test-group", 1);
+
+        binderMetrics.removeConsumerMetrics(consumerMetrics);
+
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
+
+    @Test
+    public void shouldRegisterQueueGauges() {
+        QueueStatistics statistics = new QueueStatistics("activemq.management", "test-queue");
+        statistics.update(10, 2, 100, 3, 1000);
+
+        binderMetrics.registerQueueStatistics("test-destination", "test-group", 1, statistics);
+
+        Tags tags = consumerTags.and("queue", "test-queue");
+        assertThat(meterRegistry.get("artemis.binder.consumer.queue.messages").tags(tags).gauge().value())
+                .isEqualTo(10);
+        assertThat(meterRegistry.get("artemis.binder.consumer.queue.delivering").tags(tags).gauge().value())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get("artemis.binder.consumer.queue.added.rate").tags(tags).gauge().value())
+                .isNaN();
+        assertThat(meterRegistry.get("artemis.binder.consumer.queue.consumers").tags(tags).gauge().value())
+                .isEqualTo(3);
+    }
+
+    @Test
+    public void shouldRegisterQueueGaugesOfAnonymousBindingsOfSameDestination() {
+        QueueStatistics first = new QueueStatistics("activemq.management", "first-queue");
+        QueueStatistics second = new QueueStatistics("activemq.management", "second-queue");
+        first.update(10, 2, 100, 3, 1000);
+        second.update(20, 2, 100, 3, 1000);
+
+        binderMetrics.registerQueueStatistics("test-destination", null, null, first);
+        binderMetrics.registerQueueStatistics("test-destination", null, null, second);
+        binderMetrics.removeQueueStatistics(first);
+
+        assertThat(meterRegistry.find("artemis.binder.consumer.queue.messages").tag("queue", "first-queue").gauge())
+                .isNull();
+        assertThat(meterRegistry.get("artemis.binder.consumer.queue.messages").tags("group", "anonymous",
+                "queue", "second-queue").gauge().value()).isEqualTo(20);
+    }
+
+    @Test
+    public void shouldRemoveQueueGauges() {
+        QueueStatistics statistics = new QueueStatistics("activemq.management", "test-queue");
+        binderMetrics.registerQueueStatistics("test-destination", "test-group", 1, statistics);
+
+        binderMetrics.removeQueueStatistics(statistics);
+
+        assertThat(meterRegistry.find("artemis.binder.consumer.queue.messages").gauge()).isNull();
+    }
+
+    @Test
+    public void shouldRecordProvisioning() {
+        binderMetrics.recordProvisioning("test-destination", null, TimeUnit.MILLISECONDS.toNanos(5));
+
+        assertThat(meterRegistry.get("artemis.binder.provisioning")
+                .tags("destination", "test-destination", "group", "none")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,49 @@
+package me.snowdrop.stream.binder.artemis.metrics;
+
+import me.snowdrop.stream.binder.artemis.common.CoreSessionFactory;
+import org.apache.activemq.artemis.api.core.ActiveMQException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@RunWith(MockitoJUnitRunner.class)
+public class QueueStatisticsCollectorTest {
+
+    @Mock
+    private CoreSessionFactory mockSessionFactory;
+
+    private QueueStatisticsCollector collector;
+
+    @Before
+    public void before() throws Exception {
+        given(mockSessionFactory.createSessionFactory()).willThrow(new ActiveMQException("test"));
+        collector = new QueueStatisticsCollector(mockSessionFactory, 60000);
+    }
+
+    @After
+    public void after() {
+        collector.close();
+    }
+
+    @Test
+    public void shouldResetStatisticsOfAllQueuesIfBrokerIsNotAvailable() {
+        QueueStatistics first = collector.register("activemq.management", "first-queue");
+        QueueStatistics second = collector.register("activemq.management", "second-queue");
+        // Stop the scheduled collection to collect on the test thread
+        collector.close();
+        first.update(10, 2, 100, 3, 1000);
+        second.update(10, 2, 100, 3, 1000);
+
+        collector.collect();
+
+        assertThat(first.getMessageCount()).isNaN();
+        assertThat(second.getMessageCount()).isNaN();
+    }
+
+}
@@ -0,0 +1,48 @@
+package me.snowdrop.stream.binder.artemis.metrics;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueueStatisticsTest {
+
+    private final QueueStatistics statistics = new QueueStatistics("activemq.management", "test-queue");
+
+    @Test
+    public void shouldNotHaveValuesBeforeUpdate() {
+        assertThat(statistics.getMessageCount()).isNaN();
+        assertThat(statistics.getDeliveringCount()).isNaN();
+        assertThat(statistics.getMessagesAddedRate()).isNaN();
+        assertThat(statistics.getConsumerCount()).isNaN();
+    }
+
+    @Test
+    public void shouldUpdateValues() {
+        statistics.update(10, 2, 100, 3, 1000);
+
+        assertThat(statistics.getMessageCount()).isEqualTo(10);
+        assertThat(statistics.getDeliveringCount()).isEqualTo(2);
+        assertThat(statistics.getConsumerCount()).isEqualTo(3);
+        // Rate needs two updates
+        assertThat(statistics.getMessagesAddedRate()).isNaN();
+    }
+
+    @Test
+    public void shouldCalculateMessagesAddedRate() {
+        statistics.update(10, 2, 100, 3, 1000);
+        statistics.update(10, 2, 150, 3, 3000);
+
+        assertThat(statistics.getMessagesAddedRate()).isEqualTo(25);
+    }
+
+    @Test
+    public void shouldResetValues() {
+        statistics.update(10, 2, 100, 3, 1000);
+        statistics.reset();
+        statistics.update(10, 2, 150, 3, 3000);
+
+        assertThat(statistics.getMessageCount()).isEqualTo(10);
+        assertThat(statistics.getMessagesAddedRate()).isNaN();
+    }
+
+}
@@ -0,0 +1,413 @@
+package me.snowdrop.stream.binder.artemis.producer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import me.snowdrop.stream.binder.artemis.codec.PayloadCodec;
+import me.snowdrop.stream.binder.artemis.common.CoreSessionFactory;
+import me.snowdrop.stream.binder.artemis.metrics.ProducerMetrics;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.ActiveMQException;
+import org.apache.activemq.artemis.api.core.Message;
+import org.apache.activemq.artemis.api.core.RoutingType;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.api.core.client.ClientMessage;
+import org.apache.activemq.artemis.api.core.client.ClientProducer;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
+import org.apache.activemq.artemis.api.core.client.SendAcknowledgementHandler;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import static me.snowdrop.stream.binder.artemis.common.ArtemisHeaders.COMPRESSION;
+import static org.apache.activemq.artemis.api.core.SimpleString.toSimpleString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyByte;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArtemisCoreMessageHandlerTest {
+
+    @Mock
+    private CoreSessionFactory mockCoreSessionFactory;
+
+    @Mock
+    private CoreSessionFactory mockCopiedCoreSessionFactory;
+
+    @Mock
+    private ClientSessionFactory mockClientSessionFactory;
+
+    @Mock
+    private ClientSession mockClientSession;
+
+    @Mock
+    private ClientProducer mockClientProducer;
+
+    @Mock
+    private ClientMessage mockClientMessage;
+
+    @Mock
+    private ActiveMQBuffer mockBodyBuffer;
+
+    private ArtemisCoreMessageHandler handler;
+
+    @Before
+    public void before() throws Exception {
+        given(mockCoreSessionFactory.createSessionFactory()).willReturn(mockClientSessionFactory);
+        given(mockCoreSessionFactory.createSession(mockClientSessionFactory, true, true))
+                .willReturn(mockClientSession);
+        given(mockClientSession.createProducer(any(SimpleString.class))).willReturn(mockClientProducer);
+        given(mockClientSession.createMessage(anyByte(), anyBoolean())).willReturn(mockClientMessage);
+        given(mockClientMessage.getBodyBuffer()).willReturn(mockBodyBuffer);
+
+        handler = new ArtemisCoreMessageHandler(mockCoreSessionFactory,
+                message -> (String) message.getHeaders().get("address"));
+        handler.start();
+    }
+
+    @Test
+    public void shouldSendBytesMessage() throws ActiveMQException {
+        byte[] payload = "test".getBytes();
+        handler.handleMessage(MessageBuilder.withPayload(payload)
+                .setHeader("address", "test-address")
+                .setHeader("contentType", "text/plain")
+                .setHeader("custom", 1)
+                .setHeader("jms_type", "ignored")
+                .build());
+
+        verify(mockClientSession).createProducer(toSimpleString("test-address"));
+        verify(mockClientSession).createMessage(Message.BYTES_TYPE, true);
+        verify(mockBodyBuffer).writeBytes(payload);
+        verify(mockClientMessage).setRoutingType(RoutingType.MULTICAST);
+        verify(mockClientMessage).putStringProperty("content_type", "text/plain");
+        verify(mockClientMessage).putObjectProperty("custom", 1);
+        verify(mockClientMessage).putObjectProperty("address", "test-address");
+        verify(mockClientMessage, never()).putObjectProperty("jms_type", "ignored");
+        verify(mockClientProducer).send(mockClientMessage);
+    }
+
+    @Test
+    public void shouldCompressBytesMessage() throws Exception {
+        PayloadCodec mockCodec = mock(PayloadCodec.class);
+        byte[] payload = "test".getBytes();
+        byte[] encodedPayload = "encoded".getBytes();
+        given(mockCodec.getName()).willReturn("test-codec");
+        given(mockCodec.encode(payload)).willReturn(encodedPayload);
+        handler.setCompression(mockCodec, payload.length);
+
+        handler.handleMessage(MessageBuilder.withPayload(payload)
+                .setHeader("address", "test-address")
+                .setHeader(COMPRESSION, "stale")
+                .build());
+
+        verify(mockBodyBuffer).writeBytes(encodedPayload);
+        verify(mockClientMessage).putStringProperty(COMPRESSION, "test-codec");
+        verify(mockClientMessage, never()).putObjectProperty(COMPRESSION, "stale");
+    }
+
+    @Test
+    public void shouldSendTextMessage() throws ActiveMQException {
+        handler.handleMessage(MessageBuilder.withPayload("test")
+                .setHeader("address", "test-address")
+                .build());
+
+        verify(mockClientSession).createMessage(Message.TEXT_TYPE, true);
+        verify(mockClientProducer).send(mockClientMessage);
+    }
+
+    @Test
+    public void shouldStreamPathPayload() throws Exception {
+        Path file = Files.createTempFile("artemis-test", ".msg");
+        try {
+            Files.write(file, "test".getBytes());
+
+            handler.handleMessage(MessageBuilder.withPayload(file)
+                    .setHeader("address", "test-address")
+                    .build());
+
+            ArgumentCaptor<InputStream> streamCaptor = ArgumentCaptor.forClass(InputStream.class);
+            verify(mockClientSession).createMessage(Message.BYTES_TYPE, true);
+            verify(mockClientMessage).setBodyInputStream(streamCaptor.capture());
+            verify(mockClientProducer).send(mockClientMessage);
+            assertThatThrownBy(() -> streamCaptor.getValue().read()).isInstanceOf(IOException.class);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void shouldRecordSendMetrics() {
+        ProducerMetrics mockProducerMetrics = mock(ProducerMetrics.class);
+        handler.setProducerMetrics(mockProducerMetrics);
+
+        handler.handleMessage(MessageBuilder.withPayload("test".getBytes())
+                .setHeader("address", "test-address")
+                .build());
+        assertThatThrownBy(() -> handler.handleMessage(MessageBuilder.withPayload(1)
+                .setHeader("address", "test-address")
+                .build())).isInstanceOf(MessageHandlingException.class);
+
+        verify(mockProducerMetrics).recordSend(anyLong(), eq(4L));
+        verify(mockProducerMetrics).recordFailure();
+    }
+
+    @Test
+    public void shouldReuseSessionAndProducer() throws Exception {
+        handler.handleMessage(MessageBuilder.withPayload("first")
+                .setHeader("address", "test-address")
+                .build());
+        handler.handleMessage(MessageBuilder.withPayload("second")
+                .setHeader("address", "test-address")
+                .build());
+
+        verify(mockCoreSessionFactory, times(1)).createSessionFactory();
+        verify(mockClientSession, times(1)).createProducer(any(SimpleString.class));
+        verify(mockClientProducer, times(2)).send(mockClientMessage);
+    }
+
+    @Test
+    public void shouldCreateProducerPerAddress() throws ActiveMQException {
+        handler.handleMessage(MessageBuilder.withPayload("first")
+                .setHeader("address", "first-address")
+                .build());
+        handler.handleMessage(MessageBuilder.withPayload("second")
+                .setHeader("address", "second-address")
+                .build());
+
+        verify(mockClientSession).createProducer(toSimpleString("first-address"));
+        verify(mockClientSession).createProducer(toSimpleString("second-address"));
+    }
+
+    @Test
+    public void shouldRecreateSessionAfterFailure() throws Exception {
+        willThrow(new ActiveMQException("test")).given(mockClientProducer).send(any(Message.class));
+
+        assertThatThrownBy(() -> handler.handleMessage(MessageBuilder.withPayload("test")
+                .setHeader("address", "test-address")
+                .build())).isInstanceOf(MessageDeliveryException.class);
+        verify(mockClientSession).close();
+        verify(mockClientSessionFactory).close();
+
+        assertThatThrownBy(() -> handler.handleMessage(MessageBuilder.withPayload("test")
+                .setHeader("address", "test-address")
+                .build())).isInstanceOf(MessageDeliveryException.class);
+        verify(mockCoreSessionFactory, times(2)).createSessionFactory();
+    }
+
+    @Test
+    public void shouldRejectUnsupportedPayload() {
+        assertThatThrownBy(() -> handler.handleMessage(MessageBuilder.withPayload(1)
+                .setHeader("address", "test-address")
+                .build())).isInstanceOf(MessageHandlingException.class);
+    }
+
+    @Test
+    public void shouldCloseSessionOnStop() throws Exception {
+        handler.handleMessage(MessageBuilder.withPayload("test")
+                .setHeader("address", "test-address")
+                .build());
+        handler.stop();
+
+        assertThat(handler.isRunning()).isFalse();
+        verify(mockClientSession).close();
+        verify(mockClientSessionFactory).close();
+    }
+
+    @Test
+    public void shouldSendAsynchronouslyAndPublishConfirmation() throws Exception {
+        QueueChannel confirmAckChannel = new QueueChannel();
+        ArtemisCoreMessageHandler asyncHandler = createAsyncHandler(10);
+        asyncHandler.setConfirmAckChannel(confirmAckChannel);
+
+        org.springframework.messaging.Message<String> message = MessageBuilder.withPayload("test")
+                .setHeader("address", "test-address")
+                .build();
+        asyncHandler.handleMessage(message);
+
+        verify(mockCopiedCoreSessionFactory).createSession(mockClientSessionFactory, true, true);
+        verify(mockClientProducer, never()).send(any(Message.class));
+        assertThat(confirmAckChannel.receive(0)).isNull();
+
+        getAcknowledgementHandler().sendAcknowledged(mockClientMessage);
+
+        assertThat(confirmAckChannel.receive(0)).isSameAs(message);
+    }
+
+    @Test
+    public void shouldPublishAsynchronousSendFailure() throws Exception {
+        QueueChannel sendFailureChannel = new QueueChannel();
+        ArtemisCoreMessageHandler asyncHandler = createAsyncHandler(10);
+        asyncHandler.setSendFailureChannel(sendFailureChannel);
+
+        org.springframework.messaging.Message<String> message = MessageBuilder.withPayload("test")
+                .setHeader("address", "test-address")
+                .build();
+        asyncHandler.handleMessage(message);
+        getAcknowledgementHandler().sendFailed(mockClientMessage, new ActiveMQException("test"));
+
+        org.springframework.messaging.Message<?> errorMessage = sendFailureChannel.receive(0);
+        assertThat(errorMessage).isInstanceOf(ErrorMessage.class);
+        assertThat(((ErrorMessage) errorMessage).getOriginalMessage()).isSameAs(message);
+        assertThat(((ErrorMessage) errorMessage).getPayload()).isInstanceOf(MessageDeliveryException.class);
+    }
+
+    @Test
+    public void shouldBoundInFlightMessages() throws Exception {
+        ArtemisCoreMessageHandler asyncHandler = createAsyncHandler(1);
+        asyncHandler.handleMessage(MessageBuilder.withPayload("first")
+                .setHeader("address", "test-address")
+                .build());
+
+        CompletableFuture<Void> secondSend = CompletableFuture.runAsync(
+                () -> asyncHandler.handleMessage(MessageBuilder.withPayload("second")
+                        .setHeader("address", "test-address")
+                        .build()));
+        assertThatThrownBy(() -> secondSend.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+
+        getAcknowledgementHandler().sendAcknowledged(mockClientMessage);
+
+        secondSend.get(5, TimeUnit.SECONDS);
+        verify(mockClientProducer, times(2)).send(any(Message.class), any(SendAcknowledgementHandler.class));
+    }
+
+    @Test
+    public void shouldWaitForPendingConfirmationsOnStop() throws Exception {
+        QueueChannel sendFailureChannel = new QueueChannel();
+        ArtemisCoreMessageHandler asyncHandler = createAsyncHandler(10);
+        asyncHandler.setSendFailureChannel(sendFailureChannel);
+        asyncHandler.handleMessage(MessageBuilder.withPayload("test")
+                .setHeader("address", "test-address")
+                .build());
+
+        CompletableFuture.runAsync(asyncHandler::stop);
+        getAcknowledgementHandler().sendAcknowledged(mockClientMessage);
+
+        assertThat(sendFailureChannel.receive(0)).isNull();
+        verify(mockClientSession, timeout(5000)).close();
+        verify(mockCopiedCoreSessionFactory, timeout(5000)).close();
+    }
+
+    private ArtemisCoreMessageHandler createAsyncHandler(int maxInFlight) throws Exception {
+        given(mockCoreSessionFactory.copy(any())).willReturn(mockCopiedCoreSessionFactory);
+        given(mockCopiedCoreSessionFactory.createSessionFactory()).willReturn(mockClientSessionFactory);
+        given(mockCopiedCoreSessionFactory.createSession(mockClientSessionFactory, true, true))
+                .willReturn(mockClientSession);
+
+        ArtemisCoreMessageHandler asyncHandler = new ArtemisCoreMessageHandler(mockCoreSessionFactory,
+                message -> (String) message.getHeaders().get("address"));
+        asyncHandler.setAsyncSend(true);
+        asyncHandler.setMaxInFlight(maxInFlight);
+        asyncHandler.start();
+
+        return asyncHandler;
+    }
+
+    private SendAcknowledgementHandler getAcknowledgementHandler() throws ActiveMQException {
+        ArgumentCaptor<SendAcknowledgementHandler> captor = ArgumentCaptor.forClass(SendAcknowledgementHandler.class);
+        verify(mockClientProducer).send(any(Message.class), captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    public void shouldCommitFullTransactionBatch() throws Exception {
+        ArtemisCoreMessageHandler batchingHandler = createBatchingHandler(2, 60000);
+
+        batchingHandler.handleMessage(MessageBuilder.withPayload("first")
+                .setHeader("address", "test-address")
+                .build());
+        verify(mockClientSession, never()).commit();
+
+        batchingHandler.handleMessage(MessageBuilder.withPayload("second")
+                .setHeader("address", "test-address")
+                .build());
+        verify(mockClientSession).commit();
+        verify(mockClientProducer, times(2)).send(mockClientMessage);
+    }
+
+    @Test
+    public void shouldCommitExpiredTransactionBatch() throws Exception {
+        ArtemisCoreMessageHandler batchingHandler = createBatchingHandler(10, 100);
+
+        batchingHandler.handleMessage(MessageBuilder.withPayload("test")
+                .setHeader("address", "test-address")
+                .build());
+
+        verify(mockClientSession, timeout(5000)).commit();
+    }
+
+    @Test
+    public void shouldCommitTransactionBatchOnStop() throws Exception {
+        ArtemisCoreMessageHandler batchingHandler = createBatchingHandler(10, 60000);
+
+        batchingHandler.handleMessage(MessageBuilder.withPayload("test")
+                .setHeader("address", "test-address")
+                .build());
+        batchingHandler.stop();
+
+        verify(mockClientSession).commit();
+        verify(mockClientSession).close();
+    }
+
+    @Test
+    public void shouldPublishFailedTransactionBatch() throws Exception {
+        willThrow(new ActiveMQException("test")).given(mockClientSession).commit();
+        QueueChannel sendFailureChannel = new QueueChannel();
+        ArtemisCoreMessageHandler batchingHandler = createBatchingHandler(2, 60000);
+        batchingHandler.setSendFailureChannel(sendFailureChannel);
+
+        batchingHandler.handleMessage(MessageBuilder.withPayload("first")
+                .setHeader("address", "test-address")
+                .build());
+        batchingHandler.handleMessage(MessageBuilder.withPayload("second")
+                .setHeader("address", "test-address")
+                .build());
+
+        assertThat(((ErrorMessage) sendFailureChannel.receive(0)).getOriginalMessage().getPayload())
+                .isEqualTo("first");
+        assertThat(((ErrorMessage) sendFailureChannel.receive(0)).getOriginalMessage().getPayload())
+                .isEqualTo("second");
+        verify(mockClientSession).close();
+    }
+
+    private ArtemisCoreMessageHandler createBatchingHandler(int batchSize, long batchTimeout) throws Exception {
+        given(mockCoreSessionFactory.createSession(mockClientSessionFactory, false, true))
+                .willReturn(mockClientSession);
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.initialize();
+
+        ArtemisCoreMessageHandler batchingHandler = new ArtemisCoreMessageHandler(mockCoreSessionFactory,
+                message -> (String) message.getHeaders().get("address"));
+        batchingHandler.setTransactionBatch(batchSize, 0, batchTimeout, false);
+        batchingHandler.setTaskScheduler(taskScheduler);
+        batchingHandler.start();
+
+        return batchingHandler;
+    }
+
+}
@@ -0,0 +1,68 @@
+package me.snowdrop.stream.binder.artemis.producer;
+
+import org.junit.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProducerTransactionBatchTest {
+
+    private final Message<String> message = new GenericMessage<>("test");
+
+    @Test
+    public void shouldBeFullWhenSizeIsReached() {
+        ProducerTransactionBatch batch = new ProducerTransactionBatch(2, 0, 1000, false);
+        batch.add(message, 10);
+        assertThat(batch.isFull()).isFalse();
+        batch.add(message, 10);
+        assertThat(batch.isFull()).isTrue();
+        assertThat(batch.complete(true)).hasSize(2);
+        assertThat(batch.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void shouldBeFullWhenByteBudgetIsReached() {
+        ProducerTransactionBatch batch = new ProducerTransactionBatch(10, 15, 1000, false);
+        batch.add(message, 10);
+        assertThat(batch.isFull()).isFalse();
+        batch.add(message, 10);
+        assertThat(batch.isFull()).isTrue();
+    }
+
+    @Test
+    public void shouldExpire() {
+        ProducerTransactionBatch batch = new ProducerTransactionBatch(10, 0, 1000, false);
+        assertThat(batch.isExpired(System.currentTimeMillis() + 2000)).isFalse();
+        batch.add(message, 10);
+        assertThat(batch.isExpired(System.currentTimeMillis())).isFalse();
+        assertThat(batch.isExpired(System.currentTimeMillis() + 2000)).isTrue();
+    }
+
+    @Test
+    public void shouldKeepTargetSizeIfNotAdaptive() {
+        ProducerTransactionBatch batch = new ProducerTransactionBatch(10, 0, 1000, false);
+        assertThat(batch.getTargetSize()).isEqualTo(10);
+        batch.complete(false);
+        assertThat(batch.getTargetSize()).isEqualTo(10);
+    }
+
+    @Test
+    public void shouldGrowAndShrinkIfAdaptive() {
+        ProducerTransactionBatch batch = new ProducerTransactionBatch(6, 0, 1000, true);
+        assertThat(batch.getTargetSize()).isEqualTo(1);
+        batch.complete(true);
+        assertThat(batch.getTargetSize()).isEqualTo(2);
+        batch.complete(true);
+        assertThat(batch.getTargetSize()).isEqualTo(4);
+        batch.complete(true);
+        assertThat(batch.getTargetSize()).isEqualTo(6);
+        batch.complete(false);
+        assertThat(batch.getTargetSize()).isEqualTo(3);
+        batch.complete(false);
+        batch.complete(false);
+        batch.complete(false);
+        assertThat(batch.getTargetSize()).isEqualTo(1);
+    }
+
+}
@@ -1,11 +1,19 @@
 package me.snowdrop.stream.binder.artemis.provisioning;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 import me.snowdrop.stream.binder.artemis.properties.ArtemisCommonProperties;
+import org.apache.activemq.artemis.api.core.ActiveMQInternalErrorException;
+import org.apache.activemq.artemis.api.core.ActiveMQNotConnectedException;
+import org.apache.activemq.artemis.api.core.QueueConfiguration;
 import org.apache.activemq.artemis.api.core.RoutingType;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.api.core.client.ClientSession;
 import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
 import org.apache.activemq.artemis.api.core.client.ServerLocator;
+import org.apache.activemq.artemis.api.core.management.AddressSettingsInfo;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -22,10 +30,13 @@ import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
-// TODO Find a reasonable way to test address settings change
+// TODO Find a reasonable way to test address settings request
 @RunWith(MockitoJUnitRunner.class)
 public class ArtemisBrokerManagerTest {
 
@@ -58,6 +69,7 @@ public class ArtemisBrokerManagerTest {
                 anyBoolean(), anyInt())).willReturn(mockClientSession);
         given(mockClientSession.addressQuery(any(SimpleString.class))).willReturn(mockAddressQuery);
         given(mockClientSession.queueQuery(any(SimpleString.class))).willReturn(mockQueueQuery);
+        given(mockClientSession.getSessionFactory()).willReturn(mockClientSessionFactory);
         artemisCommonProperties = new ArtemisCommonProperties();
     }
 
@@ -70,7 +82,6 @@ public class ArtemisBrokerManagerTest {
         verify(mockClientSessionFactory).createSession();
         verify(mockClientSession).start();
         verify(mockClientSession).createAddress(address, MULTICAST, true);
-        verify(mockClientSession).stop();
         verify(mockClientSession, times(0)).queueQuery(any(SimpleString.class));
         verify(mockClientSession, times(0)).createMessage(anyBoolean());
     }
@@ -87,7 +98,6 @@ public class ArtemisBrokerManagerTest {
         verify(mockClientSessionFactory).createSession("user", "pass", true, false, false, true, 1);
         verify(mockClientSession).start();
         verify(mockClientSession).createAddress(address, MULTICAST, true);
-        verify(mockClientSession).stop();
         verify(mockClientSession, times(0)).queueQuery(any(SimpleString.class));
         verify(mockClientSession, times(0)).createMessage(anyBoolean());
     }
@@ -102,7 +112,6 @@ public class ArtemisBrokerManagerTest {
         verify(mockServerLocator).createSessionFactory();
         verify(mockClientSessionFactory).createSession();
         verify(mockClientSession).start();
-        verify(mockClientSession).stop();
         verify(mockClientSession, times(0)).createAddress(any(), any(RoutingType.class), anyBoolean());
         verify(mockClientSession, times(0)).queueQuery(any(SimpleString.class));
         verify(mockClientSession, times(0)).createMessage(anyBoolean());
@@ -123,6 +132,233 @@ public class ArtemisBrokerManagerTest {
         }
     }
 
+    @Test
+    public void shouldReuseSession() throws Exception {
+        ArtemisBrokerManager manager = new ArtemisBrokerManager(mockServerLocator, null, null);
+        manager.createAddress(address.toString(), artemisCommonProperties);
+        manager.createQueue(address.toString(), queue.toString());
+
+        verify(mockServerLocator).createSessionFactory();
+        verify(mockClientSessionFactory).createSession();
+        verify(mockClientSession).start();
+        verify(mockClientSession, never()).close();
+    }
+
+    @Test
+    public void shouldReconnectAfterConnectionFailure() throws Exception {
+        ClientSessionFactory mockNewClientSessionFactory = mock(ClientSessionFactory.class);
+        ClientSession mockNewClientSession = mock(ClientSession.class);
+        given(mockServerLocator.createSessionFactory())
+                .willReturn(mockClientSessionFactory, mockNewClientSessionFactory);
+        given(mockNewClientSessionFactory.createSession()).willReturn(mockNewClientSession);
+        given(mockNewClientSession.addressQuery(any(SimpleString.class))).willReturn(mockAddressQuery);
+        given(mockNewClientSession.getSessionFactory()).willReturn(mockNewClientSessionFactory);
+        willThrow(new ActiveMQNotConnectedException()).given(mockClientSession)
+                .createAddress(address, MULTICAST, true);
+
+        ArtemisBrokerManager manager = new ArtemisBrokerManager(mockServerLocator, null, null);
+        manager.createAddress(address.toString(), artemisCommonProperties);
+
+        verify(mockClientSession).close();
+        verify(mockClientSessionFactory).close();
+        verify(mockNewClientSession).createAddress(address, MULTICAST, true);
+    }
+
+    @Test
+    public void shouldDiscardSessionAfterFailure() throws Exception {
+        willThrow(new ActiveMQInternalErrorException()).given(mockClientSession)
+                .createAddress(address, MULTICAST, true);
+
+        ArtemisBrokerManager manager = new ArtemisBrokerManager(mockServerLocator, null, null);
+
+        try {
+            manager.createAddress(address.toString(), artemisCommonProperties);
+            fail("Provisioning exception was expected");
+        } catch (ProvisioningException ignored) {
+        }
+
+        verify(mockClientSession).close();
+        verify(mockClientSessionFactory, never()).close();
+        verify(mockServerLocator).createSessionFactory();
+    }
+
+    @Test
+    public void shouldCloseSessions() throws Exception {
+        ArtemisBrokerManager manager = new ArtemisBrokerManager(mockServerLocator, null, null);
+        manager.createQueue(address.toString(), queue.toString());
+        manager.close();
+
+        verify(mockClientSession).close();
+        verify(mockClientSessionFactory).close();
+        verify(mockServerLocator, never()).close();
+    }
+
+    @Test
+    public void shouldNotQueryCachedAddress() throws Exception {
+        ArtemisBrokerManager manager = new ArtemisBrokerManager(mockServerLocator, null, null);
+        manager.createAddress(address.toString(), artemisCommonProperties);
+        manager.createAddress(address.toString(), artemisCommonProperties);
+
+        verify(mockClientSession).addressQuery(address);
+        verify(mockClientSession).createAddress(address, MULTICAST, true);
+    }
+
+    @Test
+    public void shouldQueryAddressIfCacheIsDisabled() throws Exception {
+        given(mockAddressQuery.isExists()).willReturn(true);
+
+        ArtemisBrokerManager manager = new ArtemisBrokerManager(mockServerLocator, null, null, 0, 0);
+        manager.createAddress(address.toString(), artemisCommonProperties);
+        manager.createAddress(address.toString(), artemisCommonProperties);
+
+        verify(mockClientSession, times(2)).addressQuery(address);
+    }
+
+    @Test
+    public void shouldQueryAddressAgainAfterFailure() throws Exception {
+        willThrow(new ActiveMQInternalErrorException()).willDoNothing().given(mockClientSession)
+                .createAddress(address, MULTICAST, true);
+
+        ArtemisBrokerManager manager = new ArtemisBrokerManager(mockServerLocator, null, null);
+        try {
+            manager.createAddress(address.toString(), artemisCommonProperties);
+            fail("Provisioning exception was expected");
+        } catch (ProvisioningException ignored) {
+        }
+        manager.createAddress(address.toString(), artemisCommonProperties);
+        manager.createAddress(address.toString(), artemisCommonProperties);
+
+        verify(mockClientSession, times(2)).addressQuery(address);
+    }
+
+    @Test
+    public void shouldNotQueryCachedQueue() throws Exception {
+        ArtemisBrokerManager manager = new ArtemisBrokerManager(mockServerLocator, null, null);
+        manager.createQueue(address.toString(), queue.toString());
+        manager.createQueue(address.toString(), queue.toString());
+
+        verify(mockClientSession).queueQuery(queue);
+        verify(mockClientSession).createSharedQueue(getQueueConfiguration());
+    }
+
+    @Test
+    public void shouldQueryCachedQueueWithAnotherAddress() throws Exception {
+        ArtemisBrokerManager manager = new ArtemisBrokerManager(mockServerLocator, null, null);
+        manager.createQueue(address.toString(), queue.toString());
+        given(mockQueueQuery.isExists()).willReturn(true);
+        given(mockQueueQuery.getAddress()).willReturn(address);
+
+        try {
+            manager.createQueue("another-address", queue.toString());
+            fail("Provisioning exception was expected");
+        } catch (ProvisioningException ignored) {
+        }
+        manager.createQueue(address.toString(), queue.toString());
+
+        verify(mockClientSession, times(3)).queueQuery(queue);
+    }
+
+    @Test
+    public void shouldClearCache() throws Exception {
+        given(mockAddressQuery.isExists()).willReturn(true);
+
+        ArtemisBrokerManager manager = new ArtemisBrokerManager(mockServerLocator, null, null);
+        manager.createAddress(address.toString(), artemisCommonProperties);
+        manager.clearCache();
+        manager.createAddress(address.toString(), artemisCommonProperties);
+
+        verify(mockClientSession, times(2)).addressQuery(address);
+    }
+
+    @Test
+    public void shouldKeepCurrentAddressSettings() throws Exception {
+        ArtemisBrokerManager manager = new ArtemisBrokerManager(mockServerLocator, null, null);
+        Object[] parameters = manager.getAddressSettingsParameters(address.toString(), artemisCommonProperties,
+                getAddressSettings());
+
+        assertThat(parameters).hasSize(22);
+        assertThat(parameters[6]).isEqualTo(1L);
+        assertThat(parameters[7]).isEqualTo(2);
+        assertThat(parameters[8]).isEqualTo(3);
+        assertThat(parameters[12]).isEqualTo(4L);
+        assertThat(parameters[14]).isEqualTo("PAGE");
+        assertThat(parameters[15]).isEqualTo(5L);
+        assertThat(parameters[16]).isEqualTo(6L);
+        assertThat(parameters[17]).isEqualTo("KILL");
+    }
+
+    @Test
+    public void shouldOverrideAddressSettings() throws Exception {
+        artemisCommonProperties.setBrokerMaxSizeBytes(10L);
+        artemisCommonProperties.setBrokerPageSizeBytes(20);
+        artemisCommonProperties.setBrokerPageCacheMaxSize(30);
+        artemisCommonProperties.setBrokerRedistributionDelay(40L);
+        artemisCommonProperties.setBrokerAddressFullMessagePolicy(ArtemisCommonProperties.AddressFullMessagePolicy.BLOCK);
+        artemisCommonProperties.setBrokerSlowConsumerThreshold(50L);
+        artemisCommonProperties.setBrokerSlowConsumerCheckPeriod(60L);
+        artemisCommonProperties.setBrokerSlowConsumerPolicy(ArtemisCommonProperties.SlowConsumerPolicy.NOTIFY);
+
+        ArtemisBrokerManager manager = new ArtemisBrokerManager(mockServerLocator, null, null);
+        Object[] parameters = manager.getAddressSettingsParameters(address.toString(), artemisCommonProperties,
+                getAddressSettings());
+
+        assertThat(parameters[6]).isEqualTo(10L);
+        assertThat(parameters[7]).isEqualTo(20);
+        assertThat(parameters[8]).isEqualTo(30);
+        assertThat(parameters[12]).isEqualTo(40L);
+        assertThat(parameters[14]).isEqualTo("BLOCK");
+        assertThat(parameters[15]).isEqualTo(50L);
+        assertThat(parameters[16]).isEqualTo(60L);
+        assertThat(parameters[17]).isEqualTo("NOTIFY");
+    }
+
+    @Test
+    public void shouldGetDefaultQueueConfiguration() {
+        ArtemisBrokerManager manager = new ArtemisBrokerManager(mockServerLocator, null, null);
+        QueueConfiguration configuration =
+                manager.getQueueConfiguration(address.toString(), queue.toString(), artemisCommonProperties);
+
+        assertThat((Object) configuration.getAddress()).isEqualTo(address);
+        assertThat((Object) configuration.getName()).isEqualTo(queue);
+        assertThat(configuration.getRoutingType()).isEqualTo(MULTICAST);
+        assertThat(configuration.isDurable()).isTrue();
+        assertThat(configuration.getMaxConsumers()).isNull();
+        assertThat(configuration.isExclusive()).isNull();
+        assertThat(configuration.getConsumersBeforeDispatch()).isNull();
+        assertThat(configuration.getDelayBeforeDispatch()).isNull();
+        assertThat((Object) configuration.getLastValueKey()).isNull();
+        assertThat(configuration.isNonDestructive()).isNull();
+        assertThat(configuration.getRingSize()).isNull();
+        assertThat((Object) configuration.getFilterString()).isNull();
+    }
+
+    @Test
+    public void shouldGetQueueConfiguration() {
+        artemisCommonProperties.setQueueDurable(false);
+        artemisCommonProperties.setQueueMaxConsumers(1);
+        artemisCommonProperties.setQueueExclusive(true);
+        artemisCommonProperties.setQueueConsumersBeforeDispatch(2);
+        artemisCommonProperties.setQueueDelayBeforeDispatch(3L);
+        artemisCommonProperties.setQueueLastValueKey("test-key");
+        artemisCommonProperties.setQueueNonDestructive(true);
+        artemisCommonProperties.setQueueRingSize(4L);
+        artemisCommonProperties.setQueueFilter("JMSPriority > 4");
+
+        ArtemisBrokerManager manager = new ArtemisBrokerManager(mockServerLocator, null, null);
+        QueueConfiguration configuration =
+                manager.getQueueConfiguration(address.toString(), queue.toString(), artemisCommonProperties);
+
+        assertThat(configuration.isDurable()).isFalse();
+        assertThat(configuration.getMaxConsumers()).isEqualTo(1);
+        assertThat(configuration.isExclusive()).isTrue();
+        assertThat(configuration.getConsumersBeforeDispatch()).isEqualTo(2);
+        assertThat(configuration.getDelayBeforeDispatch()).isEqualTo(3L);
+        assertThat(configuration.getLastValueKey().toString()).isEqualTo("test-key");
+        assertThat(configuration.isNonDestructive()).isTrue();
+        assertThat(configuration.getRingSize()).isEqualTo(4L);
+        assertThat(configuration.getFilterString().toString()).isEqualTo("AMQPriority > 4");
+    }
+
     @Test
     public void shouldCreateQueue() throws Exception {
         ArtemisBrokerManager manager = new ArtemisBrokerManager(mockServerLocator, null, null);
@@ -130,7 +366,7 @@ public class ArtemisBrokerManagerTest {
 
         verify(mockServerLocator).createSessionFactory();
         verify(mockClientSessionFactory).createSession();
-        verify(mockClientSession).createSharedQueue(address, MULTICAST, queue, true);
+        verify(mockClientSession).createSharedQueue(getQueueConfiguration());
     }
 
     @Test
@@ -143,7 +379,7 @@ public class ArtemisBrokerManagerTest {
 
         verify(mockServerLocator).createSessionFactory();
         verify(mockClientSessionFactory).createSession("user", "pass", true, false, false, true, 1);
-        verify(mockClientSession).createSharedQueue(address, MULTICAST, queue, true);
+        verify(mockClientSession).createSharedQueue(getQueueConfiguration());
     }
 
     @Test
@@ -156,7 +392,7 @@ public class ArtemisBrokerManagerTest {
 
         verify(mockServerLocator).createSessionFactory();
         verify(mockClientSessionFactory).createSession();
-        verify(mockClientSession, times(0)).createSharedQueue(any(), any(RoutingType.class), any(), anyBoolean());
+        verify(mockClientSession, times(0)).createSharedQueue(any(QueueConfiguration.class));
     }
 
     @Test
@@ -193,4 +429,13 @@ public class ArtemisBrokerManagerTest {
         }
     }
 
+    private AddressSettingsInfo getAddressSettings() throws Exception {
+        byte[] json = Files.readAllBytes(Paths.get(getClass().getResource("/address-settings.json").toURI()));
+        return AddressSettingsInfo.from(new String(json, StandardCharsets.UTF_8));
+    }
+
+    private QueueConfiguration getQueueConfiguration() {
+        return new QueueConfiguration(queue).setAddress(address).setRoutingType(MULTICAST).setDurable(true);
+    }
+
 }
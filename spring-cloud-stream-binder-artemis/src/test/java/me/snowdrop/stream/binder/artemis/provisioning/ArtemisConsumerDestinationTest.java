@@ -16,4 +16,15 @@ public class ArtemisConsumerDestinationTest {
         assertThat(destination.getName()).isEqualTo(name);
     }
 
+    @Test
+    public void shouldGetAnonymousGroupName() {
+        ArtemisConsumerDestination destination = new ArtemisConsumerDestination("test-name");
+        ArtemisConsumerDestination anotherDestination = new ArtemisConsumerDestination("test-name");
+
+        assertThat(destination.getAnonymousGroupName())
+                .startsWith("anonymous-")
+                .isEqualTo(destination.getAnonymousGroupName())
+                .isNotEqualTo(anotherDestination.getAnonymousGroupName());
+    }
+
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import org.junit.Test;
 
 import static me.snowdrop.stream.binder.artemis.common.NamingUtils.getPartitionAddress;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
@@ -24,4 +25,28 @@ public class ArtemisProducerDestinationTest {
         assertThat(destination.getNameForPartition(0)).isEqualTo(getPartitionAddress(name, 0));
     }
 
+    @Test
+    public void shouldGetTopic() {
+        String name = "test-name";
+        ArtemisProducerDestination destination = new ArtemisProducerDestination(name);
+        assertThat(destination.getTopic().getAddress()).isEqualTo(name);
+    }
+
+    @Test
+    public void shouldGetPartitionTopics() {
+        String name = "test-name";
+        ArtemisProducerDestination destination = new ArtemisProducerDestination(name, 2);
+        assertThat(destination.getPartitionTopic(0).getAddress()).isEqualTo(getPartitionAddress(name, 0));
+        assertThat(destination.getPartitionTopic(1).getAddress()).isEqualTo(getPartitionAddress(name, 1));
+        assertThat(destination.getPartitionTopic(1)).isSameAs(destination.getPartitionTopic(1));
+        assertThat(destination.getNameForPartition(1)).isEqualTo(getPartitionAddress(name, 1));
+    }
+
+    @Test
+    public void shouldNotGetPartitionTopicOutOfRange() {
+        ArtemisProducerDestination destination = new ArtemisProducerDestination("test-name", 2);
+        assertThatThrownBy(() -> destination.getPartitionTopic(2)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> destination.getPartitionTopic(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
 }
@@ -1,21 +1,29 @@
 package me.snowdrop.stream.binder.artemis.provisioning;
 
+import java.util.concurrent.ExecutorService;
+
 import me.snowdrop.stream.binder.artemis.properties.ArtemisConsumerProperties;
 import me.snowdrop.stream.binder.artemis.properties.ArtemisProducerProperties;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.beans.DirectFieldAccessor;
 import org.springframework.cloud.stream.binder.ExtendedConsumerProperties;
 import org.springframework.cloud.stream.binder.ExtendedProducerProperties;
 import org.springframework.cloud.stream.provisioning.ConsumerDestination;
 import org.springframework.cloud.stream.provisioning.ProducerDestination;
+import org.springframework.cloud.stream.provisioning.ProvisioningException;
 
 import static me.snowdrop.stream.binder.artemis.common.NamingUtils.getQueueName;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -54,6 +62,11 @@ public class ArtemisProvisioningProviderTest {
         provider = new ArtemisProvisioningProvider(mockArtemisBrokerManager);
     }
 
+    @After
+    public void after() {
+        provider.close();
+    }
+
     @Test
     public void shouldProvisionUnpartitionedProducer() {
         ProducerDestination destination = provider.provisionProducerDestination(address, mockProducerProperties);
@@ -61,7 +74,7 @@ public class ArtemisProvisioningProviderTest {
         assertThat(destination).isInstanceOf(ArtemisProducerDestination.class);
         assertThat(destination.getName()).isEqualTo(address);
         verify(mockArtemisBrokerManager).createAddress(address, mockArtemisProducerProperties);
-        verify(mockArtemisBrokerManager, times(0)).createQueue(anyString(), anyString());
+        verify(mockArtemisBrokerManager, times(0)).createQueue(anyString(), anyString(), any());
     }
 
     @Test
@@ -73,8 +86,10 @@ public class ArtemisProvisioningProviderTest {
         assertThat(destination).isInstanceOf(ArtemisProducerDestination.class);
         assertThat(destination.getName()).isEqualTo(address);
         verify(mockArtemisBrokerManager).createAddress(address, mockArtemisProducerProperties);
-        verify(mockArtemisBrokerManager).createQueue(address, getQueueName(address, groups[0]));
-        verify(mockArtemisBrokerManager).createQueue(address, getQueueName(address, groups[1]));
+        verify(mockArtemisBrokerManager)
+                .createQueue(address, getQueueName(address, groups[0]), mockArtemisProducerProperties);
+        verify(mockArtemisBrokerManager)
+                .createQueue(address, getQueueName(address, groups[1]), mockArtemisProducerProperties);
     }
 
     @Test
@@ -92,7 +107,7 @@ public class ArtemisProvisioningProviderTest {
         assertThat(destination.getNameForPartition(1)).isEqualTo(partitionedAddress1);
         verify(mockArtemisBrokerManager).createAddress(partitionedAddress0, mockArtemisProducerProperties);
         verify(mockArtemisBrokerManager).createAddress(partitionedAddress1, mockArtemisProducerProperties);
-        verify(mockArtemisBrokerManager, times(0)).createQueue(anyString(), anyString());
+        verify(mockArtemisBrokerManager, times(0)).createQueue(anyString(), anyString(), any());
     }
 
     @Test
@@ -111,10 +126,117 @@ public class ArtemisProvisioningProviderTest {
         assertThat(destination.getNameForPartition(1)).isEqualTo(partitionedAddress1);
         verify(mockArtemisBrokerManager).createAddress(partitionedAddress0, mockArtemisProducerProperties);
         verify(mockArtemisBrokerManager).createAddress(partitionedAddress1, mockArtemisProducerProperties);
-        verify(mockArtemisBrokerManager).createQueue(partitionedAddress0, getQueueName(partitionedAddress0, groups[0]));
-        verify(mockArtemisBrokerManager).createQueue(partitionedAddress0, getQueueName(partitionedAddress0, groups[1]));
-        verify(mockArtemisBrokerManager).createQueue(partitionedAddress1, getQueueName(partitionedAddress1, groups[0]));
-        verify(mockArtemisBrokerManager).createQueue(partitionedAddress1, getQueueName(partitionedAddress1, groups[1]));
+        verify(mockArtemisBrokerManager)
+                .createQueue(partitionedAddress0, getQueueName(partitionedAddress0, groups[0]),
+                        mockArtemisProducerProperties);
+        verify(mockArtemisBrokerManager)
+                .createQueue(partitionedAddress0, getQueueName(partitionedAddress0, groups[1]),
+                        mockArtemisProducerProperties);
+        verify(mockArtemisBrokerManager)
+                .createQueue(partitionedAddress1, getQueueName(partitionedAddress1, groups[0]),
+                        mockArtemisProducerProperties);
+        verify(mockArtemisBrokerManager)
+                .createQueue(partitionedAddress1, getQueueName(partitionedAddress1, groups[1]),
+                        mockArtemisProducerProperties);
+    }
+
+    @Test
+    public void shouldProvisionPartitionedProducerConcurrently() {
+        given(mockProducerProperties.getRequiredGroups()).willReturn(groups);
+        given(mockProducerProperties.isPartitioned()).willReturn(true);
+        given(mockProducerProperties.getPartitionCount()).willReturn(10);
+        provider.setProvisioningConcurrency(4);
+
+        provider.provisionProducerDestination(address, mockProducerProperties);
+
+        for (int i = 0; i < 10; i++) {
+            String partitionedAddress = String.format("%s-%d", address, i);
+            verify(mockArtemisBrokerManager).createAddress(partitionedAddress, mockArtemisProducerProperties);
+            verify(mockArtemisBrokerManager)
+                    .createQueue(partitionedAddress, getQueueName(partitionedAddress, groups[0]),
+                            mockArtemisProducerProperties);
+            verify(mockArtemisBrokerManager)
+                    .createQueue(partitionedAddress, getQueueName(partitionedAddress, groups[1]),
+                            mockArtemisProducerProperties);
+        }
+    }
+
+    @Test
+    public void shouldAggregateProvisioningFailures() {
+        ProvisioningException firstFailure = new ProvisioningException("test-0");
+        ProvisioningException secondFailure = new ProvisioningException("test-2");
+        willThrow(firstFailure).given(mockArtemisBrokerManager)
+                .createAddress(String.format("%s-0", address), mockArtemisProducerProperties);
+        willThrow(secondFailure).given(mockArtemisBrokerManager)
+                .createAddress(String.format("%s-2", address), mockArtemisProducerProperties);
+        given(mockProducerProperties.isPartitioned()).willReturn(true);
+        given(mockProducerProperties.getPartitionCount()).willReturn(3);
+        provider.setProvisioningConcurrency(2);
+
+        try {
+            provider.provisionProducerDestination(address, mockProducerProperties);
+            fail("Provisioning exception was expected");
+        } catch (ProvisioningException e) {
+            assertThat(e.getMessage()).contains("Failed to provision 2 resources");
+            assertThat(e.getCause()).isSameAs(firstFailure);
+            assertThat(e.getSuppressed()).containsExactly(secondFailure);
+        }
+
+        verify(mockArtemisBrokerManager)
+                .createAddress(String.format("%s-1", address), mockArtemisProducerProperties);
+        verify(mockArtemisBrokerManager, times(0)).createQueue(anyString(), anyString(), any());
+    }
+
+    @Test
+    public void shouldRethrowSingleProvisioningFailure() {
+        ProvisioningException failure = new ProvisioningException("test");
+        willThrow(failure).given(mockArtemisBrokerManager)
+                .createQueue(address, getQueueName(address, groups[1]), mockArtemisProducerProperties);
+        given(mockProducerProperties.getRequiredGroups()).willReturn(groups);
+        provider.setProvisioningConcurrency(2);
+
+        try {
+            provider.provisionProducerDestination(address, mockProducerProperties);
+            fail("Provisioning exception was expected");
+        } catch (ProvisioningException e) {
+            assertThat(e).isSameAs(failure);
+        }
+
+        verify(mockArtemisBrokerManager)
+                .createQueue(address, getQueueName(address, groups[0]), mockArtemisProducerProperties);
+    }
+
+    @Test
+    public void shouldWrapSingleUnexpectedFailure() {
+        IllegalStateException failure = new IllegalStateException("test");
+        willThrow(failure).given(mockArtemisBrokerManager)
+                .createQueue(address, getQueueName(address, groups[1]), mockArtemisProducerProperties);
+        given(mockProducerProperties.getRequiredGroups()).willReturn(groups);
+        provider.setProvisioningConcurrency(2);
+
+        try {
+            provider.provisionProducerDestination(address, mockProducerProperties);
+            fail("Provisioning exception was expected");
+        } catch (ProvisioningException e) {
+            assertThat(e.getMessage()).contains("Failed to provision a resource");
+            assertThat(e.getCause()).isSameAs(failure);
+        }
+    }
+
+    @Test
+    public void shouldReuseExecutorAcrossDestinations() {
+        given(mockProducerProperties.getRequiredGroups()).willReturn(groups);
+        provider.setProvisioningConcurrency(2);
+
+        provider.provisionProducerDestination(address, mockProducerProperties);
+        Object executor = new DirectFieldAccessor(provider).getPropertyValue("executor");
+        provider.provisionProducerDestination(address, mockProducerProperties);
+
+        assertThat(executor).isNotNull();
+        assertThat(new DirectFieldAccessor(provider).getPropertyValue("executor")).isSameAs(executor);
+
+        provider.close();
+        assertThat(((ExecutorService) executor).isShutdown()).isTrue();
     }
 
     @Test
@@ -125,6 +247,18 @@ public class ArtemisProvisioningProviderTest {
         assertThat(destination).isInstanceOf(ArtemisConsumerDestination.class);
         assertThat(destination.getName()).isEqualTo(address);
         verify(mockArtemisBrokerManager).createAddress(address, mockArtemisConsumerProperties);
+        verify(mockArtemisBrokerManager, times(0)).createQueue(anyString(), anyString(), any());
+    }
+
+    @Test
+    public void shouldProvisionConsumerGroupQueue() {
+        ConsumerDestination destination =
+                provider.provisionConsumerDestination(address, "test-group", mockConsumerProperties);
+
+        assertThat(destination.getName()).isEqualTo(address);
+        verify(mockArtemisBrokerManager).createAddress(address, mockArtemisConsumerProperties);
+        verify(mockArtemisBrokerManager)
+                .createQueue(address, getQueueName(address, "test-group"), mockArtemisConsumerProperties);
     }
 
     @Test
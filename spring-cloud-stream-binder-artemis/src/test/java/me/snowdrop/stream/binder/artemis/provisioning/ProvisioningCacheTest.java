@@ -0,0 +1,71 @@
+package me.snowdrop.stream.binder.artemis.provisioning;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
+ */
+public class ProvisioningCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void shouldGetValue() {
+        ProvisioningCache<String> cache = new ProvisioningCache<>(10, 100, clock::get);
+        cache.put("test-name", "test-value");
+
+        assertThat(cache.get("test-name")).isEqualTo("test-value");
+        assertThat(cache.get("another-name")).isNull();
+    }
+
+    @Test
+    public void shouldExpireValue() {
+        ProvisioningCache<String> cache = new ProvisioningCache<>(10, 100, clock::get);
+        cache.put("test-name", "test-value");
+
+        clock.set(99);
+        assertThat(cache.get("test-name")).isEqualTo("test-value");
+        clock.set(100);
+        assertThat(cache.get("test-name")).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedValue() {
+        ProvisioningCache<String> cache = new ProvisioningCache<>(2, 100, clock::get);
+        cache.put("test-name-1", "test-value-1");
+        cache.put("test-name-2", "test-value-2");
+        cache.get("test-name-1");
+        cache.put("test-name-3", "test-value-3");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("test-name-1")).isEqualTo("test-value-1");
+        assertThat(cache.get("test-name-2")).isNull();
+        assertThat(cache.get("test-name-3")).isEqualTo("test-value-3");
+    }
+
+    @Test
+    public void shouldInvalidateValue() {
+        ProvisioningCache<String> cache = new ProvisioningCache<>(10, 100, clock::get);
+        cache.put("test-name", "test-value");
+        cache.invalidate("test-name");
+
+        assertThat(cache.get("test-name")).isNull();
+    }
+
+    @Test
+    public void shouldNotCacheIfDisabled() {
+        ProvisioningCache<String> sizeDisabledCache = new ProvisioningCache<>(0, 100, clock::get);
+        sizeDisabledCache.put("test-name", "test-value");
+        ProvisioningCache<String> ttlDisabledCache = new ProvisioningCache<>(10, 0, clock::get);
+        ttlDisabledCache.put("test-name", "test-value");
+
+        assertThat(sizeDisabledCache.get("test-name")).isNull();
+        assertThat(ttlDisabledCache.get("test-name")).isNull();
+    }
+
+}